@@ -2,15 +2,24 @@ package com.github.nellocarotenuto.p2psudoku.challenge;
 
 import com.github.nellocarotenuto.p2psudoku.sudoku.*;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Objects;
-
-import org.javatuples.Triplet;
+import java.util.Set;
 
 /**
  * Models a multiplayer Sudoku challenge.
+ *
+ * Only the details shared by the players are serialized, that is the board, the owner, the status, the visibility and
+ * the list of players: the progress of each player is stored apart, so players never write the same data when placing
+ * numbers. Deserialized challenges start with empty progress for every player, to be restored from what each player
+ * stored.
  */
 public class Challenge implements Serializable {
 
@@ -24,11 +33,15 @@ public class Challenge implements Serializable {
 
     private String name;
     private Sudoku sudoku;
-    private Integer[][] initialBoard;
+    private Grade grade;
     private Player owner;
     private ChallengeStatus status;
     private boolean listed;
-    private HashMap<Player, Triplet<Integer[][], Integer, Boolean>> games;
+    private int cellsToFill;
+    private transient HashMap<Player, Progress> games;
+    private int sequence;
+    private transient HashMap<Player, BoardView> views;
+    private transient HashMap<Player, PencilMarks> marks;
 
     /**
      * Creates a new Sudoku challenge.
@@ -39,6 +52,61 @@ public class Challenge implements Serializable {
      * @param listed true if the challenge is to be public, false otherwise
      */
     public Challenge(Player owner, String name, int seed, boolean listed) {
+        this(owner, name, seed, listed, GenerationMode.CLASSIC);
+    }
+
+    /**
+     * Creates a new Sudoku challenge.
+     *
+     * @param owner the player that owns the challenge
+     * @param name the challenge name
+     * @param seed the seed for the Sudoku
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the Sudoku
+     */
+    public Challenge(Player owner, String name, int seed, boolean listed, GenerationMode mode) {
+        this(owner, name, seed, Sudoku.SIDE_SIZE, listed, mode);
+    }
+
+    /**
+     * Creates a new Sudoku challenge on a board of a given size.
+     *
+     * @param owner the player that owns the challenge
+     * @param name the challenge name
+     * @param seed the seed for the Sudoku
+     * @param sideSize the number of cells on each side of the board
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the Sudoku
+     */
+    public Challenge(Player owner, String name, int seed, int sideSize, boolean listed, GenerationMode mode) {
+        this(owner, name, seed, sideSize, listed, mode, EnumSet.noneOf(Variant.class));
+    }
+
+    /**
+     * Creates a new Sudoku challenge on a board of a given size with extra constraints.
+     *
+     * @param owner the player that owns the challenge
+     * @param name the challenge name
+     * @param seed the seed for the Sudoku
+     * @param sideSize the number of cells on each side of the board
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the Sudoku
+     * @param variants the constraints the board adds to those of its rows, columns and regions
+     */
+    public Challenge(Player owner, String name, int seed, int sideSize, boolean listed, GenerationMode mode,
+                     Set<Variant> variants) {
+        this(owner, name, new Sudoku(seed, sideSize, mode, variants), listed);
+    }
+
+    /**
+     * Creates a new Sudoku challenge on a board generated earlier.
+     *
+     * @param owner the player that owns the challenge
+     * @param name the challenge name
+     * @param sudoku the board of the challenge, which must not have been played yet
+     * @param listed true if the challenge is to be public, false otherwise
+     */
+    public Challenge(Player owner, String name, Sudoku sudoku, boolean listed) {
         if (!name.matches(GAME_NAME_FORMAT)) {
             throw new InvalidChallengeNameException("A game name must be at least 3 characters long and only contain " +
                     "letters, numbers, dashes, dots and underscores.");
@@ -47,16 +115,19 @@ public class Challenge implements Serializable {
         // Set the game name
         this.name = name;
 
-        // Generate a new Sudoku
-        this.sudoku = new Sudoku(seed);
+        // Set the Sudoku
+        this.sudoku = sudoku;
 
         // Set visibility
         this.listed = listed;
 
-        // Save the initial board aside
-        this.initialBoard = Arrays.stream(sudoku.getBoard()).map(Integer[]::clone).toArray(Integer[][]::new);
+        // Rate the difficulty of the board
+        this.grade = Sudoku.grade(sudoku.getInitialBoard(), sudoku.getConstraints());
+
+        // Count the cells each player will have to fill
+        this.cellsToFill = sudoku.getRemainingCells();
 
-        // Prepare the hashmap to store users' boards and scores
+        // Prepare the hashmap to store users' progress and scores
         games = new HashMap<>();
 
         // Set the owner of the game
@@ -75,6 +146,33 @@ public class Challenge implements Serializable {
         return name;
     }
 
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board of the challenge
+     */
+    public int getSideSize() {
+        return sudoku.getSideSize();
+    }
+
+    /**
+     * Gets the difficulty rating of the board.
+     *
+     * @return the grade of the initial board of the challenge
+     */
+    public Grade getGrade() {
+        return grade;
+    }
+
+    /**
+     * Gets the constraints of the board.
+     *
+     * @return the groups and cages every value placed on the board of the challenge must respect
+     */
+    public Constraints getConstraints() {
+        return sudoku.getConstraints();
+    }
+
     /**
      * Gets the owner of the game.
      *
@@ -103,8 +201,7 @@ public class Challenge implements Serializable {
             return;
         }
 
-        Integer[][] board = Arrays.stream(initialBoard).map(Integer[]::clone).toArray(Integer[][]::new);
-        games.put(player, new Triplet<>(board, 0, false));
+        games.put(player, new Progress(sudoku.getSideSize() * sudoku.getSideSize(), cellsToFill));
     }
 
     /**
@@ -114,6 +211,14 @@ public class Challenge implements Serializable {
      */
     public void removePlayer(Player player) {
         games.remove(player);
+
+        if (views != null) {
+            views.remove(player);
+        }
+
+        if (marks != null) {
+            marks.remove(player);
+        }
     }
 
     /**
@@ -154,21 +259,134 @@ public class Challenge implements Serializable {
     /**
      * Gets the Sudoku board with just the numbers placed by the user.
      *
+     * The matrix is copied at each call, {@link #getView(Player)} reads the board without copying it.
+     *
      * @param player the user requesting the board
      *
      * @return the integer matrix for the user
      */
     public Integer[][] getBoard(Player player) {
-        return games.get(player).getValue0();
+        Progress progress = games.get(player);
+        int sideSize = sudoku.getSideSize();
+        Integer[][] board = new Integer[sideSize][sideSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                board[row][column] = getValue(progress, row, column);
+            }
+        }
+
+        return board;
     }
 
     /**
-     * Gets the games for this challenge.
+     * Gets a read-only view of the Sudoku board with just the numbers placed by the user.
+     *
+     * Views are created once per player and follow the board as the player places numbers on this instance of the
+     * challenge.
+     *
+     * @param player the user requesting the board
      *
-     * @return the board, score and game status for each user playing this challenge
+     * @return the view of the board of the user
      */
-    public HashMap<Player, Triplet<Integer[][], Integer, Boolean>> getGames() {
-        return games;
+    public BoardView getView(Player player) {
+        if (views == null) {
+            views = new HashMap<>();
+        }
+
+        BoardView view = views.get(player);
+
+        if (view == null) {
+            view = new PlayerView(games.get(player));
+            views.put(player, view);
+        }
+
+        return view;
+    }
+
+    /**
+     * Gets the pencil marks of a cell on the board of a player.
+     *
+     * Marks are built once per player from the board and then updated as the player fills cells on this instance of
+     * the challenge.
+     *
+     * @param player the user requesting the marks
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values not yet used by the player in the groups of the cell, where bit v - 1 stands
+     *         for value v, 0 if the cell is filled
+     *
+     * @throws CellNotFoundException if the cell selected is outside the board
+     */
+    public int getCandidates(Player player, int row, int column) {
+        int sideSize = sudoku.getSideSize();
+
+        if (row < 0 || row >= sideSize || column < 0 || column >= sideSize) {
+            throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
+        }
+
+        if (marks == null) {
+            marks = new HashMap<>();
+        }
+
+        PencilMarks playerMarks = marks.get(player);
+
+        if (playerMarks == null) {
+            playerMarks = new PencilMarks(getBoard(player), sudoku.getConstraints());
+            marks.put(player, playerMarks);
+        }
+
+        return playerMarks.getCandidates(row, column);
+    }
+
+    /**
+     * Gets a read-only view of the shared board, holding the numbers found by any player.
+     *
+     * @return the view of the board of the challenge
+     */
+    BoardView getSharedView() {
+        return sudoku.getView();
+    }
+
+    /**
+     * Gets the number of cells left to fill on the shared board, by any player.
+     *
+     * @return the number of cells nobody has filled yet
+     */
+    public int getRemainingCells() {
+        return sudoku.getRemainingCells();
+    }
+
+    /**
+     * Gets the number of cells a player has left to fill.
+     *
+     * @param player the player to get the progress of
+     *
+     * @return the number of empty cells on the board of the player
+     */
+    public int getRemainingCells(Player player) {
+        return games.get(player).getRemainingCells();
+    }
+
+    /**
+     * Gets the score of a player.
+     *
+     * @param player the player to get the score of
+     *
+     * @return the sum of the points gained and lost by the player
+     */
+    public int getScore(Player player) {
+        return games.get(player).getScore();
+    }
+
+    /**
+     * Gets the players of this challenge.
+     *
+     * @return the users playing this challenge
+     */
+    public Set<Player> getPlayers() {
+        return games.keySet();
     }
 
     /**
@@ -201,77 +419,297 @@ public class Challenge implements Serializable {
                                                                                    FixedCellException,
             NumberAlreadyGuessedException,
             InvalidNumberException {
+        checkPlacement(tryPlaceNumber(player, row, column, number), row, column, number);
+    }
+
+    /**
+     * Places a new number, reporting the outcome rather than throwing when the number can't be placed.
+     *
+     * Scores and progress are updated as by {@link #placeNumber(Player, int, int, int)}.
+     *
+     * @param player the user placing the number
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the solution number
+     *
+     * @return {@link PlacementResult#PLACED} if the number has been placed, {@link PlacementResult#ALREADY_GUESSED} if
+     *         another player had already placed it, {@link PlacementResult#FILLED} if the player had already filled the
+     *         cell or the whole board, {@link PlacementResult#FIXED} if the cell is fixed and
+     *         {@link PlacementResult#WRONG} if the number doesn't fit into the cell
+     *
+     * @throws CellNotFoundException if the cell selected is outside the board
+     * @throws ChallengeStatusException if the challenge has not started yet or  has already finished
+     */
+    public PlacementResult tryPlaceNumber(Player player, int row, int column, int number)
+            throws CellNotFoundException, ChallengeStatusException {
+        PlacementResult result = evaluate(player, row, column, number);
+
+        record(player, row, column, result);
+
+        return result;
+    }
+
+    /**
+     * Finds the outcome of placing a number without placing it.
+     *
+     * @param player the user placing the number
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the solution number
+     *
+     * @return the outcome {@link #tryPlaceNumber(Player, int, int, int)} would report, as far as the numbers placed by
+     *         the other players are known
+     *
+     * @throws CellNotFoundException if the cell selected is outside the board
+     * @throws ChallengeStatusException if the challenge has not started yet or  has already finished
+     */
+    PlacementResult evaluate(Player player, int row, int column, int number) {
         if (status != ChallengeStatus.PLAYING) {
             throw new ChallengeStatusException("Unable to place a number if the challenge has ended or not yet " +
                     "started.");
         }
 
-        Triplet<Integer[][], Integer, Boolean> game = games.get(player);
+        Progress progress = games.get(player);
+        BoardView board = sudoku.getView();
 
-        Integer[][] board = game.getValue0();
-        int score = game.getValue1();
-        boolean completed = game.getValue2();
+        if (progress.isCompleted()) {
+            return PlacementResult.FILLED;
+        }
 
-        if (completed) {
-            return;
+        if (board.isFixed(row, column)) {
+            return PlacementResult.FIXED;
         }
 
-        try {
-            // Set the number in the global board
-            sudoku.placeNumber(row, column, number);
-
-            // Set the number into user's board
-            board[row][column] = number;
-            game = game.setAt0(board);
-
-            // Increment user score
-            score += CORRECT_NUMBER_SCORE;
-            game = game.setAt1(score);
-        } catch (FilledCellException e) {
-            if (board[row][column] != Sudoku.EMPTY_VALUE) {
-                throw new FilledCellException("Unable to place " + number + " at cell " + row + ", " + column +
-                        ": the cell has already a value.");
-            } else {
-                // Just set the number into user's board
-                board[row][column] = number;
-                game = game.setAt0(board);
-
-                throw new NumberAlreadyGuessedException("Number at cell " + row + ", " + column +
-                        " has already been guessed by another player.");
+        if (progress.isFilled(row * sudoku.getSideSize() + column)) {
+            return PlacementResult.FILLED;
+        }
+
+        if (board.getValue(row, column) != Sudoku.EMPTY_VALUE) {
+            return PlacementResult.ALREADY_GUESSED;
+        }
+
+        if (number != sudoku.getSolution(row, column)) {
+            return PlacementResult.WRONG;
+        }
+
+        return PlacementResult.PLACED;
+    }
+
+    /**
+     * Updates the progress of a player and the shared board with the outcome of a placement.
+     *
+     * @param player the player placing the number
+     * @param row the row index (starting at 0) of the cell where the number was placed
+     * @param column the column index (starting at 0) of the cell where the number was placed
+     * @param result the outcome of the placement
+     */
+    private void record(Player player, int row, int column, PlacementResult result) {
+        Progress progress = games.get(player);
+
+        if (result == PlacementResult.PLACED || result == PlacementResult.ALREADY_GUESSED) {
+            // Set the number into user's board and into the global one if nobody else did
+            progress.fill(row * sudoku.getSideSize() + column);
+            sudoku.tryPlaceNumber(row, column, sudoku.getSolution(row, column));
+
+            // Strike the number from the marks of the user, if they have been built already
+            PencilMarks playerMarks = marks == null ? null : marks.get(player);
+
+            if (playerMarks != null) {
+                playerMarks.place(row, column, sudoku.getSolution(row, column));
             }
-        } catch (InvalidNumberException e) {
+
+            if (result == PlacementResult.PLACED) {
+                // Increment user score
+                progress.addScore(CORRECT_NUMBER_SCORE);
+            }
+        } else if (result == PlacementResult.WRONG) {
             // Decrement user score
-            score += WRONG_NUMBER_SCORE;
-            game = game.setAt1(score);
+            progress.addScore(WRONG_NUMBER_SCORE);
+        }
 
-            throw e;
-        } finally {
-            // Check for board completion
-            completed = true;
-
-            for (int i = 0; i < board.length; i++) {
-                for (int j = 0; j < board[i].length; j++) {
-                    if (board[i][j] == Sudoku.EMPTY_VALUE) {
-                        completed = false;
-                        break;
-                    }
-                }
+        // Set the status of the whole challenge to ended if one player has completed the board
+        if (progress.isCompleted()) {
+            this.status = ChallengeStatus.ENDED;
+        }
+    }
 
-                if (!completed) {
-                    break;
-                }
+    /**
+     * Turns the outcome of a placement into the exception reported by {@link #placeNumber(Player, int, int, int)}.
+     *
+     * @param result the outcome of the placement
+     * @param row the row index (starting at 0) of the cell where the number was placed
+     * @param column the column index (starting at 0) of the cell where the number was placed
+     * @param number the number placed
+     *
+     * @throws FilledCellException if the cell selected has already been filled by the player
+     * @throws FixedCellException if the cell selected is fixed
+     * @throws NumberAlreadyGuessedException if the cell selected has already been filled by another player
+     * @throws InvalidNumberException if the number doesn't fit into the specified cell
+     */
+    static void checkPlacement(PlacementResult result, int row, int column, int number) {
+        if (result == PlacementResult.FIXED) {
+            throw new FixedCellException("Unable to place " + number + " at cell " + row + ", " + column +
+                                         ": the cell is fixed.");
+        } else if (result == PlacementResult.FILLED) {
+            throw new FilledCellException("Unable to place " + number + " at cell " + row + ", " + column +
+                    ": the cell has already a value.");
+        } else if (result == PlacementResult.ALREADY_GUESSED) {
+            throw new NumberAlreadyGuessedException("Number at cell " + row + ", " + column +
+                    " has already been guessed by another player.");
+        } else if (result == PlacementResult.WRONG) {
+            throw new InvalidNumberException("Unable to place " + number + " at cell " + row + ", " + column +
+                                            ": constraints violated.");
+        }
+    }
+
+    /**
+     * Gets the number of moves applied to the challenge.
+     *
+     * @return the sequence number of the next move in the log of the challenge
+     */
+    int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the number of moves of a player applied to the challenge.
+     *
+     * @param player the player placing numbers
+     *
+     * @return the sequence number of the next move in the log of the player
+     */
+    int getSequence(Player player) {
+        return games.get(player).getSequence();
+    }
+
+    /**
+     * Gets the progress of a player.
+     *
+     * @param player the player to get the progress of
+     *
+     * @return the progress of the player, updated in place as moves are applied
+     */
+    Progress getProgress(Player player) {
+        return games.get(player);
+    }
+
+    /**
+     * Replaces the progress of a player with one stored earlier, filling the cells found into the shared board.
+     *
+     * @param player the player participating to the challenge
+     * @param progress the progress of the player, at least as recent as the one it replaces
+     */
+    void restore(Player player, Progress progress) {
+        int sideSize = sudoku.getSideSize();
+
+        for (int position = 0; position < sideSize * sideSize; position++) {
+            int row = position / sideSize;
+            int column = position % sideSize;
+
+            if (progress.isFilled(position)) {
+                sudoku.tryPlaceNumber(row, column, sudoku.getSolution(row, column));
             }
+        }
 
-            game = game.setAt2(completed);
+        if (progress.isCompleted()) {
+            this.status = ChallengeStatus.ENDED;
+        }
+
+        games.put(player, progress);
 
-            // Update game info
-            games.put(player, game);
+        if (views != null) {
+            views.remove(player);
+        }
 
-            // Set the status of the whole challenge to ended if one player has completed the board
-            if (completed) {
-                this.status = ChallengeStatus.ENDED;
+        if (marks != null) {
+            marks.remove(player);
+        }
+    }
+
+    /**
+     * Applies the next move of the log of the challenge, or of the log of a player for numbers placed.
+     *
+     * Moves are appended to the log before being checked, so a move that can't be made still takes its place in the
+     * log and leaves the challenge as it was when replayed. Numbers placed are instead checked before being appended,
+     * and carry their outcome, so that they can be replayed in any order with respect to those of the other players.
+     * For the same reason numbers placed are scored whatever the status of the challenge: a number checked while the
+     * challenge was still being played counts even if its move is replayed after the one ending the challenge.
+     *
+     * @param move the move following the last one applied from the same log
+     *
+     * @return the outcome of the placement if the move places a number, null otherwise
+     *
+     * @throws ChallengeStatusException if the move starts a challenge that has already been started
+     * @throws UnauthorizedOperationException if the move starts the challenge and isn't made by the owner
+     */
+    PlacementResult apply(Move move) {
+        if (move.getType() == Move.Type.PLACE) {
+            Player player = findPlayer(move.getNickname());
+
+            try {
+                record(player, move.getRow(), move.getColumn(), move.getResult());
+
+                return move.getResult();
+            } finally {
+                games.get(player).advance();
+            }
+        }
+
+        try {
+            if (move.getType() == Move.Type.JOIN) {
+                addPlayer(move.getPlayer());
+            } else if (move.getType() == Move.Type.START) {
+                start(findPlayer(move.getNickname()));
+            } else if (move.getType() == Move.Type.QUIT) {
+                removePlayer(findPlayer(move.getNickname()));
+
+                if (move.getOwner() != null) {
+                    setOwner(findPlayer(move.getOwner()));
+                }
+            }
+
+            return null;
+        } finally {
+            sequence++;
+        }
+    }
+
+    /**
+     * Finds a player of the challenge by nickname.
+     *
+     * @param nickname the nickname of the player
+     *
+     * @return the player participating to the challenge with the given nickname
+     */
+    private Player findPlayer(String nickname) {
+        for (Player player : games.keySet()) {
+            if (player.getNickname().equals(nickname)) {
+                return player;
             }
         }
+
+        throw new RuntimeException("Player " + nickname + " isn't participating to challenge " + name + ".");
+    }
+
+    /**
+     * Gets the value of a cell on the board of a player.
+     *
+     * @param progress the progress of the player
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the value of the cell if it's fixed or the player has filled it, {@link Sudoku#EMPTY_VALUE} otherwise
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     */
+    private int getValue(Progress progress, int row, int column) {
+        BoardView board = sudoku.getView();
+
+        if (board.isFixed(row, column) || progress.isFilled(row * board.getSideSize() + column)) {
+            return board.getValue(row, column);
+        }
+
+        return Sudoku.EMPTY_VALUE;
     }
 
     /**
@@ -283,6 +721,37 @@ public class Challenge implements Serializable {
         return new ChallengeInfo(this);
     }
 
+    /**
+     * Writes the challenge to a stream, leaving out the progress of the players.
+     *
+     * @param output the stream to write the challenge to
+     *
+     * @throws IOException if the challenge can't be written
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject();
+        output.writeObject(new ArrayList<>(games.keySet()));
+    }
+
+    /**
+     * Reads a challenge from a stream, starting with empty progress for every player.
+     *
+     * @param input the stream to read the challenge from
+     *
+     * @throws IOException if the challenge can't be read
+     * @throws ClassNotFoundException if the class of a serialized object can't be found
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+
+        games = new HashMap<>();
+
+        for (Player player : (List<Player>) input.readObject()) {
+            addPlayer(player);
+        }
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -312,4 +781,42 @@ public class Challenge implements Serializable {
                 "\n}";
     }
 
+    /**
+     * Reads the board of a player.
+     */
+    private class PlayerView implements BoardView {
+
+        private final Progress progress;
+
+        /**
+         * Creates a view of the board of a player.
+         *
+         * @param progress the progress of the player, updated in place as the player places numbers
+         */
+        private PlayerView(Progress progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public int getSideSize() {
+            return sudoku.getSideSize();
+        }
+
+        @Override
+        public int getValue(int row, int column) {
+            return Challenge.this.getValue(progress, row, column);
+        }
+
+        @Override
+        public boolean isFixed(int row, int column) {
+            return sudoku.getView().isFixed(row, column);
+        }
+
+        @Override
+        public int getVersion() {
+            return sudoku.getSideSize() * sudoku.getSideSize() - progress.getRemainingCells();
+        }
+
+    }
+
 }
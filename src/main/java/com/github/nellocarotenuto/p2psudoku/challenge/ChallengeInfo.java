@@ -1,5 +1,7 @@
 package com.github.nellocarotenuto.p2psudoku.challenge;
 
+import com.github.nellocarotenuto.p2psudoku.sudoku.Difficulty;
+
 import java.io.Serializable;
 import java.util.Objects;
 
@@ -13,6 +15,9 @@ public class ChallengeInfo implements Serializable {
     private String name;
     private String owner;
     private ChallengeStatus status;
+    private int sideSize;
+    private Difficulty difficulty;
+    private int remainingCells;
     private int players;
 
     /**
@@ -24,7 +29,10 @@ public class ChallengeInfo implements Serializable {
         name = challenge.getName();
         owner = challenge.getOwner().getNickname();
         status = challenge.getStatus();
-        players = challenge.getGames().keySet().size();
+        sideSize = challenge.getSideSize();
+        difficulty = challenge.getGrade().getDifficulty();
+        remainingCells = challenge.getRemainingCells();
+        players = challenge.getPlayers().size();
     }
 
     public String getName() {
@@ -47,6 +55,18 @@ public class ChallengeInfo implements Serializable {
         this.status = status;
     }
 
+    public int getSideSize() {
+        return sideSize;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getRemainingCells() {
+        return remainingCells;
+    }
+
     public int getPlayers() {
         return players;
     }
@@ -80,6 +100,9 @@ public class ChallengeInfo implements Serializable {
                 "\n\tname='" + name + "'," +
                 "\n\towner='" + owner + "'," +
                 "\n\tstatus='" + status + "'," +
+                "\n\tsideSize='" + sideSize + "'," +
+                "\n\tdifficulty='" + difficulty + "'," +
+                "\n\tremainingCells='" + remainingCells + "'," +
                 "\n\tplayers='" + players + "'" +
                 "\n}";
     }
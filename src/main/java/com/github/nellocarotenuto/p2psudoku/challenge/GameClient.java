@@ -1,8 +1,16 @@
 package com.github.nellocarotenuto.p2psudoku.challenge;
 
+import com.github.nellocarotenuto.p2psudoku.sudoku.BoardView;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Difficulty;
+import com.github.nellocarotenuto.p2psudoku.sudoku.GenerationMode;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Hint;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PlacementResult;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Variant;
+
 import org.javatuples.Pair;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Defines the public API for the game.
@@ -50,6 +58,65 @@ public interface GameClient {
      */
     public void createChallenge(String name, int seed, boolean listed) throws Exception;
 
+    /**
+     * Creates a new challenge and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    public void createChallenge(String name, int seed, boolean listed, GenerationMode mode) throws Exception;
+
+    /**
+     * Creates a new challenge on a board of a given size and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to
+     *                 {@link com.github.nellocarotenuto.p2psudoku.sudoku.Sudoku#MAX_SIDE_SIZE}
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    public void createChallenge(String name, int seed, int sideSize, boolean listed, GenerationMode mode)
+            throws Exception;
+
+    /**
+     * Creates a new challenge on a board with extra constraints and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to
+     *                 {@link com.github.nellocarotenuto.p2psudoku.sudoku.Constraints#MAX_VARIANT_SIDE_SIZE} if any
+     *                 variant is requested
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     * @param variants the constraints the board adds to those of its rows, columns and regions
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    public void createChallenge(String name, int seed, int sideSize, boolean listed, GenerationMode mode,
+                                Set<Variant> variants) throws Exception;
+
+    /**
+     * Creates a new challenge on a uniquely solvable board of the requested difficulty and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param difficulty the difficulty of the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    public void createChallenge(String name, boolean listed, Difficulty difficulty) throws Exception;
+
     /**
      * Gets the list of public challenges in the system.
      *
@@ -92,6 +159,20 @@ public interface GameClient {
      */
     public void placeNumber(int row, int column, int number) throws Exception;
 
+    /**
+     * Lets the user place a number in the board and updates his score accordingly, reporting the outcome rather than
+     * throwing when the number can't be placed.
+     *
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the number to put into the cell
+     *
+     * @return the outcome of the placement
+     *
+     * @throws ChallengeStatusException if the challenge has not started or already ended
+     */
+    public PlacementResult tryPlaceNumber(int row, int column, int number) throws Exception;
+
     /**
      * Gets the name of the current challenge.
      *
@@ -106,6 +187,13 @@ public interface GameClient {
      */
     public Integer[][] getChallengeBoard();
 
+    /**
+     * Gets a read-only view of the board of the user for the current challenge.
+     *
+     * @return the view of the board of the user, following the current challenge as it changes
+     */
+    public BoardView getChallengeBoardView();
+
     /**
      * Gets the score of the user for the current challenge.
      *
@@ -113,6 +201,32 @@ public interface GameClient {
      */
     public int getChallengeScore();
 
+    /**
+     * Gets the number of cells the user has left to fill in the current challenge.
+     *
+     * @return the number of empty cells on the board of the user
+     */
+    public int getChallengeRemainingCells();
+
+    /**
+     * Gets the pencil marks of a cell on the board of the user for the current challenge.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values not yet used by the user in the row, column and region of the cell, where bit
+     *         v - 1 stands for value v, 0 if the cell is filled
+     */
+    public int getChallengeCandidates(int row, int column);
+
+    /**
+     * Finds the next logical step on the board of the user for the current challenge.
+     *
+     * @return the next value the user could deduce along with the technique needed, null if the board is complete or
+     *         too hard for the known techniques
+     */
+    public Hint getHint();
+
     /**
      * Returns the scores of the players participating to the challenge.
      *
@@ -1,5 +1,16 @@
 package com.github.nellocarotenuto.p2psudoku.challenge;
 
+import com.github.nellocarotenuto.p2psudoku.sudoku.BoardView;
+import com.github.nellocarotenuto.p2psudoku.sudoku.CellNotFoundException;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Constraints;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Difficulty;
+import com.github.nellocarotenuto.p2psudoku.sudoku.GenerationMode;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Hint;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PlacementResult;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzleCorpus;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Sudoku;
+import com.github.nellocarotenuto.p2psudoku.sudoku.SudokuPool;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Variant;
 import com.github.nellocarotenuto.p2psudoku.utils.ElementAlreadyExistsException;
 import com.github.nellocarotenuto.p2psudoku.utils.ElementNotFoundException;
 import com.github.nellocarotenuto.p2psudoku.utils.FailedOperationException;
@@ -7,6 +18,7 @@ import com.github.nellocarotenuto.p2psudoku.utils.PeerDHTUtils;
 
 import java.net.InetAddress;
 import java.util.*;
+import java.util.function.Function;
 
 import net.tomp2p.dht.*;
 import net.tomp2p.futures.FutureBootstrap;
@@ -19,7 +31,6 @@ import net.tomp2p.peers.PeerAddress;
 import net.tomp2p.rpc.ObjectDataReply;
 import net.tomp2p.storage.Data;
 
-import org.javatuples.Triplet;
 import org.javatuples.Pair;
 
 import org.slf4j.Logger;
@@ -38,6 +49,7 @@ public class GameClientImpl implements GameClient {
     private static final Logger logger = LoggerFactory.getLogger(GameClientImpl.class);
 
     private static final int MAX_SYNC_ATTEMPTS = 10;
+    private static final int SNAPSHOT_INTERVAL = 32;
 
     public static int DEFAULT_PORT = 4001;
 
@@ -46,14 +58,51 @@ public class GameClientImpl implements GameClient {
 
     private Random random;
 
+    private SudokuPool pool;
+    private PuzzleCorpus corpus;
+
     private Player player;
     private List<ChallengeInfo> challenges;
     private Challenge challenge;
+    private final Object lock;
+    private int appending;
+
+    private BoardView boardView;
+    private Challenge viewChallenge;
+    private BoardView challengeView;
 
     public GameClientImpl(InetAddress masterAddress, int masterPort, int localPort) throws Exception {
+        this(masterAddress, masterPort, localPort, null);
+    }
+
+    /**
+     * Creates a new client drawing the boards of the challenges created by difficulty from a corpus.
+     *
+     * @param masterAddress the address of the master peer
+     * @param masterPort the port of the master peer
+     * @param localPort the local port to use to connect
+     * @param corpus the corpus of classic puzzles to draw from, closed along with the client, null to generate them
+     */
+    public GameClientImpl(InetAddress masterAddress, int masterPort, int localPort, PuzzleCorpus corpus)
+            throws Exception {
+        if (corpus != null && corpus.getSideSize() != Sudoku.SIDE_SIZE) {
+            throw new IllegalArgumentException("The corpus must hold boards with a side of " + Sudoku.SIDE_SIZE +
+                                               " cells.");
+        }
+
+        this.corpus = corpus;
+        this.lock = new Object();
+        this.appending = -1;
+
         // Define the random number generator
         random = new Random();
 
+        // Define the view following the board of the current challenge
+        boardView = new ChallengeView();
+
+        // Start generating boards in background
+        pool = new SudokuPool(SudokuPool.DEFAULT_CAPACITY, 1);
+
         // Define the peer and the DHT
         peer = new PeerBuilder(new Number160(random)).ports(localPort).start();
         dht = new PeerBuilderDHT(peer).start();
@@ -249,6 +298,61 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public void createChallenge(String name, int seed, boolean listed) throws Exception {
+        createChallenge(name, seed, listed, GenerationMode.CLASSIC);
+    }
+
+    /**
+     * Creates a new challenge and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    @Override
+    public void createChallenge(String name, int seed, boolean listed, GenerationMode mode) throws Exception {
+        createChallenge(name, seed, Sudoku.SIDE_SIZE, listed, mode);
+    }
+
+    /**
+     * Creates a new challenge on a board of a given size and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to
+     *                 {@link Sudoku#MAX_SIDE_SIZE}
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    @Override
+    public void createChallenge(String name, int seed, int sideSize, boolean listed, GenerationMode mode)
+            throws Exception {
+        createChallenge(name, seed, sideSize, listed, mode, EnumSet.noneOf(Variant.class));
+    }
+
+    /**
+     * Creates a new challenge on a board with extra constraints and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param seed the seed of the board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to
+     *                 {@link Constraints#MAX_VARIANT_SIDE_SIZE} if any variant is requested
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param mode the strategy to use to generate the board
+     * @param variants the constraints the board adds to those of its rows, columns and regions
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    @Override
+    public void createChallenge(String name, int seed, int sideSize, boolean listed, GenerationMode mode,
+                                Set<Variant> variants) throws Exception {
         if (player == null) {
             throw new RuntimeException("Unable to create a new challenge if not logged in.");
         }
@@ -257,36 +361,39 @@ public class GameClientImpl implements GameClient {
             throw new RuntimeException("Unable to create a new challenge when already participating to another one.");
         }
 
-        Challenge challenge = new Challenge(player, name, seed, listed);
-        challenge.addPlayer(player);
-
-        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
-            try {
-                PeerDHTUtils.create(dht, Number160.createHash(name), new Data(challenge));
-                this.challenge = challenge;
-
-                logger.debug("Player " + player.getNickname() + " created challenge " + challenge.getName());
+        createChallenge(new Challenge(player, name, seed, sideSize, listed, mode, variants));
+    }
 
-                break;
-            } catch (ElementAlreadyExistsException e) {
-                logger.debug("Player " + player.getNickname() + " attempted to create " + challenge.getName() +
-                             "but one with the same name already exists");
+    /**
+     * Creates a new challenge on a uniquely solvable board of the requested difficulty and joins it automatically.
+     *
+     * @param name the name of the challenge
+     * @param listed true if the challenge is to be public, false otherwise
+     * @param difficulty the difficulty of the board
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     * @throws InvalidChallengeNameException if the name chosen doesn't match the pattern
+     */
+    @Override
+    public void createChallenge(String name, boolean listed, Difficulty difficulty) throws Exception {
+        if (player == null) {
+            throw new RuntimeException("Unable to create a new challenge if not logged in.");
+        }
 
-                throw new ChallengeAlreadyExistsException("Challenge " + challenge.getName() + " already exists");
-            } catch (FailedOperationException e) {
-                logger.debug("Challenge creation attempt " + (attempt + 1) + " failed");
+        if (challenge != null) {
+            throw new RuntimeException("Unable to create a new challenge when already participating to another one.");
+        }
 
-                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
-                    throw new RuntimeException("Unable to create the challenge.");
-                }
+        // Draw the board from the corpus if it has any of the difficulty requested
+        Sudoku sudoku;
 
-                Thread.sleep(random.nextInt(500));
-            }
+        if (corpus != null && corpus.size(difficulty) > 0) {
+            sudoku = new Sudoku(corpus.draw(difficulty, random).getPuzzle());
+        } else {
+            sudoku = pool.take(difficulty);
         }
 
-        if (listed) {
-            addChallengeToList(challenge);
-        }
+        createChallenge(new Challenge(player, name, sudoku, listed));
     }
 
     /**
@@ -320,35 +427,17 @@ public class GameClientImpl implements GameClient {
             }
         }
 
-        Challenge challenge = null;
-
-        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
-            try {
-                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(name));
-                Number640 key = entry.getValue0();
-                challenge = (Challenge) entry.getValue1().object();
+        Challenge challenge = load(name);
 
-                challenge.addPlayer(player);
+        append(challenge, current -> Move.join(player));
 
-                PeerDHTUtils.update(dht, new Pair<>(key, new Data(challenge)));
-                this.challenge = challenge;
-
-                logger.debug("Player " + player.getNickname() + " joined challenge " + challenge.getName());
-
-                notifyUpdate(Notification.CHALLENGE_UPDATED);
-                break;
-            } catch (ElementNotFoundException e) {
-                throw new ChallengeNotFoundException("Challenge " + name + " doesn't exist.");
-            } catch (FailedOperationException e) {
-                logger.debug("Join attempt " + (attempt + 1) + " failed");
+        synchronized (lock) {
+            this.challenge = challenge;
+        }
 
-                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
-                    throw new RuntimeException("Unable to update the challenge.");
-                }
+        logger.debug("Player " + player.getNickname() + " joined challenge " + challenge.getName());
 
-                Thread.sleep(random.nextInt(500));
-            }
-        }
+        notifyUpdate(Notification.CHALLENGE_UPDATED);
 
         if (challenge.isListed()) {
             updateChallengeInList(challenge);
@@ -360,6 +449,8 @@ public class GameClientImpl implements GameClient {
      *
      * The challenge is deleted if there was only one player participating.
      * The ownership is handed over to another player participating to the challenge if the owner quits.
+     * A snapshot of the challenge is taken before the log of the player is removed, so that the cells found by the
+     * player stay on the shared board of those joining later.
      */
     @Override
     public void quitChallenge() throws Exception {
@@ -367,50 +458,65 @@ public class GameClientImpl implements GameClient {
             return;
         }
 
-        boolean challengeDeleted = false;
+        Challenge challenge = this.challenge;
+        int placements;
 
-        Challenge challenge = null;
+        synchronized (lock) {
+            placements = challenge.getSequence(player);
+        }
 
-        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
-            try {
-                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(this.challenge.getName()));
-                Number640 key = entry.getValue0();
+        append(challenge, current -> Move.quit(player, nextOwner(current)));
 
-                challenge = (Challenge) entry.getValue1().object();
-                challenge.removePlayer(player);
+        // Keep the cells found by the player on the shared board of those joining later, before removing its log
+        snapshot(challenge);
 
-                if (challenge.getGames().size() == 0) {
-                    PeerDHTUtils.remove(dht, Number160.createHash(challenge.getName()));
-                    challengeDeleted = true;
-                } else {
-                    if (challenge.getOwner().equals(player)) {
-                        HashMap<Player, Triplet<Integer[][], Integer, Boolean>> games = challenge.getGames();
-                        List<Player> players = new ArrayList<>(games.keySet());
-                        Player newOwner = players.get(random.nextInt(players.size()));
-                        challenge.setOwner(newOwner);
+        // Remove the progress of the player along with its log
+        PeerDHTUtils.remove(dht, progressKey(challenge.getName(), player));
 
-                        logger.debug("Challenge " + challenge.getName() + "'s owner changed to " + newOwner.getNickname());
-                    }
+        for (int sequence = 0; sequence < placements; sequence++) {
+            PeerDHTUtils.remove(dht, placementKey(challenge.getName(), player, sequence));
+        }
 
-                    PeerDHTUtils.update(dht, new Pair<>(key, new Data(challenge)));
-                    notifyUpdate(Notification.CHALLENGE_UPDATED);
+        boolean challengeDeleted;
 
-                    logger.debug("Player " + player.getNickname() + " quit challenge " + challenge.getName());
-                }
+        synchronized (lock) {
+            challengeDeleted = challenge.getPlayers().isEmpty();
+        }
 
-                this.challenge = null;
-                break;
+        if (challengeDeleted) {
+            // Remove the snapshot along with the whole log, the claims of the cells found and the end of the challenge
+            PeerDHTUtils.remove(dht, Number160.createHash(challenge.getName()));
+
+            try {
+                PeerDHTUtils.remove(dht, endKey(challenge.getName()));
             } catch (FailedOperationException e) {
-                logger.debug("Quit attempt " + (attempt + 1) + " failed");
+                logger.debug("No end to remove for challenge " + challenge.getName());
+            }
 
-                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
-                    throw new RuntimeException("Unable to update the challenge.");
-                }
+            for (int sequence = 0; sequence < challenge.getSequence(); sequence++) {
+                PeerDHTUtils.remove(dht, moveKey(challenge.getName(), sequence));
+            }
 
-                Thread.sleep(random.nextInt(500));
+            BoardView board = challenge.getSharedView();
+
+            for (int position = 0; position < board.getSideSize() * board.getSideSize(); position++) {
+                int row = position / board.getSideSize();
+                int column = position % board.getSideSize();
+
+                if (!board.isFixed(row, column) && board.getValue(row, column) != Sudoku.EMPTY_VALUE) {
+                    PeerDHTUtils.remove(dht, cellKey(challenge.getName(), position));
+                }
             }
+        } else {
+            notifyUpdate(Notification.CHALLENGE_UPDATED);
+        }
+
+        synchronized (lock) {
+            this.challenge = null;
         }
 
+        logger.debug("Player " + player.getNickname() + " quit challenge " + challenge.getName());
+
         if (challenge.isListed()) {
             if (challengeDeleted) {
                 removeChallengeFromList(challenge);
@@ -435,34 +541,13 @@ public class GameClientImpl implements GameClient {
             throw new RuntimeException("Unable to start a challenge if not participating to one.");
         }
 
-        Challenge challenge = null;
-
-        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
-            try {
-                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(this.challenge.getName()));
-                Number640 key = entry.getValue0();
-                challenge = (Challenge) entry.getValue1().object();
-
-                challenge.start(player);
-
-                PeerDHTUtils.update(dht, new Pair<>(key, new Data(challenge)));
-                this.challenge = challenge;
-
-                notifyUpdate(Notification.CHALLENGE_UPDATED);
+        Challenge challenge = this.challenge;
 
-                logger.debug("Player " + player.getNickname() + " started the challenge " + challenge.getName());
-
-                break;
-            } catch (FailedOperationException e) {
-                logger.debug("Challenge starting attempt " + (attempt + 1) + " failed");
+        append(challenge, current -> Move.start(player));
 
-                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
-                    throw new RuntimeException("Unable to update the challenge.");
-                }
+        notifyUpdate(Notification.CHALLENGE_UPDATED);
 
-                Thread.sleep(random.nextInt(500));
-            }
-        }
+        logger.debug("Player " + player.getNickname() + " started the challenge " + challenge.getName());
 
         if (challenge.isListed()) {
             updateChallengeInList(challenge);
@@ -480,28 +565,104 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public void placeNumber(int row, int column, int number) throws Exception {
+        Challenge.checkPlacement(place(row, column, number), row, column, number);
+    }
+
+    /**
+     * Lets the user place a number in the board and updates his score accordingly, reporting the outcome rather than
+     * throwing when the number can't be placed.
+     *
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the number to put into the cell
+     *
+     * @return the outcome of the placement
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     * @throws ChallengeStatusException if the challenge has not started or already ended
+     */
+    @Override
+    public PlacementResult tryPlaceNumber(int row, int column, int number) throws Exception {
+        return place(row, column, number);
+    }
+
+    /**
+     * Places a number into the last version of the current challenge by appending the move to the log of the player,
+     * whatever the outcome.
+     *
+     * Only the player appends to its log, so placements never conflict with the moves of the other players. The first
+     * player finding the number of a cell is told by the key of the cell, created by the first placement only, which
+     * two players only contend for when placing the same number at the same time. A snapshot of the progress of the
+     * player replaces the previous one every {@link #SNAPSHOT_INTERVAL} numbers placed. The lock is only held to read
+     * and apply the move, never across the round trips to the DHT.
+     *
+     * The player completing the board creates the end key of the challenge before appending the move, and the other
+     * players check it before appending theirs, so no number is placed once the end is known. A number checked right
+     * before the key is created is still appended and scored by every player, even if its move is replayed after the
+     * one ending the challenge.
+     *
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the number to put into the cell
+     *
+     * @return the outcome of the placement
+     */
+    private PlacementResult place(int row, int column, int number) throws Exception {
+        Challenge challenge = this.challenge;
+
         if (challenge == null) {
             throw new RuntimeException("Unable to place a number if not participating to a challenge.");
         }
 
-        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
+        PlacementResult result = null;
+
+        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS && result == null; attempt++) {
             try {
-                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(this.challenge.getName()));
-                Number640 key = entry.getValue0();
-                Challenge challenge = (Challenge) entry.getValue1().object();
+                catchUp(challenge);
 
-                try {
-                    challenge.placeNumber(player, row, column, number);
-                } finally {
-                    PeerDHTUtils.update(dht, new Pair<>(key, new Data(challenge)));
-                    this.challenge = challenge;
+                PlacementResult outcome;
+                int sequence;
+                boolean completing;
 
-                    notifyUpdate(Notification.CHALLENGE_UPDATED);
+                synchronized (lock) {
+                    outcome = challenge.evaluate(player, row, column, number);
+                    sequence = challenge.getSequence(player);
+                    completing = challenge.getRemainingCells(player) == 1;
+                }
 
-                    logger.debug("Player " + player.getNickname() + " placed a number in challenge " + challenge.getName());
+                if (outcome == PlacementResult.PLACED && !claim(challenge, row, column)) {
+                    outcome = PlacementResult.ALREADY_GUESSED;
                 }
 
-                return;
+                completing &= outcome == PlacementResult.PLACED || outcome == PlacementResult.ALREADY_GUESSED;
+
+                if (isEnded(challenge, completing)) {
+                    catchUp(challenge);
+
+                    throw new ChallengeStatusException("Unable to place a number if the challenge has ended or not " +
+                                                       "yet started.");
+                }
+
+                Move move = Move.place(player, row, column, number, outcome);
+                Number160 key = placementKey(challenge.getName(), player, sequence);
+
+                PeerDHTUtils.create(dht, key, new Data(move.encode()));
+
+                synchronized (lock) {
+                    // The move may have been replayed already while catching up after a notification
+                    if (challenge.getSequence(player) == sequence) {
+                        challenge.apply(move);
+                    }
+                }
+
+                result = outcome;
+
+                if ((sequence + 1) % SNAPSHOT_INTERVAL == 0) {
+                    snapshot(challenge, player);
+                }
+            } catch (ElementAlreadyExistsException e) {
+                // An earlier attempt failed after appending the move, which is replayed before trying again
+                logger.debug("Number placement attempt " + (attempt + 1) + " found its place in the log taken");
             } catch (FailedOperationException e) {
                 logger.debug("Number placement attempt " + (attempt + 1) + " failed");
 
@@ -513,7 +674,15 @@ public class GameClientImpl implements GameClient {
             }
         }
 
-        throw new RuntimeException("Unable to update the challenge.");
+        if (result == null) {
+            throw new RuntimeException("Unable to update the challenge.");
+        }
+
+        notifyUpdate(Notification.CHALLENGE_UPDATED);
+
+        logger.debug("Player " + player.getNickname() + " placed a number in challenge " + challenge.getName());
+
+        return result;
     }
 
     /**
@@ -537,11 +706,26 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public Integer[][] getChallengeBoard() {
-        if (challenge == null) {
-            throw new RuntimeException("Unable to get the current board while not participating to any challenge.");
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get the current board while not participating to any challenge.");
+            }
+
+            return challenge.getBoard(player);
         }
+    }
 
-        return challenge.getBoard(player);
+    /**
+     * Gets a read-only view of the board of the user for the current challenge.
+     *
+     * The view is created along with the client and always reads the board of the last version of the current
+     * challenge received, so it can be obtained once and polled without allocating anything.
+     *
+     * @return the view of the board of the user for the current challenge
+     */
+    @Override
+    public BoardView getChallengeBoardView() {
+        return boardView;
     }
 
     /**
@@ -551,11 +735,78 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public int getChallengeScore() {
-        if (challenge == null) {
-            throw new RuntimeException("Unable to get the current score while not participating to any challenge.");
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get the current score while not participating to any challenge.");
+            }
+
+            return challenge.getScore(player);
+        }
+    }
+
+    /**
+     * Gets the number of cells the user has left to fill in the current challenge.
+     *
+     * @return the number of empty cells on the board of the user
+     */
+    @Override
+    public int getChallengeRemainingCells() {
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get the cells remaining while not participating to any " +
+                                           "challenge.");
+            }
+
+            return challenge.getRemainingCells(player);
+        }
+    }
+
+    /**
+     * Gets the pencil marks of a cell on the board of the user for the current challenge.
+     *
+     * The marks are kept by the challenge and updated as the user fills cells, so that the console can read them at
+     * every redraw.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values not yet used by the user in the row, column and region of the cell, where bit
+     *         v - 1 stands for value v, 0 if the cell is filled
+     */
+    @Override
+    public int getChallengeCandidates(int row, int column) {
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get pencil marks while not participating to any challenge.");
+            }
+
+            return challenge.getCandidates(player, row, column);
+        }
+    }
+
+    /**
+     * Finds the next logical step on the board of the user for the current challenge.
+     *
+     * The board is solved locally from the last version of the challenge received, without querying the DHT.
+     *
+     * @return the next value the user could deduce along with the technique needed, null if the board is complete or
+     *         too hard for the known techniques
+     */
+    @Override
+    public Hint getHint() {
+        Integer[][] board;
+        Constraints constraints;
+
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get a hint while not participating to any challenge.");
+            }
+
+            board = challenge.getBoard(player);
+            constraints = challenge.getConstraints();
         }
 
-        return challenge.getGames().get(player).getValue1();
+        return Sudoku.hint(board, constraints);
     }
 
     /**
@@ -565,16 +816,17 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public List<Pair<String, Integer>> getChallengeScores() {
-        if (challenge == null) {
-            throw new RuntimeException("Unable to get other players' scores while not participating to any challenge.");
-        }
-
         List<Pair<String, Integer>> scores = new ArrayList<>();
 
-        for (Player player : challenge.getGames().keySet()) {
-            Triplet<Integer[][], Integer, Boolean> game = challenge.getGames().get(player);
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get other players' scores while not participating to any " +
+                                           "challenge.");
+            }
 
-            scores.add(new Pair<>(player.getNickname(), game.getValue1()));
+            for (Player player : challenge.getPlayers()) {
+                scores.add(new Pair<>(player.getNickname(), challenge.getScore(player)));
+            }
         }
 
         scores.sort(new Comparator<Pair<String, Integer>>() {
@@ -594,11 +846,13 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public boolean isChallengeOwner() {
-        if (player == null || challenge == null) {
-            throw new RuntimeException("The player has to be logged in and participating to a challenge");
-        }
+        synchronized (lock) {
+            if (player == null || challenge == null) {
+                throw new RuntimeException("The player has to be logged in and participating to a challenge");
+            }
 
-        return player.equals(challenge.getOwner());
+            return player.equals(challenge.getOwner());
+        }
     }
 
     /**
@@ -608,11 +862,13 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public String getChallengeOwnerNickname() {
-        if (challenge == null) {
-            throw new RuntimeException("Unable to get owner's nickname if not participating to any challenge.");
-        }
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get owner's nickname if not participating to any challenge.");
+            }
 
-        return challenge.getOwner().getNickname();
+            return challenge.getOwner().getNickname();
+        }
     }
 
     /**
@@ -622,11 +878,13 @@ public class GameClientImpl implements GameClient {
      */
     @Override
     public ChallengeStatus getChallengeStatus() {
-        if (challenge == null) {
-            throw new RuntimeException("Unable to get the game status if not participating to any challenge.");
-        }
+        synchronized (lock) {
+            if (challenge == null) {
+                throw new RuntimeException("Unable to get the game status if not participating to any challenge.");
+            }
 
-        return challenge.getStatus();
+            return challenge.getStatus();
+        }
     }
 
     /**
@@ -638,7 +896,52 @@ public class GameClientImpl implements GameClient {
             logout();
         }
 
-        peer.shutdown();
+        pool.close();
+
+        if (corpus != null) {
+            corpus.close();
+        }
+
+        peer.shutdown();
+    }
+
+    /**
+     * Stores a new challenge in the DHT and joins it.
+     *
+     * @param challenge the challenge to store
+     *
+     * @throws ChallengeAlreadyExistsException if a challenge with the same name already exists
+     */
+    private void createChallenge(Challenge challenge) throws Exception {
+        challenge.addPlayer(player);
+
+        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
+            try {
+                PeerDHTUtils.create(dht, Number160.createHash(challenge.getName()), new Data(challenge));
+                this.challenge = challenge;
+
+                logger.debug("Player " + player.getNickname() + " created challenge " + challenge.getName());
+
+                break;
+            } catch (ElementAlreadyExistsException e) {
+                logger.debug("Player " + player.getNickname() + " attempted to create " + challenge.getName() +
+                             "but one with the same name already exists");
+
+                throw new ChallengeAlreadyExistsException("Challenge " + challenge.getName() + " already exists");
+            } catch (FailedOperationException e) {
+                logger.debug("Challenge creation attempt " + (attempt + 1) + " failed");
+
+                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
+                    throw new RuntimeException("Unable to create the challenge.");
+                }
+
+                Thread.sleep(random.nextInt(500));
+            }
+        }
+
+        if (challenge.isListed()) {
+            addChallengeToList(challenge);
+        }
     }
 
     /**
@@ -747,6 +1050,433 @@ public class GameClientImpl implements GameClient {
         }
     }
 
+    /**
+     * Gets the last snapshot of a challenge from the DHT, along with those of the progress of its players, and replays
+     * the moves appended to the logs since.
+     *
+     * The log of the challenge is replayed first, so that the progress of the players who joined after the snapshot
+     * is restored as well and only the numbers they placed since their own snapshot are replayed.
+     *
+     * @param name the name of the challenge
+     *
+     * @return the last version of the challenge
+     *
+     * @throws ChallengeNotFoundException if no challenge with the specified name exists
+     */
+    private Challenge load(String name) throws Exception {
+        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
+            try {
+                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(name));
+                Challenge challenge = (Challenge) entry.getValue1().object();
+
+                catchUpChallenge(challenge);
+
+                for (Player player : new ArrayList<>(challenge.getPlayers())) {
+                    restore(challenge, player);
+                }
+
+                catchUpPlacements(challenge);
+
+                return challenge;
+            } catch (ElementNotFoundException e) {
+                throw new ChallengeNotFoundException("Challenge " + name + " doesn't exist.");
+            } catch (FailedOperationException e) {
+                logger.debug("Challenge loading attempt " + (attempt + 1) + " failed");
+
+                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
+                    throw new RuntimeException("Unable to fetch the challenge.");
+                }
+
+                Thread.sleep(random.nextInt(500));
+            }
+        }
+
+        throw new RuntimeException("Unable to fetch the challenge.");
+    }
+
+    /**
+     * Appends a move to the log of a challenge and applies it.
+     *
+     * The move takes the first free place in the log, so if another player takes it in the meantime the challenge
+     * catches up with the log and the move is made again on its last version. A snapshot of the challenge replaces the
+     * previous one every {@link #SNAPSHOT_INTERVAL} moves, so that players joining later only replay the moves made
+     * since. As for placements, the lock is only held to make and apply the move, never across the round trips to the
+     * DHT. Catching up skips the move while it's being appended, so that it's applied here and its errors reach the
+     * caller.
+     *
+     * @param challenge the challenge to append the move to
+     * @param moves the function making the move on the last version of the challenge
+     *
+     * @return the outcome of the placement if the move places a number, null otherwise
+     */
+    private PlacementResult append(Challenge challenge, Function<Challenge, Move> moves) throws Exception {
+        for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
+            try {
+                catchUp(challenge);
+
+                Move move;
+                int sequence;
+
+                synchronized (lock) {
+                    move = moves.apply(challenge);
+                    sequence = challenge.getSequence();
+                    appending = sequence;
+                }
+
+                try {
+                    PeerDHTUtils.create(dht, moveKey(challenge.getName(), sequence), new Data(move.encode()));
+                } catch (Exception e) {
+                    synchronized (lock) {
+                        appending = -1;
+                    }
+
+                    throw e;
+                }
+
+                try {
+                    synchronized (lock) {
+                        appending = -1;
+
+                        return challenge.apply(move);
+                    }
+                } finally {
+                    if ((sequence + 1) % SNAPSHOT_INTERVAL == 0) {
+                        snapshot(challenge);
+                    }
+                }
+            } catch (ElementAlreadyExistsException e) {
+                logger.debug("Move " + (attempt + 1) + " overtaken by another player's");
+            } catch (FailedOperationException e) {
+                logger.debug("Move appending attempt " + (attempt + 1) + " failed");
+
+                if (attempt == MAX_SYNC_ATTEMPTS - 1) {
+                    throw new RuntimeException("Unable to update the challenge.");
+                }
+
+                Thread.sleep(random.nextInt(500));
+            }
+        }
+
+        throw new RuntimeException("Unable to update the challenge.");
+    }
+
+    /**
+     * Replays on a challenge the moves appended to its log and to the logs of its players after the last ones applied.
+     *
+     * Moves that couldn't be made when appended are replayed as well, leaving the challenge as they found it.
+     *
+     * @param challenge the challenge to bring up to date
+     */
+    private void catchUp(Challenge challenge) throws Exception {
+        catchUpChallenge(challenge);
+        catchUpPlacements(challenge);
+    }
+
+    /**
+     * Replays on a challenge the moves appended to its log after the last one applied.
+     *
+     * Moves that couldn't be made when appended are replayed as well, leaving the challenge as they found it.
+     *
+     * @param challenge the challenge to bring up to date
+     */
+    private void catchUpChallenge(Challenge challenge) throws Exception {
+        while (true) {
+            int sequence;
+            Move move;
+
+            synchronized (lock) {
+                sequence = challenge.getSequence();
+            }
+
+            try {
+                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, moveKey(challenge.getName(), sequence));
+                move = Move.decode(entry.getValue1().toBytes());
+            } catch (ElementNotFoundException e) {
+                break;
+            }
+
+            synchronized (lock) {
+                // Another thread may have applied the move in the meantime
+                if (challenge.getSequence() != sequence) {
+                    continue;
+                }
+
+                // The move is being appended by this peer, which applies it once written
+                if (sequence == appending) {
+                    break;
+                }
+
+                try {
+                    challenge.apply(move);
+                } catch (RuntimeException e) {
+                    logger.debug("Move " + sequence + " of challenge " + challenge.getName() + " rejected: " +
+                                 e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays on a challenge the numbers appended to the logs of its players after the last ones applied.
+     *
+     * @param challenge the challenge to bring up to date
+     */
+    private void catchUpPlacements(Challenge challenge) throws Exception {
+        List<Player> players;
+
+        synchronized (lock) {
+            players = new ArrayList<>(challenge.getPlayers());
+        }
+
+        for (Player player : players) {
+            while (true) {
+                int sequence;
+                Move move;
+
+                synchronized (lock) {
+                    if (!challenge.getPlayers().contains(player)) {
+                        break;
+                    }
+
+                    sequence = challenge.getSequence(player);
+                }
+
+                try {
+                    Pair<Number640, Data> entry = PeerDHTUtils.get(dht, placementKey(challenge.getName(), player,
+                                                                                     sequence));
+                    move = Move.decode(entry.getValue1().toBytes());
+                } catch (ElementNotFoundException e) {
+                    break;
+                }
+
+                synchronized (lock) {
+                    if (challenge.getPlayers().contains(player) && challenge.getSequence(player) == sequence) {
+                        challenge.apply(move);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the progress of a player of a challenge with the last snapshot of it in the DHT, if any.
+     *
+     * @param challenge the challenge the player participates to
+     * @param player the player whose progress to restore
+     */
+    private void restore(Challenge challenge, Player player) throws Exception {
+        try {
+            Pair<Number640, Data> entry = PeerDHTUtils.get(dht, progressKey(challenge.getName(), player));
+            challenge.restore(player, (Progress) entry.getValue1().object());
+        } catch (ElementNotFoundException e) {
+            logger.debug("No snapshot of the progress of " + player.getNickname() + " in " + challenge.getName());
+        }
+    }
+
+    /**
+     * Replaces the snapshot of a challenge in the DHT unless a later one has already been written.
+     *
+     * Snapshots only spare players from replaying the whole log, so failing to write one is not an error.
+     *
+     * @param challenge the challenge to take the snapshot of
+     */
+    private void snapshot(Challenge challenge) throws Exception {
+        Data data;
+        int sequence;
+
+        synchronized (lock) {
+            data = new Data(challenge);
+            sequence = challenge.getSequence();
+        }
+
+        try {
+            Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(challenge.getName()));
+            Challenge snapshot = (Challenge) entry.getValue1().object();
+
+            if (snapshot.getSequence() < sequence) {
+                PeerDHTUtils.update(dht, new Pair<>(entry.getValue0(), data));
+
+                logger.debug("Snapshot of challenge " + challenge.getName() + " taken at move " + sequence);
+            }
+        } catch (FailedOperationException e) {
+            logger.debug("Snapshot of challenge " + challenge.getName() + " skipped");
+        }
+    }
+
+    /**
+     * Replaces the snapshot of the progress of a player in the DHT.
+     *
+     * Only the player writes its snapshots, so failing to write one is not an error as for those of the challenge.
+     *
+     * @param challenge the challenge the player participates to
+     * @param player the player whose progress to take the snapshot of
+     */
+    private void snapshot(Challenge challenge, Player player) throws Exception {
+        Number160 key = progressKey(challenge.getName(), player);
+        Data data;
+        int sequence;
+
+        synchronized (lock) {
+            data = new Data(challenge.getProgress(player));
+            sequence = challenge.getSequence(player);
+        }
+
+        try {
+            try {
+                PeerDHTUtils.update(dht, new Pair<>(PeerDHTUtils.get(dht, key).getValue0(), data));
+            } catch (ElementNotFoundException e) {
+                PeerDHTUtils.create(dht, key, data);
+            }
+
+            logger.debug("Snapshot of " + player.getNickname() + "'s progress in " + challenge.getName() +
+                         " taken at move " + sequence);
+        } catch (FailedOperationException e) {
+            logger.debug("Snapshot of " + player.getNickname() + "'s progress in " + challenge.getName() + " skipped");
+        }
+    }
+
+    /**
+     * Claims a cell of a challenge for the player logged in, who found its number.
+     *
+     * @param challenge the challenge the cell belongs to
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return true if the player logged in is the first to find the number of the cell, false otherwise
+     */
+    private boolean claim(Challenge challenge, int row, int column) throws Exception {
+        Number160 key = cellKey(challenge.getName(), row * challenge.getSideSize() + column);
+
+        try {
+            PeerDHTUtils.create(dht, key, new Data(player.getNickname()));
+
+            return true;
+        } catch (ElementAlreadyExistsException e) {
+            // The claim may be the one of an earlier attempt that failed after writing it
+            return player.getNickname().equals(PeerDHTUtils.get(dht, key).getValue1().object());
+        }
+    }
+
+    /**
+     * Tells whether another player has completed the board of a challenge, ending it for the player logged in first if
+     * the number being placed completes its board.
+     *
+     * @param challenge the challenge the number is placed into
+     * @param completing true if the number being placed completes the board of the player logged in
+     *
+     * @return true if the challenge has been ended by another player, false otherwise
+     */
+    private boolean isEnded(Challenge challenge, boolean completing) throws Exception {
+        Number160 key = endKey(challenge.getName());
+
+        try {
+            if (completing) {
+                PeerDHTUtils.create(dht, key, new Data(player.getNickname()));
+
+                return false;
+            }
+
+            PeerDHTUtils.get(dht, key);
+
+            return true;
+        } catch (ElementAlreadyExistsException e) {
+            // The key may be the one of an earlier attempt that failed after writing it
+            return !player.getNickname().equals(PeerDHTUtils.get(dht, key).getValue1().object());
+        } catch (ElementNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Picks the player taking over the challenge when the player logged in quits it.
+     *
+     * @param challenge the last version of the challenge
+     *
+     * @return a random player among the others if the player logged in owns the challenge, null otherwise
+     */
+    private Player nextOwner(Challenge challenge) {
+        if (!challenge.getOwner().equals(player)) {
+            return null;
+        }
+
+        List<Player> players = new ArrayList<>(challenge.getPlayers());
+        players.remove(player);
+
+        if (players.isEmpty()) {
+            return null;
+        }
+
+        Player owner = players.get(random.nextInt(players.size()));
+
+        logger.debug("Challenge " + challenge.getName() + "'s owner changed to " + owner.getNickname());
+
+        return owner;
+    }
+
+    /**
+     * Gets the key of a move in the log of a challenge.
+     *
+     * Names of challenges can't contain '#', so keys of moves never match those of challenges.
+     *
+     * @param name the name of the challenge
+     * @param sequence the position of the move in the log
+     *
+     * @return the key of the move in the DHT
+     */
+    private static Number160 moveKey(String name, int sequence) {
+        return Number160.createHash(name + "#" + sequence);
+    }
+
+    /**
+     * Gets the key of the snapshot of the progress of a player in a challenge.
+     *
+     * Nicknames can't contain '@' either, so the key never matches those of challenges and of their moves.
+     *
+     * @param name the name of the challenge
+     * @param player the player participating to the challenge
+     *
+     * @return the key of the progress of the player in the DHT
+     */
+    private static Number160 progressKey(String name, Player player) {
+        return Number160.createHash(name + "@" + player.getNickname());
+    }
+
+    /**
+     * Gets the key of a number placed in the log of a player in a challenge.
+     *
+     * @param name the name of the challenge
+     * @param player the player placing numbers
+     * @param sequence the position of the move in the log of the player
+     *
+     * @return the key of the move in the DHT
+     */
+    private static Number160 placementKey(String name, Player player, int sequence) {
+        return Number160.createHash(name + "@" + player.getNickname() + "#" + sequence);
+    }
+
+    /**
+     * Gets the key of the claim of a cell in a challenge.
+     *
+     * @param name the name of the challenge
+     * @param position the position of the cell in row-major order
+     *
+     * @return the key of the nickname of the first player finding the number of the cell in the DHT
+     */
+    private static Number160 cellKey(String name, int position) {
+        return Number160.createHash(name + "!" + position);
+    }
+
+    /**
+     * Gets the key marking the end of a challenge.
+     *
+     * @param name the name of the challenge
+     *
+     * @return the key of the nickname of the player completing the board first in the DHT
+     */
+    private static Number160 endKey(String name) {
+        return Number160.createHash(name + "$");
+    }
+
     /**
      * Allows to send notifications to the players of the network.
      *
@@ -757,7 +1487,9 @@ public class GameClientImpl implements GameClient {
         FutureDirect[] directs;
 
         if (notification == Notification.CHALLENGE_UPDATED) {
-            players = new ArrayList<>(challenge.getGames().keySet());
+            synchronized (lock) {
+                players = new ArrayList<>(challenge.getPlayers());
+            }
         } else if (notification == Notification.CHALLENGES_LIST_UPDATED) {
             players = listPlayers();
         } else {
@@ -781,17 +1513,19 @@ public class GameClientImpl implements GameClient {
     }
 
     /**
-     * Updates the current challenge to the latest version available in the DHT.
+     * Updates the current challenge to the latest version available in the DHT, replaying the moves appended to its log
+     * since the last one applied.
      */
     private void syncChallenge() throws Exception {
-        if (challenge == null) {
-            return;
-        }
-
         for (int attempt = 0; attempt < MAX_SYNC_ATTEMPTS; attempt++) {
             try {
-                Pair<Number640, Data> entry = PeerDHTUtils.get(dht, Number160.createHash(challenge.getName()));
-                challenge = (Challenge) entry.getValue1().object();
+                Challenge challenge = this.challenge;
+
+                if (challenge == null) {
+                    return;
+                }
+
+                catchUp(challenge);
 
                 logger.debug("Challenge synchronized");
 
@@ -833,4 +1567,62 @@ public class GameClientImpl implements GameClient {
         }
     }
 
+    /**
+     * Reads the board of the user for the current challenge, whichever version of it was received last.
+     */
+    private class ChallengeView implements BoardView {
+
+        @Override
+        public int getSideSize() {
+            synchronized (lock) {
+                return current().getSideSize();
+            }
+        }
+
+        @Override
+        public int getValue(int row, int column) {
+            synchronized (lock) {
+                return current().getValue(row, column);
+            }
+        }
+
+        @Override
+        public boolean isFixed(int row, int column) {
+            synchronized (lock) {
+                return current().isFixed(row, column);
+            }
+        }
+
+        @Override
+        public int getVersion() {
+            synchronized (lock) {
+                return current().getVersion();
+            }
+        }
+
+        /**
+         * Gets the view of the board of the user in the current challenge, taking it again if the challenge changed.
+         *
+         * Views follow the challenge as moves are applied to it, so they are only read while holding the lock.
+         *
+         * @return the view of the board of the user in the last version of the current challenge received
+         */
+        private BoardView current() {
+            Challenge challenge = GameClientImpl.this.challenge;
+
+            if (challenge == null) {
+                throw new RuntimeException("Unable to read the current board while not participating to any " +
+                                           "challenge.");
+            }
+
+            if (challenge != viewChallenge) {
+                challengeView = challenge.getView(player);
+                viewChallenge = challenge;
+            }
+
+            return challengeView;
+        }
+
+    }
+
 }
@@ -0,0 +1,262 @@
+package com.github.nellocarotenuto.p2psudoku.challenge;
+
+import com.github.nellocarotenuto.p2psudoku.sudoku.PlacementResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Models a change made to a challenge by one of its players.
+ *
+ * Challenges are stored as a snapshot followed by the log of the moves made since, each under a key of its own, so
+ * that players append a move rather than writing back the whole challenge and catch up by replaying the moves they
+ * haven't seen yet. Numbers placed go to a log of the player instead, along with their outcome, so that players never
+ * append to the same log while playing. Moves only carry the nickname of the player, which is enough to find the
+ * player in the challenge, except for joins that need the address of the player to reach it later.
+ *
+ * Moves are encoded by hand rather than serialized, since the description of the class alone would take hundreds of
+ * bytes: a byte for the type and the nickname of the player, followed by a byte for each of row, column, number and
+ * outcome when placing a number, by the nickname of the new owner when quitting and by the serialized player when
+ * joining. Placing a number takes 12 bytes for a player with a 5 characters nickname.
+ */
+class Move {
+
+    /**
+     * Defines the kinds of moves.
+     */
+    enum Type {
+        JOIN,
+        START,
+        PLACE,
+        QUIT
+    }
+
+    private final Type type;
+    private final String nickname;
+    private final Player player;
+    private final String owner;
+    private final int row;
+    private final int column;
+    private final int number;
+    private final PlacementResult result;
+
+    /**
+     * Creates a new move.
+     *
+     * @param type the kind of move
+     * @param nickname the nickname of the player making the move
+     * @param player the player joining the challenge, null for other moves
+     * @param owner the nickname of the player taking over the challenge when the owner quits, null otherwise
+     * @param row the row index (starting at 0) of the cell where to place the number, 0 for other moves
+     * @param column the column index (starting at 0) of the cell where to place the number, 0 for other moves
+     * @param number the number to place, 0 for other moves
+     * @param result the outcome of placing the number, null for other moves
+     */
+    private Move(Type type, String nickname, Player player, String owner, int row, int column, int number,
+                 PlacementResult result) {
+        this.type = type;
+        this.nickname = nickname;
+        this.player = player;
+        this.owner = owner;
+        this.row = row;
+        this.column = column;
+        this.number = number;
+        this.result = result;
+    }
+
+    /**
+     * Creates the move of a player joining a challenge.
+     *
+     * @param player the player joining the challenge
+     *
+     * @return the move adding the player to the challenge
+     */
+    static Move join(Player player) {
+        return new Move(Type.JOIN, player.getNickname(), player, null, 0, 0, 0, null);
+    }
+
+    /**
+     * Creates the move of the owner starting a challenge.
+     *
+     * @param player the player starting the challenge
+     *
+     * @return the move starting the challenge
+     */
+    static Move start(Player player) {
+        return new Move(Type.START, player.getNickname(), null, null, 0, 0, 0, null);
+    }
+
+    /**
+     * Creates the move of a player placing a number.
+     *
+     * @param player the player placing the number
+     * @param row the row index (starting at 0) of the cell where to place the number
+     * @param column the column index (starting at 0) of the cell where to place the number
+     * @param number the number to place
+     * @param result the outcome of placing the number
+     *
+     * @return the move placing the number on the board of the player
+     */
+    static Move place(Player player, int row, int column, int number, PlacementResult result) {
+        return new Move(Type.PLACE, player.getNickname(), null, null, row, column, number, result);
+    }
+
+    /**
+     * Creates the move of a player quitting a challenge.
+     *
+     * @param player the player quitting the challenge
+     * @param owner the player taking over the challenge if the one quitting owns it, null otherwise
+     *
+     * @return the move removing the player from the challenge
+     */
+    static Move quit(Player player, Player owner) {
+        String nickname = owner == null ? null : owner.getNickname();
+
+        return new Move(Type.QUIT, player.getNickname(), null, nickname, 0, 0, 0, null);
+    }
+
+    /**
+     * Gets the kind of move.
+     *
+     * @return the type of the move
+     */
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the nickname of the player making the move.
+     *
+     * @return the nickname of the player
+     */
+    String getNickname() {
+        return nickname;
+    }
+
+    /**
+     * Gets the player joining the challenge.
+     *
+     * @return the player joining the challenge, null if the move isn't a join
+     */
+    Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the player taking over the challenge.
+     *
+     * @return the nickname of the new owner of the challenge, null if the owner isn't changing
+     */
+    String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gets the row of the cell where the number is placed.
+     *
+     * @return the row index (starting at 0) of the cell
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column of the cell where the number is placed.
+     *
+     * @return the column index (starting at 0) of the cell
+     */
+    int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the number placed.
+     *
+     * @return the number to put into the cell
+     */
+    int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the outcome of placing the number.
+     *
+     * @return the outcome of the placement, null if the move doesn't place a number
+     */
+    PlacementResult getResult() {
+        return result;
+    }
+
+    /**
+     * Encodes the move.
+     *
+     * @return the bytes of the move, to be decoded by {@link #decode(byte[])}
+     */
+    byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeByte(type.ordinal());
+        output.writeUTF(nickname);
+
+        if (type == Type.PLACE) {
+            output.writeByte(row);
+            output.writeByte(column);
+            output.writeByte(number);
+            output.writeByte(result.ordinal());
+        } else if (type == Type.QUIT) {
+            output.writeBoolean(owner != null);
+
+            if (owner != null) {
+                output.writeUTF(owner);
+            }
+        } else if (type == Type.JOIN) {
+            ObjectOutputStream objects = new ObjectOutputStream(output);
+            objects.writeObject(player);
+            objects.flush();
+        }
+
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a move.
+     *
+     * @param bytes the bytes of the move, as returned by {@link #encode()}
+     *
+     * @return the move encoded
+     */
+    static Move decode(byte[] bytes) throws IOException, ClassNotFoundException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        Type type = Type.values()[input.readUnsignedByte()];
+        String nickname = input.readUTF();
+
+        if (type == Type.PLACE) {
+            int row = input.readUnsignedByte();
+            int column = input.readUnsignedByte();
+            int number = input.readUnsignedByte();
+            PlacementResult result = PlacementResult.values()[input.readUnsignedByte()];
+
+            return new Move(type, nickname, null, null, row, column, number, result);
+        } else if (type == Type.QUIT) {
+            String owner = input.readBoolean() ? input.readUTF() : null;
+
+            return new Move(type, nickname, null, owner, 0, 0, 0, null);
+        } else if (type == Type.JOIN) {
+            Player player = (Player) new ObjectInputStream(input).readObject();
+
+            return new Move(type, nickname, player, null, 0, 0, 0, null);
+        }
+
+        return new Move(type, nickname, null, null, 0, 0, 0, null);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.github.nellocarotenuto.p2psudoku.challenge;
+
+import java.io.Serializable;
+
+/**
+ * Keeps track of the progress of a player in a challenge.
+ *
+ * Numbers are only accepted when they match the solution, so the board of a player is always made of the clues and of
+ * the values of the solution in the cells the player has filled. Those cells are kept as a bitmap with a bit for each
+ * cell in row-major order, two longs or 16 bytes on a classic board, along with the score of the player and the number
+ * of cells left to fill.
+ *
+ * Each player appends the numbers it places to a log of its own in the DHT, so progress also counts the moves of the
+ * log it has been built from.
+ */
+class Progress implements Serializable {
+
+    private static final long serialVersionUID = -5034287406219744207L;
+
+    private final long[] filled;
+    private int score;
+    private int remainingCells;
+    private int sequence;
+
+    /**
+     * Creates the progress of a player that has just joined a challenge.
+     *
+     * @param boardSize the number of cells of the board
+     * @param remainingCells the number of cells the player has to fill
+     */
+    Progress(int boardSize, int remainingCells) {
+        this.filled = new long[(boardSize + Long.SIZE - 1) / Long.SIZE];
+        this.remainingCells = remainingCells;
+    }
+
+    /**
+     * Tells whether the player has filled a cell.
+     *
+     * @param position the position of the cell in row-major order
+     *
+     * @return true if the player has placed the number of the cell, false otherwise
+     */
+    boolean isFilled(int position) {
+        return (filled[position / Long.SIZE] & (1L << position)) != 0;
+    }
+
+    /**
+     * Marks a cell as filled by the player.
+     *
+     * @param position the position of the cell in row-major order, not filled yet
+     */
+    void fill(int position) {
+        filled[position / Long.SIZE] |= 1L << position;
+        remainingCells--;
+    }
+
+    /**
+     * Gets the score of the player.
+     *
+     * @return the sum of the points gained and lost by the player
+     */
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * Adds points to the score of the player.
+     *
+     * @param points the number of points to add, negative to take points away
+     */
+    void addScore(int points) {
+        score += points;
+    }
+
+    /**
+     * Gets the number of cells the player has left to fill.
+     *
+     * @return the number of empty cells on the board of the player
+     */
+    int getRemainingCells() {
+        return remainingCells;
+    }
+
+    /**
+     * Tells whether the player has completed the board.
+     *
+     * @return true if the player has no cells left to fill, false otherwise
+     */
+    boolean isCompleted() {
+        return remainingCells == 0;
+    }
+
+    /**
+     * Gets the number of moves of the player applied.
+     *
+     * @return the sequence number of the next move in the log of the player
+     */
+    int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Counts a move of the player as applied.
+     */
+    void advance() {
+        sequence++;
+    }
+
+}
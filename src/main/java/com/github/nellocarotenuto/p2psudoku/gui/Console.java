@@ -24,6 +24,7 @@ import org.kohsuke.args4j.Option;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetAddress;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Properties;
 
@@ -49,6 +50,9 @@ public class Console {
     @Option(name="-lp", aliases="--local-port", usage="The local port to use to connect")
     private int localPort = GameClientImpl.DEFAULT_PORT;
 
+    @Option(name="-c", aliases="--corpus", usage="The corpus to draw the boards of new challenges from")
+    private String corpus;
+
     public static void main(String[] args) {
         Console console = null;
 
@@ -84,7 +88,8 @@ public class Console {
         }
 
         // Create a client and show login
-        client = new GameClientImpl(InetAddress.getByName(masterPeerAddress), masterPeerPort, localPort);
+        client = new GameClientImpl(InetAddress.getByName(masterPeerAddress), masterPeerPort, localPort,
+                                    corpus == null ? null : PuzzleCorpus.open(Paths.get(corpus)));
 
         // Load project resources
         try (InputStream input = ClassLoader.getSystemResourceAsStream("strings.properties")) {
@@ -304,9 +309,10 @@ public class Console {
 
             // List
             textGraphics.putString(topLeft.withRelativeRow(4).withRelativeColumn(1),
-                    String.format("%-28s%-28s%10s%10s",
+                    String.format("%-24s%-22s%10s%10s%10s",
                             properties.getProperty("list.names"),
                             properties.getProperty("list.owner"),
+                            properties.getProperty("list.difficulty"),
                             properties.getProperty("list.status"),
                             properties.getProperty("list.players")));
 
@@ -321,7 +327,11 @@ public class Console {
                     ChallengeInfo challenge = challengesList.get(row);
 
                     textGraphics.putString(topLeft.withRelativeRow(6 + row).withRelativeColumn(1),
-                            String.format("%-28s%-28s", challenge.getName(), challenge.getOwner()));
+                            String.format("%-24s%-22s", challenge.getName(), challenge.getOwner()));
+
+                    textGraphics.putString(topLeft.withRelativeRow(6 + row).withRelativeColumn(1 + 46),
+                            String.format("%10s", properties.getProperty("challenge.difficulty." +
+                                    challenge.getDifficulty().name().toLowerCase())));
 
                     if (challenge.getStatus() == ChallengeStatus.WAITING) {
                         textGraphics.setForegroundColor(TextColor.ANSI.YELLOW);
@@ -413,17 +423,38 @@ public class Console {
                         listed = false;
                     }
 
-                    try {
-                        client.createChallenge(input, (int) System.currentTimeMillis(), listed);
-                        showChallenge();
-                        screen.clear();
-                        message = String.format("%-76s", "");
-                    } catch (ChallengeAlreadyExistsException e) {
-                        messageColor = TextColor.ANSI.RED;
-                        message = String.format("%-76s", properties.getProperty("list.messages.name.exists"));
-                    } catch (InvalidChallengeNameException e) {
+                    // Read the difficulty following a colon, which can't appear in the name of a challenge
+                    Difficulty difficulty = Difficulty.EASY;
+
+                    if (input.startsWith(":")) {
+                        String[] words = input.substring(1).split(" ", 2);
+                        difficulty = null;
+
+                        for (Difficulty level : Difficulty.values()) {
+                            if (level.name().equalsIgnoreCase(words[0])) {
+                                difficulty = level;
+                            }
+                        }
+
+                        input = words.length == 2 ? words[1].trim() : "";
+                    }
+
+                    if (difficulty == null) {
                         messageColor = TextColor.ANSI.RED;
-                        message = String.format("%-76s", properties.getProperty("list.messages.name.invalid"));
+                        message = String.format("%-76s", properties.getProperty("list.messages.invalid"));
+                    } else {
+                        try {
+                            client.createChallenge(input, listed, difficulty);
+                            showChallenge();
+                            screen.clear();
+                            message = String.format("%-76s", "");
+                        } catch (ChallengeAlreadyExistsException e) {
+                            messageColor = TextColor.ANSI.RED;
+                            message = String.format("%-76s", properties.getProperty("list.messages.name.exists"));
+                        } catch (InvalidChallengeNameException e) {
+                            messageColor = TextColor.ANSI.RED;
+                            message = String.format("%-76s", properties.getProperty("list.messages.name.invalid"));
+                        }
                     }
                 } else {
                     messageColor = TextColor.ANSI.RED;
@@ -467,6 +498,9 @@ public class Console {
 
         StringBuilder command = client.isChallengeOwner() ? new StringBuilder("!start") : new StringBuilder();
 
+        int markedRow = -1;
+        int markedColumn = -1;
+
         screen.clear();
 
         while (true) {
@@ -492,6 +526,10 @@ public class Console {
                     String.format("%s", client.getChallengeName()),
                     SGR.BOLD);
 
+            textGraphics.putString(topLeft.withRelativeRow(1).withRelativeColumn(28),
+                    String.format("%-22s", properties.getProperty("challenge.remaining") + ": " +
+                            client.getChallengeRemainingCells()));
+
             if (client.getChallengeStatus() == ChallengeStatus.WAITING) {
                 textGraphics.setForegroundColor(TextColor.ANSI.YELLOW);
 
@@ -529,7 +567,7 @@ public class Console {
                     Symbols.DOUBLE_LINE_BOTTOM_RIGHT_CORNER);
 
             // Board
-            Integer[][] matrix = client.getChallengeBoard();
+            BoardView board = client.getChallengeBoardView();
             StringBuilder line = new StringBuilder();
 
             for (int column = 0; column < Sudoku.SIDE_SIZE; column++) {
@@ -574,8 +612,9 @@ public class Console {
 
                     String number;
 
-                    if (client.getChallengeStatus() != ChallengeStatus.WAITING && matrix[row][column] != 0) {
-                        number = matrix[row][column].toString();
+                    if (client.getChallengeStatus() != ChallengeStatus.WAITING &&
+                        board.getValue(row, column) != Sudoku.EMPTY_VALUE) {
+                        number = Integer.toString(board.getValue(row, column));
                     } else {
                         number = " ";
                     }
@@ -727,6 +766,24 @@ public class Console {
                         String.format("%-35s", properties.getProperty("challenge.tips.9")));
             }
 
+            // Pencil marks
+            if (client.getChallengeStatus() == ChallengeStatus.PLAYING && markedRow != -1) {
+                int candidates = client.getChallengeCandidates(markedRow, markedColumn);
+                StringBuilder marks = new StringBuilder();
+
+                for (int value = 1; value <= Sudoku.SIDE_SIZE; value++) {
+                    if ((candidates & (1 << (value - 1))) != 0) {
+                        marks.append(" ").append(value);
+                    }
+                }
+
+                textGraphics.putString(boardBottomRightEdge.withRelativeRow(-3),
+                        String.format("%-35s", properties.getProperty("challenge.marks") + " " +
+                                LABELS[markedRow] + LABELS[markedColumn] + ":" + marks));
+            } else {
+                textGraphics.putString(boardBottomRightEdge.withRelativeRow(-3),
+                        String.format("%-35s", ""));
+            }
 
             textGraphics.putString(boardBottomRightEdge.withRelativeRow(-2),
                     ">", SGR.BOLD);
@@ -806,10 +863,24 @@ public class Console {
 
                         if (valid) {
                             try {
-                                client.placeNumber(row, column, number);
-
-                                messageColor = TextColor.ANSI.GREEN;
-                                message = String.format("%-35s", properties.getProperty("challenge.messages.correct"));
+                                PlacementResult result = client.tryPlaceNumber(row, column, number);
+
+                                if (result == PlacementResult.PLACED) {
+                                    messageColor = TextColor.ANSI.GREEN;
+                                    message = String.format("%-35s", properties.getProperty("challenge.messages.correct"));
+                                } else if (result == PlacementResult.FILLED) {
+                                    messageColor = TextColor.ANSI.RED;
+                                    message = String.format("%-35s", properties.getProperty("challenge.messages.filled.1"));
+                                } else if (result == PlacementResult.FIXED) {
+                                    messageColor = TextColor.ANSI.RED;
+                                    message = String.format("%-35s", properties.getProperty("challenge.messages.fixed"));
+                                } else if (result == PlacementResult.ALREADY_GUESSED) {
+                                    messageColor = TextColor.ANSI.YELLOW;
+                                    message = String.format("%-35s", properties.getProperty("challenge.messages.filled.2"));
+                                } else {
+                                    messageColor = TextColor.ANSI.RED;
+                                    message = String.format("%-35s", properties.getProperty("challenge.messages.wrong"));
+                                }
                             } catch (CellNotFoundException e) {
                                 messageColor = TextColor.ANSI.RED;
                                 message = String.format("%-35s", properties.getProperty("challenge.messages.cellnotfound"));
@@ -819,21 +890,52 @@ public class Console {
                                 } else {
                                     message = String.format("%-35s", properties.getProperty("challenge.messages.ended"));
                                 }
-                            } catch (FilledCellException e) {
-                                messageColor = TextColor.ANSI.RED;
-                                message = String.format("%-35s", properties.getProperty("challenge.messages.filled.1"));
-                            } catch (FixedCellException e) {
-                                messageColor = TextColor.ANSI.RED;
-                                message = String.format("%-35s", properties.getProperty("challenge.messages.fixed"));
-                            } catch (NumberAlreadyGuessedException e) {
-                                messageColor = TextColor.ANSI.YELLOW;
-                                message = String.format("%-35s", properties.getProperty("challenge.messages.filled.2"));
-                            } catch (InvalidNumberException e) {
-                                messageColor = TextColor.ANSI.RED;
-                                message = String.format("%-35s", properties.getProperty("challenge.messages.wrong"));
                             }
                         }
                     }
+                } else if (input.equals("!hint")) {
+                    if (client.getChallengeStatus() == ChallengeStatus.WAITING) {
+                        messageColor = TextColor.ANSI.DEFAULT;
+                        message = String.format("%-35s", properties.getProperty("challenge.messages.wait"));
+                    } else if (client.getChallengeStatus() == ChallengeStatus.ENDED) {
+                        messageColor = TextColor.ANSI.DEFAULT;
+                        message = String.format("%-35s", properties.getProperty("challenge.messages.ended"));
+                    } else {
+                        Hint hint;
+
+                        try {
+                            hint = client.getHint();
+                        } catch (InvalidNumberException e) {
+                            hint = null;
+                        }
+
+                        if (hint == null) {
+                            messageColor = TextColor.ANSI.YELLOW;
+                            message = String.format("%-35s", properties.getProperty("challenge.messages.nohint"));
+                        } else {
+                            messageColor = TextColor.ANSI.CYAN;
+                            message = String.format("%-35s", String.format(
+                                    properties.getProperty("challenge.messages.hint"),
+                                    hint.getValue(),
+                                    LABELS[hint.getRow()] + LABELS[hint.getColumn()],
+                                    properties.getProperty("challenge.technique." +
+                                            hint.getTechnique().name().toLowerCase())));
+                        }
+                    }
+                } else if (input.startsWith("!marks")) {
+                    input = input.replace("!marks", "").replace(" ", "");
+
+                    if (input.isEmpty()) {
+                        markedRow = -1;
+                        markedColumn = -1;
+                    } else if (input.length() == 2 &&
+                               input.charAt(0) >= 'a' && input.charAt(0) < 'a' + Sudoku.SIDE_SIZE &&
+                               input.charAt(1) >= 'a' && input.charAt(1) < 'a' + Sudoku.SIDE_SIZE) {
+                        markedRow = input.charAt(0) - 'a';
+                        markedColumn = input.charAt(1) - 'a';
+                    } else {
+                        valid = false;
+                    }
                 } else {
                     valid = false;
                 }
@@ -0,0 +1,105 @@
+package com.github.nellocarotenuto.p2psudoku.gui;
+
+import com.github.nellocarotenuto.p2psudoku.sudoku.BatchGenerator;
+import com.github.nellocarotenuto.p2psudoku.sudoku.GenerationMode;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzleCorpus;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzlePackWriter;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Sudoku;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates a pack of puzzles offline, using every core of the machine unless told otherwise.
+ */
+public class PackGenerator {
+
+    @Option(name="-o", aliases="--output", usage="The file to write the pack to")
+    private String output = "puzzles.pack";
+
+    @Option(name="-n", aliases="--count", usage="The number of puzzles to generate")
+    private long count = 1000;
+
+    @Option(name="-s", aliases="--seed", usage="The seed the seeds of the puzzles are derived from")
+    private long seed = 0;
+
+    @Option(name="-ss", aliases="--side-size", usage="The number of cells on each side of the boards")
+    private int sideSize = Sudoku.SIDE_SIZE;
+
+    @Option(name="-m", aliases="--mode", usage="The strategy to use to remove clues from the complete boards")
+    private GenerationMode mode = GenerationMode.UNIQUE;
+
+    @Option(name="-r", aliases="--reduce", usage="Remove clues from the puzzles until none can be removed")
+    private boolean reduce = false;
+
+    @Option(name="-c", aliases="--corpus", usage="The file to write a corpus indexed by difficulty to, if any")
+    private String corpus;
+
+    @Option(name="-t", aliases="--threads", usage="The number of threads generating puzzles")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        PackGenerator generator = new PackGenerator();
+        CmdLineParser parser = new CmdLineParser(generator);
+
+        try {
+            parser.parseArgument(args);
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            parser.printUsage(System.err);
+            System.exit(1);
+        }
+
+        try {
+            generator.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates the pack and prints how long it took.
+     *
+     * @throws IOException if the pack can't be written
+     */
+    private void run() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(new FileOutputStream(output), sideSize)) {
+            new BatchGenerator(pool, sideSize, mode, reduce).generate(seed, count, writer);
+        } finally {
+            pool.shutdown();
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("Generated %d puzzles into %s in %.1f s with %d threads, %.0f puzzles/s",
+                count,
+                output,
+                elapsed,
+                threads,
+                count / elapsed));
+
+        if (corpus != null) {
+            start = System.nanoTime();
+
+            PuzzleCorpus.build(Paths.get(output), Paths.get(corpus));
+
+            System.out.println(String.format("Built corpus %s in %.1f s",
+                    corpus,
+                    (System.nanoTime() - start) / 1e9));
+        }
+    }
+
+}
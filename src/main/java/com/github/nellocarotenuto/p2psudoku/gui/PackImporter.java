@@ -0,0 +1,99 @@
+package com.github.nellocarotenuto.p2psudoku.gui;
+
+import com.github.nellocarotenuto.p2psudoku.sudoku.ImportReport;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzleCorpus;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzleImporter;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzlePackWriter;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Sudoku;
+
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Imports puzzles from a text file holding one classic board per line into a pack, discarding the invalid ones.
+ */
+public class PackImporter {
+
+    @Option(name="-i", aliases="--input", usage="The file to read the puzzles from", required=true)
+    private String input;
+
+    @Option(name="-o", aliases="--output", usage="The file to write the pack to")
+    private String output = "puzzles.pack";
+
+    @Option(name="-c", aliases="--corpus", usage="The file to write a corpus indexed by difficulty to, if any")
+    private String corpus;
+
+    @Option(name="-t", aliases="--threads", usage="The number of threads checking puzzles")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        PackImporter importer = new PackImporter();
+        CmdLineParser parser = new CmdLineParser(importer);
+
+        try {
+            parser.parseArgument(args);
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            parser.printUsage(System.err);
+            System.exit(1);
+        }
+
+        try {
+            importer.run();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Imports the puzzles and prints how many were rejected for each reason and how long it took.
+     *
+     * @throws IOException if the puzzles can't be read or the pack can't be written
+     */
+    private void run() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        ImportReport report;
+
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(new FileOutputStream(output), Sudoku.SIDE_SIZE)) {
+            report = new PuzzleImporter(pool).importPuzzles(Paths.get(input), writer);
+        } finally {
+            pool.shutdown();
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("Imported %d of %d puzzles into %s in %.1f s with %d threads, " +
+                                         "%.0f puzzles/s",
+                report.getAccepted(),
+                report.getRead(),
+                output,
+                elapsed,
+                threads,
+                report.getRead() / elapsed));
+
+        System.out.println(String.format("Rejected %d malformed, %d conflicting, %d unsolvable, %d ambiguous",
+                report.getMalformed(),
+                report.getConflicting(),
+                report.getUnsolvable(),
+                report.getAmbiguous()));
+
+        if (corpus != null) {
+            start = System.nanoTime();
+
+            PuzzleCorpus.build(Paths.get(output), Paths.get(corpus));
+
+            System.out.println(String.format("Built corpus %s in %.1f s",
+                    corpus,
+                    (System.nanoTime() - start) / 1e9));
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates large batches of graded puzzles in parallel on a fork/join pool and streams them to a pack.
+ *
+ * Puzzles are generated in chunks: every chunk is split among the threads of the pool and written out once complete,
+ * so memory usage doesn't grow with the size of the batch. The seed of each puzzle is derived from the seed of the
+ * batch and the index of the puzzle, hence the pack produced doesn't depend on the number of threads. Puzzles can
+ * optionally be reduced to minimal ones by a {@link ClueReducer} sharing the same pool.
+ */
+public class BatchGenerator {
+
+    public static final int CHUNK_SIZE = 4096;
+
+    private static final int TASK_SIZE = 16;
+
+    private final ForkJoinPool pool;
+    private final int sideSize;
+    private final GenerationMode mode;
+    private final ClueReducer reducer;
+
+    /**
+     * Creates a new batch generator.
+     *
+     * @param pool the pool to run the generation on
+     * @param sideSize the number of cells on each side of the boards
+     * @param mode the strategy to use to remove clues from the complete boards
+     */
+    public BatchGenerator(ForkJoinPool pool, int sideSize, GenerationMode mode) {
+        this(pool, sideSize, mode, false);
+    }
+
+    /**
+     * Creates a new batch generator.
+     *
+     * @param pool the pool to run the generation on
+     * @param sideSize the number of cells on each side of the boards
+     * @param mode the strategy to use to remove clues from the complete boards
+     * @param reduce true to remove clues from the puzzles generated until they are minimal, false otherwise
+     *
+     * @throws IllegalArgumentException if the puzzles are to be reduced but they are too large or might have more than
+     *                                  one solution
+     */
+    public BatchGenerator(ForkJoinPool pool, int sideSize, GenerationMode mode, boolean reduce) {
+        Sudoku.checkSideSize(sideSize);
+
+        if (reduce && (sideSize > ClueReducer.MAX_SIDE_SIZE || mode == GenerationMode.CLASSIC)) {
+            throw new IllegalArgumentException("Only uniquely solvable puzzles up to " + ClueReducer.MAX_SIDE_SIZE +
+                                               "x" + ClueReducer.MAX_SIDE_SIZE + " can be reduced.");
+        }
+
+        this.pool = pool;
+        this.sideSize = sideSize;
+        this.mode = mode;
+        this.reducer = reduce ? new ClueReducer(pool) : null;
+    }
+
+    /**
+     * Generates a batch of puzzles and writes them to a pack, in order of index.
+     *
+     * @param seed the seed of the batch
+     * @param count the number of puzzles to generate
+     * @param writer the pack to write the puzzles to
+     *
+     * @throws IOException if a puzzle can't be written
+     */
+    public void generate(long seed, long count, PuzzlePackWriter writer) throws IOException {
+        int[] seeds = new int[CHUNK_SIZE];
+        Puzzle[] puzzles = new Puzzle[CHUNK_SIZE];
+        Difficulty[] difficulties = new Difficulty[CHUNK_SIZE];
+
+        for (long first = 0; first < count; first += CHUNK_SIZE) {
+            int size = (int) Math.min(CHUNK_SIZE, count - first);
+
+            for (int index = 0; index < size; index++) {
+                seeds[index] = deriveSeed(seed, first + index);
+            }
+
+            pool.invoke(new Chunk(seeds, puzzles, difficulties, 0, size));
+
+            for (int index = 0; index < size; index++) {
+                writer.write(seeds[index], puzzles[index], difficulties[index]);
+                puzzles[index] = null;
+            }
+        }
+    }
+
+    /**
+     * Derives the seed of a puzzle from the seed of its batch.
+     *
+     * The two are mixed with the finalizer of SplitMix64, so that consecutive indexes give unrelated seeds.
+     *
+     * @param seed the seed of the batch
+     * @param index the index of the puzzle in the batch
+     *
+     * @return the seed to generate the puzzle from
+     */
+    public static int deriveSeed(long seed, long index) {
+        long mixed = seed + (index + 1) * 0x9e3779b97f4a7c15L;
+
+        mixed = (mixed ^ (mixed >>> 30)) * 0xbf58476d1ce4e5b9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94d049bb133111ebL;
+
+        return (int) (mixed ^ (mixed >>> 31));
+    }
+
+    /**
+     * Generates and grades the puzzles of a range of a chunk, splitting it in halves until it is small enough.
+     */
+    private class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = -4018741947322719613L;
+
+        private final int[] seeds;
+        private final Puzzle[] puzzles;
+        private final Difficulty[] difficulties;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a new task for a range of a chunk.
+         *
+         * @param seeds the seeds of the puzzles of the chunk
+         * @param puzzles the array to store the puzzles generated into
+         * @param difficulties the array to store the difficulties of the puzzles into
+         * @param from the index of the first puzzle of the range, inclusive
+         * @param to the index of the last puzzle of the range, exclusive
+         */
+        Chunk(int[] seeds, Puzzle[] puzzles, Difficulty[] difficulties, int from, int to) {
+            this.seeds = seeds;
+            this.puzzles = puzzles;
+            this.difficulties = difficulties;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(new Chunk(seeds, puzzles, difficulties, from, middle),
+                          new Chunk(seeds, puzzles, difficulties, middle, to));
+
+                return;
+            }
+
+            Generator generator = new Generator(sideSize);
+            LogicalSolver solver = Sudoku.logicalSolver(sideSize);
+            int[] clues = new int[sideSize * sideSize];
+
+            for (int index = from; index < to; index++) {
+                Random random = new Random(seeds[index]);
+                Puzzle puzzle = generator.generate(random, mode);
+
+                if (reducer != null) {
+                    puzzle = reducer.reduce(puzzle, random);
+                }
+
+                byte[] values = puzzle.clues();
+
+                for (int position = 0; position < clues.length; position++) {
+                    clues[position] = values[position];
+                }
+
+                puzzles[index] = puzzle;
+                difficulties[index] = solver.grade(clues).getDifficulty();
+            }
+        }
+
+    }
+
+}
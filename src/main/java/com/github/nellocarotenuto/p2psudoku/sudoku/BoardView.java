@@ -0,0 +1,50 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Gives read-only access to the cells of a board without copying them.
+ *
+ * Views read the board they were taken from as it changes, so they can be obtained once and polled as often as needed.
+ * Cells are never emptied once filled, so the number of filled cells tells whether the board changed since the last
+ * time it was read.
+ */
+public interface BoardView {
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board
+     */
+    int getSideSize();
+
+    /**
+     * Gets the value of a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the value of the cell, {@link Sudoku#EMPTY_VALUE} if the cell is empty
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     */
+    int getValue(int row, int column);
+
+    /**
+     * Tells whether a cell is fixed.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return true if the cell holds a clue of the puzzle, false otherwise
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     */
+    boolean isFixed(int row, int column);
+
+    /**
+     * Gets the version of the board.
+     *
+     * @return the number of filled cells, which grows by one with each number placed and never decreases
+     */
+    int getVersion();
+
+}
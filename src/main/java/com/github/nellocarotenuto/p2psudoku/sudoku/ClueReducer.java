@@ -0,0 +1,242 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Removes clues from uniquely solvable puzzles until none can be removed without allowing a second solution.
+ *
+ * Removing clues can only add solutions, so a clue whose removal alone breaks uniqueness can never be removed later.
+ * The reduction first checks every clue on its own, in parallel, to find the ones worth trying. Then it removes them
+ * greedily in several random orders at once, again in parallel, and keeps the order that removed the most. Each order
+ * ends with a minimal puzzle, since every clue left was necessary when it was tried and still is with fewer clues
+ * around it.
+ *
+ * The number of orders doesn't depend on the pool, hence the puzzles produced don't depend on the number of threads.
+ * Checks rely on the exact solvers, which are only fast enough on boards up to the classic size. They go through the
+ * constraints of the puzzle, so puzzles with variants are reduced against their extra groups and cages as well.
+ */
+public class ClueReducer {
+
+    public static final int MAX_SIDE_SIZE = Sudoku.SIDE_SIZE;
+
+    private static final int ORDERS = 8;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new reducer.
+     *
+     * @param pool the pool to run the checks on when not called from a fork/join task already
+     */
+    public ClueReducer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Reduces a puzzle to a minimal one with the same solution.
+     *
+     * @param puzzle the puzzle to reduce, with a single solution
+     * @param random the random number generator driving the orders in which clues are removed
+     *
+     * @return a puzzle whose clues are a subset of the original ones, none of which can be removed
+     *
+     * @throws IllegalArgumentException if the puzzle is too large or has more than one solution
+     */
+    public Puzzle reduce(Puzzle puzzle, Random random) {
+        int sideSize = puzzle.getSideSize();
+        Constraints constraints = puzzle.getConstraints();
+
+        if (sideSize > MAX_SIDE_SIZE) {
+            throw new IllegalArgumentException("Only puzzles up to " + MAX_SIDE_SIZE + "x" + MAX_SIDE_SIZE +
+                                               " can be reduced, got " + sideSize + "x" + sideSize + ".");
+        }
+
+        byte[] clues = puzzle.clues();
+        int[] values = new int[clues.length];
+        int[] positions = new int[puzzle.countClues()];
+        int count = 0;
+
+        for (int position = 0; position < clues.length; position++) {
+            values[position] = clues[position];
+
+            if (clues[position] != Sudoku.EMPTY_VALUE) {
+                positions[count++] = position;
+            }
+        }
+
+        if (!isUnique(values, constraints)) {
+            throw new IllegalArgumentException("The puzzle must have a single solution.");
+        }
+
+        // Find the clues that can be removed on their own
+        boolean[] removable = new boolean[positions.length];
+        run(new Check(values, constraints, positions, removable, 0, positions.length));
+
+        int[] candidates = new int[positions.length];
+        count = 0;
+
+        for (int index = 0; index < positions.length; index++) {
+            if (removable[index]) {
+                candidates[count++] = positions[index];
+            }
+        }
+
+        // Remove them greedily in several orders and keep the board with the fewest clues
+        List<Removal> removals = new ArrayList<>(ORDERS);
+
+        for (int order = 0; order < ORDERS; order++) {
+            int[] sequence = new int[count];
+            System.arraycopy(candidates, 0, sequence, 0, count);
+            Generator.shuffle(sequence, random);
+
+            removals.add(new Removal(values, constraints, sequence));
+        }
+
+        run(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(removals)));
+
+        Removal best = removals.get(0);
+
+        for (Removal removal : removals) {
+            if (removal.removed > best.removed) {
+                best = removal;
+            }
+        }
+
+        byte[] reduced = new byte[clues.length];
+
+        for (int position = 0; position < clues.length; position++) {
+            reduced[position] = (byte) best.board[position];
+        }
+
+        return new Puzzle(sideSize, reduced, puzzle.solution(), puzzle.variants(), puzzle.cages());
+    }
+
+    /**
+     * Runs a task on the pool, or directly on the current pool if already within a fork/join task.
+     *
+     * @param task the task to run
+     */
+    private void run(ForkJoinTask<?> task) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Tells whether a board has a single solution.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param constraints the groups and cages of the board
+     *
+     * @return true if the board has exactly one solution, false otherwise
+     */
+    private static boolean isUnique(int[] board, Constraints constraints) {
+        return Sudoku.solver(constraints).solve(board, 2, null) == 1;
+    }
+
+    /**
+     * Checks whether each clue of a range can be removed on its own, splitting the range in halves until it holds a
+     * single clue.
+     */
+    private static class Check extends RecursiveAction {
+
+        private static final long serialVersionUID = 3329513270480651874L;
+
+        private final int[] values;
+        private final Constraints constraints;
+        private final int[] positions;
+        private final boolean[] removable;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a new task for a range of clues.
+         *
+         * @param values the values of the board in row-major order, not to be modified
+         * @param constraints the groups and cages of the board
+         * @param positions the positions of the clues
+         * @param removable the array to store whether each clue can be removed into
+         * @param from the index of the first clue of the range, inclusive
+         * @param to the index of the last clue of the range, exclusive
+         */
+        Check(int[] values, Constraints constraints, int[] positions, boolean[] removable, int from, int to) {
+            this.values = values;
+            this.constraints = constraints;
+            this.positions = positions;
+            this.removable = removable;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(new Check(values, constraints, positions, removable, from, middle),
+                          new Check(values, constraints, positions, removable, middle, to));
+
+                return;
+            }
+
+            if (to > from) {
+                int[] board = values.clone();
+                board[positions[from]] = Sudoku.EMPTY_VALUE;
+
+                removable[from] = isUnique(board, constraints);
+            }
+        }
+
+    }
+
+    /**
+     * Removes clues one after the other in a given order, skipping those whose removal would allow a second solution.
+     */
+    private static class Removal extends RecursiveAction {
+
+        private static final long serialVersionUID = -2207961452316021475L;
+
+        private final Constraints constraints;
+        private final int[] sequence;
+        private final int[] board;
+
+        private int removed;
+
+        /**
+         * Creates a new task for an order of removal.
+         *
+         * @param values the values of the board in row-major order, not to be modified
+         * @param constraints the groups and cages of the board
+         * @param sequence the positions of the clues to try to remove, in order
+         */
+        Removal(int[] values, Constraints constraints, int[] sequence) {
+            this.constraints = constraints;
+            this.sequence = sequence;
+            this.board = values.clone();
+        }
+
+        @Override
+        protected void compute() {
+            for (int position : sequence) {
+                int value = board[position];
+
+                board[position] = Sudoku.EMPTY_VALUE;
+
+                if (isUnique(board, constraints)) {
+                    removed++;
+                } else {
+                    board[position] = value;
+                }
+            }
+        }
+
+    }
+
+}
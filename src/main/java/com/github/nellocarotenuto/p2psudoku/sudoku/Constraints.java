@@ -0,0 +1,457 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Describes the constraints of a board: the groups of cells that hold every value once and, on killer boards, the cages
+ * with the sum of their values.
+ *
+ * Groups are arrays of cell positions in row-major order. Rows come first, then columns, regions and finally the groups
+ * added by the {@link Variant variants}, and the groups of each cell are listed in the same order. Whatever checks a
+ * board keeps a bitmask of the values held by each group, where bit v - 1 stands for value v, so a variant only adds
+ * masks to the checks a classic board already does instead of requiring a different code path.
+ *
+ * Instances are immutable. Those without cages are shared, one for each size and set of variants.
+ */
+public final class Constraints {
+
+    public static final int MAX_VARIANT_SIDE_SIZE = Sudoku.SIDE_SIZE;
+
+    private static final Constraints[][] shared =
+            new Constraints[Sudoku.MAX_SIDE_SIZE + 1][1 << Variant.values().length];
+
+    private final int sideSize;
+    private final int variants;
+
+    private final int[][] units;
+    private final int[][] cellUnits;
+
+    private final int[][] cages;
+    private final int[] cageSums;
+    private final int[] cellCages;
+
+    /**
+     * Builds the groups of a board.
+     *
+     * @param sideSize the number of cells on each side of the board, must be a perfect square
+     * @param variants the bitmask of the variants whose groups to add, without {@link Variant#KILLER}
+     */
+    private Constraints(int sideSize, int variants) {
+        int regionSize = (int) Math.sqrt(sideSize);
+        int boardSize = sideSize * sideSize;
+
+        this.sideSize = sideSize;
+        this.variants = variants;
+
+        // Collect the groups added by the variants
+        int windows = (regionSize - 1) * (regionSize - 1);
+        int[][] extraUnits = new int[(has(variants, Variant.DIAGONAL) ? 2 : 0) +
+                                     (has(variants, Variant.WINDOKU) ? windows : 0)][sideSize];
+        int extra = 0;
+
+        if (has(variants, Variant.DIAGONAL)) {
+            for (int index = 0; index < sideSize; index++) {
+                extraUnits[extra][index] = index * sideSize + index;
+                extraUnits[extra + 1][index] = index * sideSize + sideSize - 1 - index;
+            }
+
+            extra += 2;
+        }
+
+        if (has(variants, Variant.WINDOKU)) {
+            for (int window = 0; window < windows; window++) {
+                int firstRow = 1 + (window / (regionSize - 1)) * (regionSize + 1);
+                int firstColumn = 1 + (window % (regionSize - 1)) * (regionSize + 1);
+
+                for (int index = 0; index < sideSize; index++) {
+                    extraUnits[extra][index] = (firstRow + index / regionSize) * sideSize + firstColumn +
+                                               index % regionSize;
+                }
+
+                extra++;
+            }
+        }
+
+        // Rows come first, then columns, regions and the groups of the variants
+        units = new int[3 * sideSize + extraUnits.length][];
+        cellUnits = new int[boardSize][];
+
+        int[] counts = new int[boardSize];
+
+        for (int[] unit : extraUnits) {
+            for (int cell : unit) {
+                counts[cell]++;
+            }
+        }
+
+        for (int unit = 0; unit < 3 * sideSize; unit++) {
+            units[unit] = new int[sideSize];
+        }
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                int cell = row * sideSize + column;
+                int region = (row / regionSize) * regionSize + column / regionSize;
+                int indexInRegion = (row % regionSize) * regionSize + column % regionSize;
+
+                units[row][column] = cell;
+                units[sideSize + column][row] = cell;
+                units[2 * sideSize + region][indexInRegion] = cell;
+
+                cellUnits[cell] = new int[3 + counts[cell]];
+                cellUnits[cell][0] = row;
+                cellUnits[cell][1] = sideSize + column;
+                cellUnits[cell][2] = 2 * sideSize + region;
+
+                counts[cell] = 3;
+            }
+        }
+
+        for (int index = 0; index < extraUnits.length; index++) {
+            int unit = 3 * sideSize + index;
+
+            units[unit] = extraUnits[index];
+
+            for (int cell : extraUnits[index]) {
+                cellUnits[cell][counts[cell]++] = unit;
+            }
+        }
+
+        cages = new int[0][];
+        cageSums = new int[0];
+        cellCages = null;
+    }
+
+    /**
+     * Adds cages to the groups of a board.
+     *
+     * @param constraints the groups of the board
+     * @param cageIds the cage of each cell in row-major order, numbered from 1, 0 for cells outside of any cage
+     * @param solution the values of the solution in row-major order, whose sums are the sums of the cages
+     *
+     * @throws IllegalArgumentException if a cage holds a value more than once or is larger than a row
+     */
+    private Constraints(Constraints constraints, byte[] cageIds, byte[] solution) {
+        int boardSize = constraints.sideSize * constraints.sideSize;
+
+        checkVariants(constraints.sideSize, mask(Variant.KILLER));
+
+        if (cageIds.length != boardSize) {
+            throw new IllegalArgumentException("Expected a cage for each of the " + boardSize + " cells.");
+        }
+
+        this.sideSize = constraints.sideSize;
+        this.variants = constraints.variants | mask(Variant.KILLER);
+        this.units = constraints.units;
+        this.cellUnits = constraints.cellUnits;
+
+        // Count the cells of each cage
+        int count = 0;
+
+        for (byte id : cageIds) {
+            count = Math.max(count, id);
+        }
+
+        int[] sizes = new int[count];
+
+        for (byte id : cageIds) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Invalid cage " + id + ".");
+            }
+
+            if (id != 0) {
+                sizes[id - 1]++;
+            }
+        }
+
+        cages = new int[count][];
+        cageSums = new int[count];
+        cellCages = new int[boardSize];
+
+        for (int cage = 0; cage < count; cage++) {
+            if (sizes[cage] > sideSize) {
+                throw new IllegalArgumentException("Cage " + (cage + 1) + " has more cells than a row.");
+            }
+
+            cages[cage] = new int[sizes[cage]];
+            sizes[cage] = 0;
+        }
+
+        // Sum the values of the solution in each cage, which must all be different
+        int[] masks = new int[count];
+
+        for (int cell = 0; cell < boardSize; cell++) {
+            int cage = cageIds[cell] - 1;
+            cellCages[cell] = cage;
+
+            if (cage < 0) {
+                continue;
+            }
+
+            int bit = 1 << (solution[cell] - 1);
+
+            if ((masks[cage] & bit) != 0) {
+                throw new IllegalArgumentException("Cage " + (cage + 1) + " holds " + solution[cell] + " twice.");
+            }
+
+            masks[cage] |= bit;
+            cages[cage][sizes[cage]++] = cell;
+            cageSums[cage] += solution[cell];
+        }
+    }
+
+    /**
+     * Gets the constraints of a classic board.
+     *
+     * @param sideSize the number of cells on each side of the board, a perfect square up to {@link Sudoku#MAX_SIDE_SIZE}
+     *
+     * @return the rows, columns and regions of a board of the given size
+     */
+    public static Constraints of(int sideSize) {
+        return of(sideSize, 0);
+    }
+
+    /**
+     * Gets the constraints of a board with some variants.
+     *
+     * @param sideSize the number of cells on each side of the board, a perfect square up to
+     *                 {@link #MAX_VARIANT_SIDE_SIZE} if any variant is requested
+     * @param variants the variants whose groups to add to the rows, columns and regions, except for
+     *                 {@link Variant#KILLER} whose cages come with the puzzles
+     *
+     * @return the groups of a board of the given size and variants
+     *
+     * @throws IllegalArgumentException if the board is too large for variants or killer cages are requested
+     */
+    public static Constraints of(int sideSize, Set<Variant> variants) {
+        if (variants.contains(Variant.KILLER)) {
+            throw new IllegalArgumentException("Killer cages are drawn for each puzzle.");
+        }
+
+        return of(sideSize, mask(variants));
+    }
+
+    /**
+     * Gets the shared constraints of a board with some variants, building them on first use.
+     *
+     * @param sideSize the number of cells on each side of the board
+     * @param variants the bitmask of the variants whose groups to add, where {@link Variant#KILLER} is ignored
+     *
+     * @return the groups of a board of the given size and variants
+     *
+     * @throws IllegalArgumentException if the board is too large for variants
+     */
+    static Constraints of(int sideSize, int variants) {
+        Sudoku.checkSideSize(sideSize);
+        variants &= ~mask(Variant.KILLER);
+        checkVariants(sideSize, variants);
+
+        // Instances only have final fields, so reading one built by another thread without the lock is safe
+        Constraints constraints = shared[sideSize][variants];
+
+        if (constraints == null) {
+            synchronized (shared) {
+                if (shared[sideSize][variants] == null) {
+                    shared[sideSize][variants] = new Constraints(sideSize, variants);
+                }
+
+                constraints = shared[sideSize][variants];
+            }
+        }
+
+        return constraints;
+    }
+
+    /**
+     * Gets the constraints of a board with cages on top of these ones.
+     *
+     * @param cageIds the cage of each cell in row-major order, numbered from 1, 0 for cells outside of any cage
+     * @param solution the values of the solution in row-major order, whose sums are the sums of the cages
+     *
+     * @return the groups of this board along with the cages
+     *
+     * @throws IllegalArgumentException if a cage holds a value more than once or is larger than a row
+     */
+    Constraints withCages(byte[] cageIds, byte[] solution) {
+        return new Constraints(this, cageIds, solution);
+    }
+
+    /**
+     * Checks that a board can be played with a set of variants.
+     *
+     * @param sideSize the number of cells on each side of the board
+     * @param variants the bitmask of the variants of the board
+     *
+     * @throws IllegalArgumentException if the board is too large for variants
+     */
+    static void checkVariants(int sideSize, int variants) {
+        if (variants != 0 && sideSize > MAX_VARIANT_SIDE_SIZE) {
+            throw new IllegalArgumentException("Variants are only supported on boards up to " + MAX_VARIANT_SIDE_SIZE +
+                                               "x" + MAX_VARIANT_SIDE_SIZE + ", got " + sideSize + "x" + sideSize +
+                                               ".");
+        }
+    }
+
+    /**
+     * Combines a set of variants into a bitmask.
+     *
+     * @param variants the variants to combine
+     *
+     * @return the bitmask where bit i stands for the variant of ordinal i
+     */
+    static int mask(Set<Variant> variants) {
+        int mask = 0;
+
+        for (Variant variant : variants) {
+            mask |= mask(variant);
+        }
+
+        return mask;
+    }
+
+    /**
+     * Gets the bit of a variant.
+     *
+     * @param variant the variant
+     *
+     * @return the bitmask with just the bit of the variant set
+     */
+    static int mask(Variant variant) {
+        return 1 << variant.ordinal();
+    }
+
+    /**
+     * Tells whether a bitmask of variants contains a variant.
+     *
+     * @param variants the bitmask of the variants
+     * @param variant the variant to look for
+     *
+     * @return true if the bit of the variant is set, false otherwise
+     */
+    static boolean has(int variants, Variant variant) {
+        return (variants & mask(variant)) != 0;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Gets the variants of the board.
+     *
+     * @return the variants whose constraints the board adds to those of its rows, columns and regions
+     */
+    public Set<Variant> getVariants() {
+        Set<Variant> set = EnumSet.noneOf(Variant.class);
+
+        for (Variant variant : Variant.values()) {
+            if (has(variants, variant)) {
+                set.add(variant);
+            }
+        }
+
+        return set;
+    }
+
+    /**
+     * Gets the number of cages of the board.
+     *
+     * @return the number of cages, 0 if the board isn't a killer one
+     */
+    public int getCageCount() {
+        return cages.length;
+    }
+
+    /**
+     * Gets the cage a cell belongs to.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the index of the cage (starting at 0), -1 if the cell isn't part of any cage
+     */
+    public int getCage(int row, int column) {
+        return cellCages == null ? -1 : cellCages[row * sideSize + column];
+    }
+
+    /**
+     * Gets the sum of the values of a cage.
+     *
+     * @param cage the index of the cage (starting at 0)
+     *
+     * @return the sum the values of the cells of the cage must add up to
+     */
+    public int getCageSum(int cage) {
+        return cageSums[cage];
+    }
+
+    /**
+     * Tells whether the board only has rows, columns and regions.
+     *
+     * @return true if the board has no variant, false otherwise
+     */
+    boolean isClassic() {
+        return variants == 0;
+    }
+
+    /**
+     * Gets the bitmask of the variants of the board, for the classes of this package only.
+     *
+     * @return the bitmask where bit i stands for the variant of ordinal i
+     */
+    int variants() {
+        return variants;
+    }
+
+    /**
+     * Gets the groups whose cells hold every value once, for the classes of this package only.
+     *
+     * @return the positions of the cells of each group, not to be modified
+     */
+    int[][] units() {
+        return units;
+    }
+
+    /**
+     * Gets the groups of every cell, for the classes of this package only.
+     *
+     * @return the indexes of the groups of each cell, starting with its row, column and region, not to be modified
+     */
+    int[][] cellUnits() {
+        return cellUnits;
+    }
+
+    /**
+     * Gets the cells of the cages, for the classes of this package only.
+     *
+     * @return the positions of the cells of each cage, not to be modified
+     */
+    int[][] cages() {
+        return cages;
+    }
+
+    /**
+     * Gets the sums of the cages, for the classes of this package only.
+     *
+     * @return the sum of the values of each cage, not to be modified
+     */
+    int[] cageSums() {
+        return cageSums;
+    }
+
+    /**
+     * Gets the cage of every cell, for the classes of this package only.
+     *
+     * @return the index of the cage of each cell, -1 for cells outside of any cage, null if the board has no cages
+     */
+    int[] cellCages() {
+        return cellCages;
+    }
+
+}
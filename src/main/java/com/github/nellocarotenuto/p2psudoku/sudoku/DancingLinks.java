@@ -0,0 +1,306 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Solves Sudoku boards as exact cover problems through Knuth's Algorithm X with dancing links.
+ *
+ * The matrix has a row for every (cell, value) candidate and a column for every constraint: each cell holds a value,
+ * each row, column and region holds every value once. Nodes live in flat int arrays instead of objects, so an instance
+ * can be reused for any number of boards of the same size without allocating: givens are covered before the search
+ * and everything is uncovered again before returning.
+ *
+ * Instances are not thread safe.
+ */
+class DancingLinks implements ExactSolver {
+
+    private static final int ROOT = 0;
+
+    private final int sideSize;
+    private final int regionSize;
+    private final int boardSize;
+
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] candidate;
+    private final int[] size;
+
+    private final int[] firstNodes;
+    private final int[] givens;
+    private final int[] selected;
+
+    private int[] solution;
+    private int solutions;
+    private int limit;
+
+    /**
+     * Builds the exact cover matrix for boards of a given size.
+     *
+     * @param sideSize the number of cells on each side of the board, must be a perfect square
+     */
+    DancingLinks(int sideSize) {
+        this.sideSize = sideSize;
+        this.regionSize = (int) Math.sqrt(sideSize);
+        this.boardSize = sideSize * sideSize;
+
+        int columns = 4 * boardSize;
+        int candidates = boardSize * sideSize;
+        int nodes = 1 + columns + 4 * candidates;
+
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        candidate = new int[nodes];
+        size = new int[columns + 1];
+
+        firstNodes = new int[candidates];
+        givens = new int[boardSize];
+        selected = new int[boardSize];
+
+        // Link the root and the column headers in a circular list
+        for (int header = 0; header <= columns; header++) {
+            left[header] = header == 0 ? columns : header - 1;
+            right[header] = header == columns ? 0 : header + 1;
+            up[header] = header;
+            down[header] = header;
+            column[header] = header;
+        }
+
+        // Append four nodes for each candidate, one for every constraint it satisfies
+        int node = columns + 1;
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int col = 0; col < sideSize; col++) {
+                int region = (row / regionSize) * regionSize + col / regionSize;
+
+                for (int value = 0; value < sideSize; value++) {
+                    int id = (row * sideSize + col) * sideSize + value;
+
+                    int[] headers = {
+                            1 + row * sideSize + col,
+                            1 + boardSize + row * sideSize + value,
+                            1 + 2 * boardSize + col * sideSize + value,
+                            1 + 3 * boardSize + region * sideSize + value
+                    };
+
+                    firstNodes[id] = node;
+
+                    for (int i = 0; i < headers.length; i++) {
+                        int header = headers[i];
+
+                        column[node] = header;
+                        candidate[node] = id;
+
+                        up[node] = up[header];
+                        down[node] = header;
+                        down[up[header]] = node;
+                        up[header] = node;
+                        size[header]++;
+
+                        left[node] = i == 0 ? node + headers.length - 1 : node - 1;
+                        right[node] = i == headers.length - 1 ? node - headers.length + 1 : node + 1;
+
+                        node++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the boards handled.
+     *
+     * @return the number of cells on each side of the boards this instance can solve
+     */
+    int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Counts the solutions of a board, stopping as soon as a limit is reached.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param limit the number of solutions after which to stop searching
+     * @param solution an array filled with the first solution found, null if it isn't needed
+     *
+     * @return the number of solutions found, never greater than the limit
+     */
+    @Override
+    public int solve(int[] board, int limit, int[] solution) {
+        if (board.length != boardSize) {
+            throw new IllegalArgumentException("Expected a board of " + boardSize + " cells, got " + board.length + ".");
+        }
+
+        this.solution = solution;
+        this.solutions = 0;
+        this.limit = limit;
+
+        // Select the rows of the givens, giving up if two of them share a constraint
+        int givensCount = 0;
+        boolean consistent = true;
+
+        for (int cell = 0; cell < boardSize && consistent; cell++) {
+            int value = board[cell];
+
+            if (value == Sudoku.EMPTY_VALUE) {
+                continue;
+            }
+
+            if (value < 1 || value > sideSize) {
+                consistent = false;
+                break;
+            }
+
+            int first = firstNodes[cell * sideSize + value - 1];
+            int node = first;
+
+            do {
+                if (!isUncovered(column[node])) {
+                    consistent = false;
+                    break;
+                }
+
+                node = right[node];
+            } while (node != first);
+
+            if (consistent) {
+                node = first;
+
+                do {
+                    cover(column[node]);
+                    node = right[node];
+                } while (node != first);
+
+                givens[givensCount++] = first;
+
+                if (solution != null) {
+                    solution[cell] = value;
+                }
+            }
+        }
+
+        if (consistent && limit > 0) {
+            search(0);
+        }
+
+        // Restore the matrix for the next board
+        for (int i = givensCount - 1; i >= 0; i--) {
+            int first = givens[i];
+            int node = left[first];
+
+            do {
+                uncover(column[node]);
+                node = left[node];
+            } while (node != left[first]);
+        }
+
+        this.solution = null;
+
+        return solutions;
+    }
+
+    /**
+     * Explores the candidates of the column with the fewest options left, recursively.
+     *
+     * @param depth the number of candidates selected so far by the search
+     *
+     * @return true if the limit of solutions has been reached and the search should stop, false otherwise
+     */
+    private boolean search(int depth) {
+        if (right[ROOT] == ROOT) {
+            if (solutions == 0 && solution != null) {
+                for (int i = 0; i < depth; i++) {
+                    int id = candidate[selected[i]];
+                    solution[id / sideSize] = id % sideSize + 1;
+                }
+            }
+
+            return ++solutions >= limit;
+        }
+
+        int best = right[ROOT];
+
+        for (int header = right[best]; header != ROOT && size[best] > 1; header = right[header]) {
+            if (size[header] < size[best]) {
+                best = header;
+            }
+        }
+
+        if (size[best] == 0) {
+            return false;
+        }
+
+        boolean stop = false;
+
+        cover(best);
+
+        for (int row = down[best]; row != best && !stop; row = down[row]) {
+            selected[depth] = row;
+
+            for (int node = right[row]; node != row; node = right[node]) {
+                cover(column[node]);
+            }
+
+            stop = search(depth + 1);
+
+            for (int node = left[row]; node != row; node = left[node]) {
+                uncover(column[node]);
+            }
+        }
+
+        uncover(best);
+
+        return stop;
+    }
+
+    /**
+     * Tells whether a column is still part of the header list.
+     *
+     * @param header the header of the column
+     *
+     * @return true if the column hasn't been covered, false otherwise
+     */
+    private boolean isUncovered(int header) {
+        return right[left[header]] == header;
+    }
+
+    /**
+     * Removes a column from the header list and the rows that satisfy it from the other columns.
+     *
+     * @param header the header of the column to cover
+     */
+    private void cover(int header) {
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+
+        for (int row = down[header]; row != header; row = down[row]) {
+            for (int node = right[row]; node != row; node = right[node]) {
+                up[down[node]] = up[node];
+                down[up[node]] = down[node];
+                size[column[node]]--;
+            }
+        }
+    }
+
+    /**
+     * Puts back a column covered earlier, in the exact reverse order of {@link #cover(int)}.
+     *
+     * @param header the header of the column to uncover
+     */
+    private void uncover(int header) {
+        for (int row = up[header]; row != header; row = up[row]) {
+            for (int node = left[row]; node != row; node = left[node]) {
+                size[column[node]]++;
+                up[down[node]] = node;
+                down[up[node]] = node;
+            }
+        }
+
+        right[left[header]] = header;
+        left[right[header]] = header;
+    }
+
+}
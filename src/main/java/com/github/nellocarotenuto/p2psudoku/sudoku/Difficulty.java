@@ -0,0 +1,11 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Defines the difficulty tiers of a puzzle, based on the hardest technique needed to solve it.
+ */
+public enum Difficulty {
+    EASY,
+    MEDIUM,
+    HARD,
+    EXPERT
+}
@@ -0,0 +1,19 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Counts the solutions of boards, filling in the first one found.
+ */
+interface ExactSolver {
+
+    /**
+     * Counts the solutions of a board, stopping as soon as a limit is reached.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param limit the number of solutions after which to stop searching
+     * @param solution an array filled with the first solution found, null if it isn't needed
+     *
+     * @return the number of solutions found, never greater than the limit
+     */
+    int solve(int[] board, int limit, int[] solution);
+
+}
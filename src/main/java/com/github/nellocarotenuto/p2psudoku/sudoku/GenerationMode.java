@@ -0,0 +1,24 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Defines the strategies available to turn a complete board into a puzzle.
+ */
+public enum GenerationMode {
+
+    /**
+     * Removes random clues without checking the puzzle, which might then have more than one solution.
+     */
+    CLASSIC,
+
+    /**
+     * Removes random clues only as long as the puzzle keeps a single solution.
+     */
+    UNIQUE,
+
+    /**
+     * Shuffles a uniquely solvable puzzle taken from a small bank with transformations that keep both the constraints
+     * and the number of solutions, which takes a few microseconds instead of filling and checking a new board.
+     */
+    TRANSFORM
+
+}
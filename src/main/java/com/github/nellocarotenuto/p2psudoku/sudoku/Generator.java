@@ -0,0 +1,702 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.util.Random;
+
+/**
+ * Generates puzzles by filling a board and then removing clues from it.
+ *
+ * Boards up to the classic size are filled with randomized backtracking, which doesn't finish in a reasonable time on
+ * larger boards. Those are instead built from a pattern that is valid by construction, shuffled with transformations
+ * that preserve the constraints: relabeling the values, swapping rows within a band, swapping bands and doing the same
+ * for columns.
+ *
+ * In {@link GenerationMode#TRANSFORM} mode, puzzles are instead derived from a bank of uniquely solvable ones, built
+ * once per size from fixed seeds. Relabeling the values, reordering rows and columns within their bands and stacks,
+ * reordering bands and stacks and transposing the board map every solution of a puzzle to a solution of the new one,
+ * so the puzzles derived keep a single solution without checking it again.
+ *
+ * Every group of the {@link Constraints constraints} keeps a bitmask of the values it holds, where bit v - 1 stands
+ * for value v, so checking and updating the constraints takes a few operations per group and allocates nothing,
+ * whatever the variants of the board. On killer boards, the complete board is split into cages before removing clues,
+ * and the clues are removed checking uniqueness against the cages as well. Variants are only supported on boards up to
+ * the classic size, and not in {@link GenerationMode#TRANSFORM} mode since reordering lines breaks their groups.
+ *
+ * Boards generated from a seed travel as the seed alone and are generated again by whoever receives them, so
+ * {@link #VERSION} must change whenever a change to this class changes the puzzle generated from any seed.
+ *
+ * Instances are not thread safe.
+ */
+class Generator {
+
+    static final int VERSION = 1;
+
+    private static final int MIN_CLUES = 26;
+    private static final int MAX_CLUES = 34;
+    private static final int MAX_BACKTRACKING_SIDE_SIZE = 9;
+    private static final int BACKTRACKING_BUDGET = 4096;
+    private static final int BANK_SIZE = 16;
+    private static final int MIN_CAGE_SIZE = 2;
+    private static final int MAX_CAGE_SIZE = 4;
+
+    private static final Puzzle[][] banks = new Puzzle[Sudoku.MAX_SIDE_SIZE + 1][];
+
+    private final int sideSize;
+    private final int regionSize;
+    private final int boardSize;
+    private final int variants;
+
+    private final Constraints constraints;
+    private final int[][] units;
+    private final int[][] cellUnits;
+
+    private final int[] values;
+    private final int[] unitMasks;
+
+    /**
+     * Prepares a generator for classic boards of a given size.
+     *
+     * @param sideSize the number of cells on each side of the board, must be a perfect square
+     */
+    Generator(int sideSize) {
+        this(sideSize, 0);
+    }
+
+    /**
+     * Prepares a generator for boards of a given size and variants.
+     *
+     * @param sideSize the number of cells on each side of the board, must be a perfect square
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     *
+     * @throws IllegalArgumentException if the board is too large for variants
+     */
+    Generator(int sideSize, int variants) {
+        this.sideSize = sideSize;
+        this.regionSize = (int) Math.sqrt(sideSize);
+        this.boardSize = sideSize * sideSize;
+        this.variants = variants;
+
+        constraints = Constraints.of(sideSize, variants);
+        units = constraints.units();
+        cellUnits = constraints.cellUnits();
+
+        Constraints.checkVariants(sideSize, variants);
+
+        values = new int[boardSize];
+        unitMasks = new int[units.length];
+    }
+
+    /**
+     * Generates a new puzzle.
+     *
+     * @param random the random number generator driving the generation
+     * @param mode the strategy to use to remove clues from the complete board
+     *
+     * @return the puzzle generated
+     *
+     * @throws IllegalArgumentException if puzzles with variants are requested in {@link GenerationMode#TRANSFORM} mode
+     */
+    Puzzle generate(Random random, GenerationMode mode) {
+        if (mode == GenerationMode.TRANSFORM && variants != 0) {
+            throw new IllegalArgumentException("Puzzles with variants can't be derived from a bank.");
+        }
+
+        if (mode == GenerationMode.TRANSFORM) {
+            return transform(bank(sideSize)[random.nextInt(BANK_SIZE)], random);
+        }
+
+        // Start from an empty board
+        for (int position = 0; position < boardSize; position++) {
+            values[position] = Sudoku.EMPTY_VALUE;
+        }
+
+        for (int unit = 0; unit < units.length; unit++) {
+            unitMasks[unit] = 0;
+        }
+
+        // Fill the board with values in a random valid arrangement
+        if (variants != 0) {
+            fillMostConstrainedFirst(random);
+        } else if (sideSize <= MAX_BACKTRACKING_SIDE_SIZE) {
+            fillWithBacktracking(random);
+        } else {
+            fillFromPattern(random);
+        }
+
+        // Save the complete board as the solution
+        byte[] solution = new byte[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            solution[position] = (byte) values[position];
+        }
+
+        // Split the complete board into cages on killer boards
+        byte[] cages = null;
+        Constraints checked = constraints;
+
+        if (Constraints.has(variants, Variant.KILLER)) {
+            cages = drawCages(random);
+            checked = constraints.withCages(cages, solution);
+        }
+
+        // Remove values from random cells according to the generation mode
+        int[] cellsToClear = new int[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            cellsToClear[position] = position;
+        }
+
+        shuffle(cellsToClear, random);
+
+        // Keep the same share of clues as on a classic board, whatever the size
+        int minClues = MIN_CLUES * boardSize / (Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE);
+        int maxClues = MAX_CLUES * boardSize / (Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE);
+        int cluesToRemove = boardSize - (minClues + random.nextInt(Math.max(maxClues - minClues, 1)));
+
+        if (mode == GenerationMode.UNIQUE && sideSize <= MAX_BACKTRACKING_SIDE_SIZE) {
+            removeCluesKeepingUniqueness(cellsToClear, cluesToRemove, checked);
+        } else if (mode == GenerationMode.UNIQUE) {
+            removeForcedClues(cellsToClear, cluesToRemove);
+        } else {
+            removeClues(cellsToClear, cluesToRemove);
+        }
+
+        // Keep the values left as clues
+        byte[] clues = new byte[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            clues[position] = (byte) values[position];
+        }
+
+        return new Puzzle(sideSize, clues, solution, variants, cages);
+    }
+
+    /**
+     * Fills the empty board one cell at a time with a random value that fits, going back to the previous cell whenever
+     * no value is left to try.
+     *
+     * The search gives up after {@link #BACKTRACKING_BUDGET} cells visited and starts over with new random candidate
+     * orders and twice the budget, so that an unlucky order can't stall the generation: on classic boards a million
+     * seeds never need more than about 1700 visits, hence boards that fill within the budget are unaffected.
+     *
+     * @param random the random number generator driving the choice of the values
+     */
+    private void fillWithBacktracking(Random random) {
+        int[][] candidates = new int[boardSize][sideSize];
+        int[] nextCandidates = new int[boardSize];
+        int budget = BACKTRACKING_BUDGET;
+
+        while (true) {
+            // Associate to each cell a randomly ordered list of candidate values
+            for (int position = 0; position < boardSize; position++) {
+                for (int index = 0; index < sideSize; index++) {
+                    candidates[position][index] = index + 1;
+                }
+
+                shuffle(candidates[position], random);
+            }
+
+            // Fill the cells one by one with the first candidate that fits, backtracking when no options are left
+            int position = 0;
+            int visits = 0;
+
+            while (position < boardSize && visits++ < budget) {
+                clearValue(position);
+
+                boolean placed = false;
+                int used = usedValues(position);
+
+                while (nextCandidates[position] < sideSize) {
+                    int value = candidates[position][nextCandidates[position]++];
+
+                    if ((used & (1 << (value - 1))) == 0) {
+                        setValue(position, value);
+                        placed = true;
+                        break;
+                    }
+                }
+
+                if (placed) {
+                    position++;
+                } else {
+                    nextCandidates[position] = 0;
+                    position--;
+                }
+            }
+
+            if (position == boardSize) {
+                return;
+            }
+
+            // Start over from an empty board with a larger budget
+            for (position = 0; position < boardSize; position++) {
+                clearValue(position);
+                nextCandidates[position] = 0;
+            }
+
+            budget *= 2;
+        }
+    }
+
+    /**
+     * Fills the empty cells picking each time the one with the fewest values that fit, which are tried in random order.
+     *
+     * The groups added by the variants make the fill in row-major order backtrack far more often, while filling the
+     * most constrained cell first finds dead ends right away.
+     *
+     * @param random the random number generator driving the choice of the values
+     *
+     * @return true if the board has been filled, false if the values already placed leave no way to fill it
+     */
+    private boolean fillMostConstrainedFirst(Random random) {
+        int best = -1;
+        int bestUsed = 0;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int position = 0; position < boardSize && bestCount > 1; position++) {
+            if (values[position] != Sudoku.EMPTY_VALUE) {
+                continue;
+            }
+
+            int used = usedValues(position);
+            int count = sideSize - Integer.bitCount(used);
+
+            if (count < bestCount) {
+                best = position;
+                bestUsed = used;
+                bestCount = count;
+            }
+        }
+
+        if (best == -1) {
+            return true;
+        }
+
+        int[] options = new int[bestCount];
+        int count = 0;
+
+        for (int value = 1; value <= sideSize; value++) {
+            if ((bestUsed & (1 << (value - 1))) == 0) {
+                options[count++] = value;
+            }
+        }
+
+        shuffle(options, random);
+
+        for (int value : options) {
+            setValue(best, value);
+
+            if (fillMostConstrainedFirst(random)) {
+                return true;
+            }
+
+            clearValue(best);
+        }
+
+        return false;
+    }
+
+    /**
+     * Fills the empty board with a shuffled copy of a pattern that satisfies the constraints by construction.
+     *
+     * In the pattern, each row is the previous one shifted by a region, or by one cell when moving to the next band.
+     * Relabeling the values and reordering the rows within their band, the bands themselves and likewise the columns
+     * keep every row, column and region free of repetitions.
+     *
+     * @param random the random number generator driving the transformations
+     */
+    private void fillFromPattern(Random random) {
+        int[] labels = new int[sideSize];
+
+        for (int index = 0; index < sideSize; index++) {
+            labels[index] = index + 1;
+        }
+
+        shuffle(labels, random);
+
+        int[] rows = shuffledLines(random);
+        int[] columns = shuffledLines(random);
+
+        for (int row = 0; row < sideSize; row++) {
+            int patternRow = rows[row];
+            int shift = (patternRow % regionSize) * regionSize + patternRow / regionSize;
+
+            for (int column = 0; column < sideSize; column++) {
+                setValue(row * sideSize + column, labels[(shift + columns[column]) % sideSize]);
+            }
+        }
+    }
+
+    /**
+     * Derives a new puzzle from another one by relabeling its values, reordering its lines and possibly transposing it.
+     *
+     * @param puzzle the puzzle to start from
+     * @param random the random number generator driving the transformations
+     *
+     * @return the puzzle derived, with as many solutions as the original
+     */
+    private Puzzle transform(Puzzle puzzle, Random random) {
+        byte[] sourceClues = puzzle.clues();
+        byte[] sourceSolution = puzzle.solution();
+
+        int[] labels = new int[sideSize];
+
+        for (int index = 0; index < sideSize; index++) {
+            labels[index] = index + 1;
+        }
+
+        shuffle(labels, random);
+
+        int[] rows = shuffledLines(random);
+        int[] columns = shuffledLines(random);
+        boolean transposed = random.nextBoolean();
+
+        byte[] clues = new byte[boardSize];
+        byte[] solution = new byte[boardSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                int source = transposed ? columns[column] * sideSize + rows[row] : rows[row] * sideSize + columns[column];
+                int position = row * sideSize + column;
+
+                solution[position] = (byte) labels[sourceSolution[source] - 1];
+
+                if (sourceClues[source] != Sudoku.EMPTY_VALUE) {
+                    clues[position] = solution[position];
+                }
+            }
+        }
+
+        return new Puzzle(sideSize, clues, solution);
+    }
+
+    /**
+     * Gets the bank of uniquely solvable puzzles of a given size, generating it on first use.
+     *
+     * @param sideSize the number of cells on each side of the boards
+     *
+     * @return the puzzles to derive new ones from, not to be modified
+     */
+    private static synchronized Puzzle[] bank(int sideSize) {
+        if (banks[sideSize] == null) {
+            Generator generator = new Generator(sideSize);
+            Puzzle[] bank = new Puzzle[BANK_SIZE];
+
+            for (int seed = 0; seed < BANK_SIZE; seed++) {
+                bank[seed] = generator.generate(new Random(seed), GenerationMode.UNIQUE);
+            }
+
+            banks[sideSize] = bank;
+        }
+
+        return banks[sideSize];
+    }
+
+    /**
+     * Splits the complete board into cages of adjacent cells holding distinct values.
+     *
+     * Cells are visited in a random order and each one not yet in a cage starts a new one, which grows toward random
+     * neighbours whose value it doesn't hold yet until it reaches a random size or has nowhere left to grow.
+     *
+     * @param random the random number generator driving the shapes of the cages
+     *
+     * @return the cage of each cell in row-major order, numbered from 1
+     */
+    private byte[] drawCages(Random random) {
+        byte[] cages = new byte[boardSize];
+        int[] starts = new int[boardSize];
+        int[] cells = new int[MAX_CAGE_SIZE];
+        int[] neighbours = new int[4 * MAX_CAGE_SIZE];
+        int count = 0;
+
+        for (int position = 0; position < boardSize; position++) {
+            starts[position] = position;
+        }
+
+        shuffle(starts, random);
+
+        for (int start : starts) {
+            if (cages[start] != 0) {
+                continue;
+            }
+
+            int cage = ++count;
+            int size = MIN_CAGE_SIZE + random.nextInt(MAX_CAGE_SIZE - MIN_CAGE_SIZE + 1);
+            int length = 0;
+            int mask = 0;
+
+            for (int cell = start; cell != -1 && length < size; ) {
+                cages[cell] = (byte) cage;
+                cells[length++] = cell;
+                mask |= 1 << (values[cell] - 1);
+
+                // Collect the free neighbours of the cage whose value isn't in it yet
+                int options = 0;
+
+                for (int index = 0; index < length; index++) {
+                    int row = cells[index] / sideSize;
+                    int column = cells[index] % sideSize;
+
+                    for (int direction = 0; direction < 4; direction++) {
+                        int neighbourRow = row + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                        int neighbourColumn = column + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+
+                        if (neighbourRow < 0 || neighbourRow >= sideSize || neighbourColumn < 0 ||
+                            neighbourColumn >= sideSize) {
+                            continue;
+                        }
+
+                        int neighbour = neighbourRow * sideSize + neighbourColumn;
+
+                        if (cages[neighbour] == 0 && (mask & (1 << (values[neighbour] - 1))) == 0) {
+                            neighbours[options++] = neighbour;
+                        }
+                    }
+                }
+
+                cell = options == 0 ? -1 : neighbours[random.nextInt(options)];
+            }
+        }
+
+        return cages;
+    }
+
+    /**
+     * Picks a random order of the lines of the board that keeps the lines of each band together.
+     *
+     * @param random the random number generator driving the order
+     *
+     * @return the indexes of the lines, in their new order
+     */
+    private int[] shuffledLines(Random random) {
+        int[] bands = new int[regionSize];
+        int[] offsets = new int[regionSize];
+        int[] lines = new int[sideSize];
+
+        for (int index = 0; index < regionSize; index++) {
+            bands[index] = index;
+        }
+
+        shuffle(bands, random);
+
+        for (int band = 0; band < regionSize; band++) {
+            for (int index = 0; index < regionSize; index++) {
+                offsets[index] = index;
+            }
+
+            shuffle(offsets, random);
+
+            for (int index = 0; index < regionSize; index++) {
+                lines[band * regionSize + index] = bands[band] * regionSize + offsets[index];
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Removes clues from the complete board but keeps at least one occurrence for each value.
+     *
+     * @param cellsToClear the positions of the cells to try to clear, in order
+     * @param cluesToRemove the number of cells to try to clear
+     */
+    private void removeClues(int[] cellsToClear, int cluesToRemove) {
+        int[] occurrencesRemoved = new int[sideSize + 1];
+
+        for (int i = 0; i < cluesToRemove; i++) {
+            int position = cellsToClear[i];
+            int value = values[position];
+
+            if (occurrencesRemoved[value] < sideSize - 1) {
+                clearValue(position);
+                occurrencesRemoved[value]++;
+            }
+        }
+    }
+
+    /**
+     * Removes clues from the complete board skipping those whose removal would allow more than one solution.
+     *
+     * Since the board has a single solution before each removal, any other solution found after removing a clue must
+     * have a different value in that cell: rather than counting solutions, it is enough to look for one with each of
+     * the other values allowed there, which usually fails within a few steps.
+     *
+     * @param cellsToClear the positions of the cells to try to clear, in order
+     * @param cluesToRemove the number of cells to clear, if the puzzle allows it
+     * @param checked the constraints to check uniqueness against, cages included
+     */
+    private void removeCluesKeepingUniqueness(int[] cellsToClear, int cluesToRemove, Constraints checked) {
+        ExactSolver solver = Sudoku.solver(checked);
+        int cluesRemoved = 0;
+
+        for (int i = 0; i < boardSize && cluesRemoved < cluesToRemove; i++) {
+            int position = cellsToClear[i];
+            int value = values[position];
+
+            clearValue(position);
+
+            boolean unique = true;
+
+            for (int alternative = 1; alternative <= sideSize && unique; alternative++) {
+                if (alternative != value && isLegal(position, alternative)) {
+                    values[position] = alternative;
+                    unique = solver.solve(values, 1, null) == 0;
+                }
+            }
+
+            values[position] = Sudoku.EMPTY_VALUE;
+
+            if (unique) {
+                cluesRemoved++;
+            } else {
+                setValue(position, value);
+            }
+        }
+    }
+
+    /**
+     * Removes only the clues that the rest of the board forces, which keeps the puzzle uniquely solvable without running
+     * the solver.
+     *
+     * A clue is forced when the other cells of its groups already hold every other value, or when no other empty cell
+     * of one of its groups can take its value. Either way, every solution of the board without the
+     * clue has the same value in that cell, so the removal doesn't add solutions. This leaves more clues than the solver
+     * based removal, but it takes constant time per cell while searching large boards for a second solution doesn't
+     * finish in a reasonable time.
+     *
+     * @param cellsToClear the positions of the cells to try to clear, in order
+     * @param cluesToRemove the number of cells to clear, if the puzzle allows it
+     */
+    private void removeForcedClues(int[] cellsToClear, int cluesToRemove) {
+        int cluesRemoved = 0;
+
+        for (int i = 0; i < boardSize && cluesRemoved < cluesToRemove; i++) {
+            int position = cellsToClear[i];
+            int value = values[position];
+
+            clearValue(position);
+
+            if (isForced(position, value)) {
+                cluesRemoved++;
+            } else {
+                setValue(position, value);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the other cells of the board leave a single option for the value of an empty cell.
+     *
+     * @param position the position of the cell in row-major order
+     * @param value the value the cell had
+     *
+     * @return true if the value is the only one possible in the cell, or the cell is the only one where the value is
+     *         possible within one of its groups, false otherwise
+     */
+    private boolean isForced(int position, int value) {
+        int allValues = (1 << sideSize) - 1;
+
+        // Check whether all the other values are already taken in the groups of the cell
+        if ((usedValues(position) | (1 << (value - 1))) == allValues) {
+            return true;
+        }
+
+        // Check whether the other empty cells of a group can't take the value
+        for (int unit : cellUnits[position]) {
+            boolean onlyInUnit = true;
+
+            for (int cell : units[unit]) {
+                onlyInUnit &= cell == position || values[cell] != Sudoku.EMPTY_VALUE || !isLegal(cell, value);
+            }
+
+            if (onlyInUnit) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells whether a value can be placed into an empty cell without repeating it in any of its groups.
+     *
+     * @param position the position of the cell in row-major order
+     * @param value the value to check
+     *
+     * @return true if the value doesn't appear yet in any of the groups of the cell, false otherwise
+     */
+    private boolean isLegal(int position, int value) {
+        return (usedValues(position) & (1 << (value - 1))) == 0;
+    }
+
+    /**
+     * Gets the values already used in the groups of a cell.
+     *
+     * @param position the position of the cell in row-major order
+     *
+     * @return the bitmask of the values held by any of the groups of the cell
+     */
+    private int usedValues(int position) {
+        int used = 0;
+
+        for (int unit : cellUnits[position]) {
+            used |= unitMasks[unit];
+        }
+
+        return used;
+    }
+
+    /**
+     * Puts a value into a cell and marks it as used in the groups of the cell.
+     *
+     * @param position the position of the cell in row-major order
+     * @param value the value to put into the cell
+     */
+    private void setValue(int position, int value) {
+        int bit = 1 << (value - 1);
+
+        for (int unit : cellUnits[position]) {
+            unitMasks[unit] |= bit;
+        }
+
+        values[position] = value;
+    }
+
+    /**
+     * Empties a cell and releases its value in the groups of the cell.
+     *
+     * @param position the position of the cell in row-major order
+     */
+    private void clearValue(int position) {
+        int value = values[position];
+
+        if (value == Sudoku.EMPTY_VALUE) {
+            return;
+        }
+
+        int mask = ~(1 << (value - 1));
+
+        for (int unit : cellUnits[position]) {
+            unitMasks[unit] &= mask;
+        }
+
+        values[position] = Sudoku.EMPTY_VALUE;
+    }
+
+    /**
+     * Shuffles an array the same way {@link java.util.Collections#shuffle(java.util.List, Random)} does, so that boards
+     * generated from a given seed don't change.
+     *
+     * @param array the array to shuffle
+     * @param random the random number generator to use
+     */
+    static void shuffle(int[] array, Random random) {
+        for (int i = array.length; i > 1; i--) {
+            int j = random.nextInt(i);
+            int swap = array[i - 1];
+
+            array[i - 1] = array[j];
+            array[j] = swap;
+        }
+    }
+
+}
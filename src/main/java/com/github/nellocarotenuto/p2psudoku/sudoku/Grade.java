@@ -0,0 +1,62 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Models the difficulty rating of a puzzle.
+ */
+public class Grade implements Serializable {
+
+    private static final long serialVersionUID = 2394869120356475413L;
+
+    private final int score;
+    private final Difficulty difficulty;
+
+    /**
+     * Creates a new grade.
+     *
+     * @param score the sum of the scores of the steps taken to solve the puzzle
+     * @param difficulty the difficulty tier of the puzzle
+     */
+    public Grade(int score, Difficulty difficulty) {
+        this.score = score;
+        this.difficulty = difficulty;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        Grade grade = (Grade) object;
+        return score == grade.score && difficulty == grade.difficulty;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(score, difficulty);
+    }
+
+    @Override
+    public String toString() {
+        return "Grade{" +
+                "\n\tscore=" + score + "," +
+                "\n\tdifficulty=" + difficulty +
+                "\n}";
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Models the next logical step on a board: a value that can be placed into a cell and the technique that proves it.
+ */
+public class Hint implements Serializable {
+
+    private static final long serialVersionUID = 6150237913458861024L;
+
+    private final int row;
+    private final int column;
+    private final int value;
+    private final Technique technique;
+
+    /**
+     * Creates a new hint.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     * @param value the value that goes into the cell
+     * @param technique the hardest technique needed to find the value
+     */
+    public Hint(int row, int column, int value, Technique technique) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.technique = technique;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        Hint hint = (Hint) object;
+        return row == hint.row && column == hint.column && value == hint.value && technique == hint.technique;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(row, column, value, technique);
+    }
+
+    @Override
+    public String toString() {
+        return "Hint{" +
+                "\n\trow=" + row + "," +
+                "\n\tcolumn=" + column + "," +
+                "\n\tvalue=" + value + "," +
+                "\n\ttechnique=" + technique +
+                "\n}";
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Models the outcome of an import, counting the puzzles read by the reason they were accepted or rejected.
+ */
+public class ImportReport {
+
+    private final long read;
+    private final long accepted;
+    private final long malformed;
+    private final long conflicting;
+    private final long unsolvable;
+    private final long ambiguous;
+
+    /**
+     * Creates a new report.
+     *
+     * @param read the number of puzzles read, comments and blank lines excluded
+     * @param accepted the number of puzzles written, each with a single solution
+     * @param malformed the number of lines that don't describe a board
+     * @param conflicting the number of puzzles whose givens repeat a value in a row, column or region
+     * @param unsolvable the number of puzzles without any solution
+     * @param ambiguous the number of puzzles with more than one solution
+     */
+    public ImportReport(long read, long accepted, long malformed, long conflicting, long unsolvable, long ambiguous) {
+        this.read = read;
+        this.accepted = accepted;
+        this.malformed = malformed;
+        this.conflicting = conflicting;
+        this.unsolvable = unsolvable;
+        this.ambiguous = ambiguous;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public long getConflicting() {
+        return conflicting;
+    }
+
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    public long getAmbiguous() {
+        return ambiguous;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "\n\tread=" + read + "," +
+                "\n\taccepted=" + accepted + "," +
+                "\n\tmalformed=" + malformed + "," +
+                "\n\tconflicting=" + conflicting + "," +
+                "\n\tunsolvable=" + unsolvable + "," +
+                "\n\tambiguous=" + ambiguous +
+                "\n}";
+    }
+
+}
@@ -0,0 +1,687 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Solves Sudoku boards one step at a time using only the techniques a human player would use.
+ *
+ * Every empty cell keeps a bitmask of its candidates, where bit v - 1 stands for value v. Each call to
+ * {@link #step()} applies the simplest technique that makes some progress, either placing a value or removing
+ * candidates, so the sequence of techniques reflects how hard the board is for a person.
+ *
+ * The groups come from the {@link Constraints constraints} of the board, so the techniques working on any group also
+ * work on those added by the variants. Cages remove the values placed from the rest of the cage and restrict their
+ * cells to the combinations of values that add up to their sum.
+ *
+ * Instances are not thread safe and can be reused for any number of boards with the same constraints.
+ */
+class LogicalSolver {
+
+    private static final int EXPERT_SCORE_PER_CELL = 25;
+
+    private final Constraints constraints;
+    private final int sideSize;
+    private final int boardSize;
+    private final int allValues;
+
+    private final int[][] units;
+    private final int[][] cellUnits;
+    private final int[][] cages;
+    private final int[] cageSums;
+    private final int[] cellCages;
+
+    private final int[] values;
+    private final int[] candidates;
+    private final int[] positions;
+    private final int[] combinations;
+
+    private int emptyCells;
+    private int lastCell;
+    private int lastValue;
+
+    /**
+     * Prepares a solver for classic boards of a given size.
+     *
+     * @param sideSize the number of cells on each side of the board, must be a perfect square
+     */
+    LogicalSolver(int sideSize) {
+        this(Constraints.of(sideSize));
+    }
+
+    /**
+     * Prepares a solver for boards with the given constraints.
+     *
+     * @param constraints the groups and cages of the boards
+     */
+    LogicalSolver(Constraints constraints) {
+        this.constraints = constraints;
+        this.sideSize = constraints.getSideSize();
+        this.boardSize = sideSize * sideSize;
+        this.allValues = (1 << sideSize) - 1;
+
+        units = constraints.units();
+        cellUnits = constraints.cellUnits();
+        cages = constraints.cages();
+        cageSums = constraints.cageSums();
+        cellCages = constraints.cellCages();
+
+        values = new int[boardSize];
+        candidates = new int[boardSize];
+        positions = new int[sideSize];
+        combinations = new int[sideSize];
+    }
+
+    /**
+     * Gets the size of the boards handled.
+     *
+     * @return the number of cells on each side of the boards this instance can solve
+     */
+    int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Gets the constraints of the boards handled.
+     *
+     * @return the groups and cages of the boards this instance can solve
+     */
+    Constraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Loads a board and computes the candidates of its empty cells.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    void load(int[] board) throws InvalidNumberException {
+        emptyCells = boardSize;
+        lastCell = -1;
+        lastValue = Sudoku.EMPTY_VALUE;
+
+        for (int cell = 0; cell < boardSize; cell++) {
+            values[cell] = Sudoku.EMPTY_VALUE;
+            candidates[cell] = allValues;
+        }
+
+        for (int cell = 0; cell < boardSize; cell++) {
+            int value = board[cell];
+
+            if (value == Sudoku.EMPTY_VALUE) {
+                continue;
+            }
+
+            if (value < 1 || value > sideSize || (candidates[cell] & (1 << (value - 1))) == 0) {
+                throw new InvalidNumberException("Value " + value + " at cell " + cell / sideSize + ", " +
+                                                 cell % sideSize + " violates the constraints.");
+            }
+
+            place(cell, value);
+        }
+
+        // Check that the values of each cage don't exceed its sum, or match it once the cage is full
+        for (int cage = 0; cage < cages.length; cage++) {
+            int sum = 0;
+            int empty = 0;
+
+            for (int cell : cages[cage]) {
+                sum += values[cell];
+                empty += values[cell] == Sudoku.EMPTY_VALUE ? 1 : 0;
+            }
+
+            if (sum > cageSums[cage] || (empty == 0 && sum != cageSums[cage])) {
+                throw new InvalidNumberException("The values of cage " + cage + " don't add up to " + cageSums[cage] +
+                                                 ".");
+            }
+        }
+    }
+
+    /**
+     * Tells whether every cell of the board has a value.
+     *
+     * @return true if the board is solved, false otherwise
+     */
+    boolean isSolved() {
+        return emptyCells == 0;
+    }
+
+    /**
+     * Gets the number of cells still empty.
+     *
+     * @return the number of empty cells
+     */
+    int getEmptyCells() {
+        return emptyCells;
+    }
+
+    /**
+     * Gets the cell filled by the last step.
+     *
+     * @return the position in row-major order of the cell filled, -1 if the last step only removed candidates
+     */
+    int getLastCell() {
+        return lastCell;
+    }
+
+    /**
+     * Gets the value placed by the last step.
+     *
+     * @return the value placed, {@link Sudoku#EMPTY_VALUE} if the last step only removed candidates
+     */
+    int getLastValue() {
+        return lastValue;
+    }
+
+    /**
+     * Applies the simplest technique that makes progress on the board.
+     *
+     * @return the technique applied, null if none of the known techniques can make progress
+     */
+    Technique step() {
+        lastCell = -1;
+        lastValue = Sudoku.EMPTY_VALUE;
+
+        if (findHiddenSingle()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+
+        if (findNakedSingle()) {
+            return Technique.NAKED_SINGLE;
+        }
+
+        if (findCageCombinations()) {
+            return Technique.CAGE_COMBINATIONS;
+        }
+
+        if (findLockedCandidates()) {
+            return Technique.LOCKED_CANDIDATES;
+        }
+
+        if (findNakedPair()) {
+            return Technique.NAKED_PAIR;
+        }
+
+        if (findHiddenPair()) {
+            return Technique.HIDDEN_PAIR;
+        }
+
+        if (findXWing()) {
+            return Technique.X_WING;
+        }
+
+        return null;
+    }
+
+    /**
+     * Rates a board by solving it step by step.
+     *
+     * Boards that can't be completed with the known techniques, including those with more than one solution, are rated
+     * as {@link Difficulty#EXPERT} and get a fixed score for every cell left empty.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     *
+     * @return the grade of the board
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    Grade grade(int[] board) throws InvalidNumberException {
+        load(board);
+
+        int score = 0;
+        Difficulty difficulty = Difficulty.EASY;
+
+        while (!isSolved()) {
+            Technique technique = step();
+
+            if (technique == null) {
+                return new Grade(score + emptyCells * EXPERT_SCORE_PER_CELL, Difficulty.EXPERT);
+            }
+
+            score += technique.getScore();
+
+            if (technique.getDifficulty().compareTo(difficulty) > 0) {
+                difficulty = technique.getDifficulty();
+            }
+        }
+
+        return new Grade(score, difficulty);
+    }
+
+    /**
+     * Finds the next value that can be placed on a board, applying techniques until one fills a cell.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     *
+     * @return the first value placed along with the hardest technique needed to get to it, null if the board is solved
+     *         or the known techniques can't fill any cell
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    Hint hint(int[] board) throws InvalidNumberException {
+        load(board);
+
+        Technique hardest = null;
+
+        while (!isSolved()) {
+            Technique technique = step();
+
+            if (technique == null) {
+                return null;
+            }
+
+            if (hardest == null || technique.getScore() > hardest.getScore()) {
+                hardest = technique;
+            }
+
+            if (lastCell != -1) {
+                return new Hint(lastCell / sideSize, lastCell % sideSize, lastValue, hardest);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Puts a value into a cell and removes it from the candidates of the cells sharing a group with it.
+     *
+     * @param cell the position of the cell in row-major order
+     * @param value the value to put into the cell
+     */
+    private void place(int cell, int value) {
+        int mask = ~(1 << (value - 1));
+
+        values[cell] = value;
+        candidates[cell] = 0;
+        emptyCells--;
+
+        for (int unit : cellUnits[cell]) {
+            for (int peer : units[unit]) {
+                candidates[peer] &= mask;
+            }
+        }
+
+        if (cellCages != null && cellCages[cell] >= 0) {
+            for (int peer : cages[cellCages[cell]]) {
+                candidates[peer] &= mask;
+            }
+        }
+
+        lastCell = cell;
+        lastValue = value;
+    }
+
+    /**
+     * Looks for a value that fits in just one cell of a group and places it.
+     *
+     * @return true if a value has been placed, false otherwise
+     */
+    private boolean findHiddenSingle() {
+        for (int[] unit : units) {
+            int once = 0;
+            int twice = 0;
+
+            for (int cell : unit) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+
+            int singles = once & ~twice;
+
+            if (singles != 0) {
+                int bit = Integer.lowestOneBit(singles);
+
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for a cell with a single candidate left and places it.
+     *
+     * @return true if a value has been placed, false otherwise
+     */
+    private boolean findNakedSingle() {
+        for (int cell = 0; cell < boardSize; cell++) {
+            int mask = candidates[cell];
+
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                place(cell, Integer.numberOfTrailingZeros(mask) + 1);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for candidates of the cells of a cage that don't belong to any combination of distinct values adding up to
+     * the sum of the cage and removes them.
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean findCageCombinations() {
+        for (int cage = 0; cage < cages.length; cage++) {
+            int[] cells = cages[cage];
+            int used = 0;
+            int missing = cageSums[cage];
+
+            for (int index = 0; index < cells.length; index++) {
+                int value = values[cells[index]];
+
+                combinations[index] = 0;
+
+                if (value != Sudoku.EMPTY_VALUE) {
+                    used |= 1 << (value - 1);
+                    missing -= value;
+                }
+            }
+
+            if (!combine(cells, 0, used, missing)) {
+                continue;
+            }
+
+            boolean removed = false;
+
+            for (int index = 0; index < cells.length; index++) {
+                int cell = cells[index];
+
+                if (values[cell] == Sudoku.EMPTY_VALUE && (candidates[cell] & ~combinations[index]) != 0) {
+                    candidates[cell] &= combinations[index];
+                    removed = true;
+                }
+            }
+
+            if (removed) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tries every candidate of the empty cells of a cage from a given one on, recording those that lead to the sum.
+     *
+     * @param cells the cells of the cage
+     * @param index the index of the first cell of the cage to fill
+     * @param used the bitmask of the values already in the cage
+     * @param missing the amount the values of the cells left must add up to
+     *
+     * @return true if the cells left can be filled with distinct values adding up to the amount missing, false otherwise
+     */
+    private boolean combine(int[] cells, int index, int used, int missing) {
+        while (index < cells.length && values[cells[index]] != Sudoku.EMPTY_VALUE) {
+            index++;
+        }
+
+        if (index == cells.length) {
+            return missing == 0;
+        }
+
+        boolean found = false;
+
+        for (int mask = candidates[cells[index]] & ~used; mask != 0; mask &= mask - 1) {
+            int bit = Integer.lowestOneBit(mask);
+            int value = Integer.numberOfTrailingZeros(bit) + 1;
+
+            if (value <= missing && combine(cells, index + 1, used | bit, missing - value)) {
+                combinations[index] |= bit;
+                found = true;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Looks for the candidates of a value that lie in the intersection of two groups only and removes the value from
+     * the rest of the other group.
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean findLockedCandidates() {
+        for (int unit = 0; unit < units.length; unit++) {
+            for (int bit = 1; bit <= allValues; bit <<= 1) {
+                // Pointing: the candidates of a region on a single row or column
+                // Claiming: the candidates of any other group in a single region
+                for (int kind = 0; kind < 3; kind++) {
+                    if (kind == unitKind(unit) || (unitKind(unit) != 2 && kind != 2)) {
+                        continue;
+                    }
+
+                    int target = -1;
+
+                    for (int cell : units[unit]) {
+                        if ((candidates[cell] & bit) == 0) {
+                            continue;
+                        }
+
+                        if (target == -1) {
+                            target = cellUnits[cell][kind];
+                        } else if (target != cellUnits[cell][kind]) {
+                            target = -2;
+                            break;
+                        }
+                    }
+
+                    if (target >= 0 && removeOutside(units[target], unit, bit)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for two cells of a group with the same two candidates and removes them from the rest of the group.
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean findNakedPair() {
+        for (int[] unit : units) {
+            for (int i = 0; i < unit.length; i++) {
+                int mask = candidates[unit[i]];
+
+                if (Integer.bitCount(mask) != 2) {
+                    continue;
+                }
+
+                for (int j = i + 1; j < unit.length; j++) {
+                    if (candidates[unit[j]] != mask) {
+                        continue;
+                    }
+
+                    boolean removed = false;
+
+                    for (int k = 0; k < unit.length; k++) {
+                        int cell = unit[k];
+
+                        if (k != i && k != j && (candidates[cell] & mask) != 0) {
+                            candidates[cell] &= ~mask;
+                            removed = true;
+                        }
+                    }
+
+                    if (removed) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for two values that fit in the same two cells of a group only and removes any other candidate from them.
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean findHiddenPair() {
+        for (int[] unit : units) {
+            for (int value = 0; value < sideSize; value++) {
+                int bit = 1 << value;
+                int cells = 0;
+
+                for (int index = 0; index < unit.length; index++) {
+                    if ((candidates[unit[index]] & bit) != 0) {
+                        cells |= 1 << index;
+                    }
+                }
+
+                positions[value] = cells;
+            }
+
+            for (int first = 0; first < sideSize; first++) {
+                if (Integer.bitCount(positions[first]) != 2) {
+                    continue;
+                }
+
+                for (int second = first + 1; second < sideSize; second++) {
+                    if (positions[second] != positions[first]) {
+                        continue;
+                    }
+
+                    int mask = (1 << first) | (1 << second);
+                    boolean removed = false;
+
+                    for (int index = 0; index < unit.length; index++) {
+                        int cell = unit[index];
+
+                        if ((positions[first] & (1 << index)) != 0 && (candidates[cell] & ~mask) != 0) {
+                            candidates[cell] &= mask;
+                            removed = true;
+                        }
+                    }
+
+                    if (removed) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Looks for two rows (or columns) where a value fits in the same two columns (or rows) only and removes the value
+     * from the rest of those columns (or rows).
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean findXWing() {
+        for (int kind = 0; kind < 2; kind++) {
+            int offset = kind * sideSize;
+            int crossOffset = (1 - kind) * sideSize;
+
+            for (int bit = 1; bit <= allValues; bit <<= 1) {
+                for (int line = 0; line < sideSize; line++) {
+                    positions[line] = 0;
+
+                    for (int index = 0; index < sideSize; index++) {
+                        if ((candidates[units[offset + line][index]] & bit) != 0) {
+                            positions[line] |= 1 << index;
+                        }
+                    }
+                }
+
+                for (int first = 0; first < sideSize; first++) {
+                    if (Integer.bitCount(positions[first]) != 2) {
+                        continue;
+                    }
+
+                    for (int second = first + 1; second < sideSize; second++) {
+                        if (positions[second] != positions[first]) {
+                            continue;
+                        }
+
+                        boolean removed = false;
+
+                        for (int cross = 0; cross < sideSize; cross++) {
+                            if ((positions[first] & (1 << cross)) == 0) {
+                                continue;
+                            }
+
+                            for (int index = 0; index < sideSize; index++) {
+                                int cell = units[crossOffset + cross][index];
+
+                                if (index != first && index != second && (candidates[cell] & bit) != 0) {
+                                    candidates[cell] &= ~bit;
+                                    removed = true;
+                                }
+                            }
+                        }
+
+                        if (removed) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes a value from the candidates of the cells of a group that don't belong to another group.
+     *
+     * @param unit the cells of the group to remove the value from
+     * @param excluded the index of the group whose cells keep the value
+     * @param bit the mask of the value to remove
+     *
+     * @return true if any candidate has been removed, false otherwise
+     */
+    private boolean removeOutside(int[] unit, int excluded, int bit) {
+        boolean removed = false;
+
+        for (int cell : unit) {
+            if (!belongs(cell, excluded) && (candidates[cell] & bit) != 0) {
+                candidates[cell] &= ~bit;
+                removed = true;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Tells whether a cell is part of a group.
+     *
+     * @param cell the position of the cell in row-major order
+     * @param unit the index of the group
+     *
+     * @return true if the group is one of the groups of the cell, false otherwise
+     */
+    private boolean belongs(int cell, int unit) {
+        for (int index : cellUnits[cell]) {
+            if (index == unit) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Tells the kind of a group.
+     *
+     * @param unit the index of the group
+     *
+     * @return 0 for rows, 1 for columns, 2 for regions and more for the groups added by the variants
+     */
+    private int unitKind(int unit) {
+        return unit / sideSize;
+    }
+
+}
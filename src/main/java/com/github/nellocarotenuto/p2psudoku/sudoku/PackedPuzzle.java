@@ -0,0 +1,46 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Models a puzzle read from a pack, along with the seed it was generated from and its difficulty.
+ */
+public class PackedPuzzle {
+
+    private final int seed;
+    private final Puzzle puzzle;
+    private final Difficulty difficulty;
+
+    /**
+     * Creates a new packed puzzle.
+     *
+     * @param seed the seed the puzzle was generated from
+     * @param puzzle the clues and the solution of the puzzle
+     * @param difficulty the difficulty of the puzzle
+     */
+    public PackedPuzzle(int seed, Puzzle puzzle, Difficulty difficulty) {
+        this.seed = seed;
+        this.puzzle = puzzle;
+        this.difficulty = difficulty;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedPuzzle{" +
+                "\n\tseed=" + seed + "," +
+                "\n\tclues=" + puzzle.countClues() + "," +
+                "\n\tdifficulty=" + difficulty +
+                "\n}";
+    }
+
+}
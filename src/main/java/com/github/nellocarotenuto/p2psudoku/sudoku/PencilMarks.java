@@ -0,0 +1,151 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Keeps the candidates of every cell of a board, that is the values not yet used in any of its groups or its cage.
+ *
+ * Candidates are stored as a bitmask per cell, where bit v - 1 stands for value v, and filled cells have none. They are
+ * computed once when the marks are created and then updated as values are placed, touching only the peers of the cell
+ * filled, so reading them costs nothing however often it happens. The groups come from the
+ * {@link Constraints constraints} of the board, so the variants only add peers to update.
+ *
+ * Instances are not thread safe.
+ */
+public class PencilMarks {
+
+    private final int sideSize;
+    private final int[][] units;
+    private final int[][] cellUnits;
+    private final int[][] cages;
+    private final int[] cellCages;
+    private final int[] candidates;
+
+    /**
+     * Creates the marks of a classic board.
+     *
+     * @param board the matrix representation of the board, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     */
+    public PencilMarks(Integer[][] board) {
+        this(board, Constraints.of(board.length));
+    }
+
+    /**
+     * Creates the marks of a board.
+     *
+     * @param board the matrix representation of the board, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param constraints the groups and cages of the board
+     */
+    public PencilMarks(Integer[][] board, Constraints constraints) {
+        this(constraints);
+
+        if (board.length != sideSize) {
+            throw new IllegalArgumentException("Expected a board with a side of " + sideSize + " cells, got " +
+                                               board.length + ".");
+        }
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                if (board[row][column] != Sudoku.EMPTY_VALUE) {
+                    place(row, column, board[row][column]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the marks of a board.
+     *
+     * @param constraints the groups and cages of the board
+     * @param values the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     */
+    PencilMarks(Constraints constraints, byte[] values) {
+        this(constraints);
+
+        for (int position = 0; position < values.length; position++) {
+            if (values[position] != Sudoku.EMPTY_VALUE) {
+                place(position / sideSize, position % sideSize, values[position]);
+            }
+        }
+    }
+
+    /**
+     * Creates the marks of an empty board, where every value is a candidate for every cell.
+     *
+     * @param constraints the groups and cages of the board
+     */
+    private PencilMarks(Constraints constraints) {
+        this.sideSize = constraints.getSideSize();
+        this.units = constraints.units();
+        this.cellUnits = constraints.cellUnits();
+        this.cages = constraints.cages();
+        this.cellCages = constraints.cellCages();
+        this.candidates = new int[sideSize * sideSize];
+
+        int allValues = (1 << sideSize) - 1;
+
+        for (int position = 0; position < candidates.length; position++) {
+            candidates[position] = allValues;
+        }
+    }
+
+    /**
+     * Records a value placed into a cell, removing it from the candidates of the cells sharing a group or the cage with
+     * it.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     * @param value the value placed
+     */
+    public void place(int row, int column, int value) {
+        int mask = ~(1 << (value - 1));
+        int position = row * sideSize + column;
+
+        for (int unit : cellUnits[position]) {
+            for (int peer : units[unit]) {
+                candidates[peer] &= mask;
+            }
+        }
+
+        if (cellCages != null && cellCages[position] >= 0) {
+            for (int peer : cages[cellCages[position]]) {
+                candidates[peer] &= mask;
+            }
+        }
+
+        candidates[position] = 0;
+    }
+
+    /**
+     * Gets the candidates of a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values allowed in the cell, where bit v - 1 stands for value v, 0 if the cell is filled
+     */
+    public int getCandidates(int row, int column) {
+        return candidates[row * sideSize + column];
+    }
+
+    /**
+     * Tells whether a value is a candidate for a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     * @param value the value to check
+     *
+     * @return true if the cell is empty and the value isn't used yet in any of its groups or its cage, false otherwise
+     */
+    public boolean isCandidate(int row, int column, int value) {
+        return (candidates[row * sideSize + column] & (1 << (value - 1))) != 0;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Defines the outcomes of placing a number into a cell of a board.
+ */
+public enum PlacementResult {
+
+    /**
+     * The number was right and has been put into the cell.
+     */
+    PLACED,
+
+    /**
+     * The number was right but another player had already found it, so it only went into the board of the player.
+     * Only reported by boards shared among players.
+     */
+    ALREADY_GUESSED,
+
+    /**
+     * The cell already holds a value placed earlier.
+     */
+    FILLED,
+
+    /**
+     * The cell holds a clue of the puzzle.
+     */
+    FIXED,
+
+    /**
+     * The number doesn't fit into the cell.
+     */
+    WRONG
+
+}
@@ -0,0 +1,238 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Models an immutable puzzle: the clues given to the players and the solution they lead to, along with the variants of
+ * the board and, for killer boards, the layout of the cages.
+ */
+public final class Puzzle implements Serializable {
+
+    private static final long serialVersionUID = 4630917265029416287L;
+
+    private final int sideSize;
+    private final byte[] clues;
+    private final byte[] solution;
+    private final int variants;
+    private final byte[] cages;
+
+    private transient Constraints constraints;
+
+    /**
+     * Creates a new puzzle.
+     *
+     * @param clues the matrix representation of the clues, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param solution the matrix representation of the solution
+     */
+    public Puzzle(Integer[][] clues, Integer[][] solution) {
+        this(clues.length, toBytes(clues), toBytes(solution));
+
+        for (int position = 0; position < this.clues.length; position++) {
+            if (this.clues[position] != Sudoku.EMPTY_VALUE && this.clues[position] != this.solution[position]) {
+                throw new IllegalArgumentException("The clues don't match the solution.");
+            }
+        }
+    }
+
+    /**
+     * Creates a new puzzle taking ownership of the arrays passed, which must not be modified afterwards.
+     *
+     * @param sideSize the number of cells on each side of the board
+     * @param clues the values of the clues in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param solution the values of the solution in row-major order
+     */
+    Puzzle(int sideSize, byte[] clues, byte[] solution) {
+        this(sideSize, clues, solution, 0, null);
+    }
+
+    /**
+     * Creates a new puzzle with some variants taking ownership of the arrays passed, which must not be modified
+     * afterwards.
+     *
+     * @param sideSize the number of cells on each side of the board
+     * @param clues the values of the clues in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param solution the values of the solution in row-major order
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     * @param cages the cage of each cell in row-major order, numbered from 1, null unless the board is a killer one
+     */
+    Puzzle(int sideSize, byte[] clues, byte[] solution, int variants, byte[] cages) {
+        if (clues.length != sideSize * sideSize || solution.length != sideSize * sideSize) {
+            throw new IllegalArgumentException("Expected " + sideSize * sideSize + " values for the clues and the " +
+                                               "solution.");
+        }
+
+        if (Constraints.has(variants, Variant.KILLER) != (cages != null)) {
+            throw new IllegalArgumentException("Killer puzzles, and only those, must have cages.");
+        }
+
+        Constraints.checkVariants(sideSize, variants);
+
+        this.sideSize = sideSize;
+        this.clues = clues;
+        this.solution = solution;
+        this.variants = variants;
+        this.cages = cages;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Gets the clue given for a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the value given for the cell, {@link Sudoku#EMPTY_VALUE} if the cell is to be filled by the players
+     */
+    public int getClue(int row, int column) {
+        return clues[row * sideSize + column];
+    }
+
+    /**
+     * Gets the correct value for a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the value of the cell in the solution
+     */
+    public int getSolution(int row, int column) {
+        return solution[row * sideSize + column];
+    }
+
+    /**
+     * Gets the variants of the board.
+     *
+     * @return the variants whose constraints the board adds to those of its rows, columns and regions
+     */
+    public Set<Variant> getVariants() {
+        return getConstraints().getVariants();
+    }
+
+    /**
+     * Gets the constraints of the board, building them on first use.
+     *
+     * @return the groups of the board and its cages, if any
+     */
+    public Constraints getConstraints() {
+        if (constraints == null) {
+            Constraints groups = Constraints.of(sideSize, variants);
+            constraints = cages == null ? groups : groups.withCages(cages, solution);
+        }
+
+        return constraints;
+    }
+
+    /**
+     * Counts the clues of the puzzle.
+     *
+     * @return the number of cells with a value given
+     */
+    public int countClues() {
+        int count = 0;
+
+        for (byte clue : clues) {
+            if (clue != Sudoku.EMPTY_VALUE) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the clues without copying them, for the classes of this package only.
+     *
+     * @return the values of the clues in row-major order, not to be modified
+     */
+    byte[] clues() {
+        return clues;
+    }
+
+    /**
+     * Gets the solution without copying it, for the classes of this package only.
+     *
+     * @return the values of the solution in row-major order, not to be modified
+     */
+    byte[] solution() {
+        return solution;
+    }
+
+    /**
+     * Gets the bitmask of the variants of the board, for the classes of this package only.
+     *
+     * @return the bitmask where bit i stands for the variant of ordinal i
+     */
+    int variants() {
+        return variants;
+    }
+
+    /**
+     * Gets the layout of the cages without copying it, for the classes of this package only.
+     *
+     * @return the cage of each cell in row-major order, numbered from 1, null unless the board is a killer one
+     */
+    byte[] cages() {
+        return cages;
+    }
+
+    /**
+     * Copies a square matrix into an array in row-major order.
+     *
+     * @param matrix the matrix to copy
+     *
+     * @return the values of the matrix in row-major order
+     */
+    private static byte[] toBytes(Integer[][] matrix) {
+        int sideSize = matrix.length;
+        byte[] values = new byte[sideSize * sideSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                values[row * sideSize + column] = (byte) (int) matrix[row][column];
+            }
+        }
+
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+
+        Puzzle puzzle = (Puzzle) object;
+        return sideSize == puzzle.sideSize && variants == puzzle.variants && Arrays.equals(clues, puzzle.clues) &&
+               Arrays.equals(solution, puzzle.solution) && Arrays.equals(cages, puzzle.cages);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * Arrays.hashCode(clues) + Arrays.hashCode(solution)) + variants) +
+               Arrays.hashCode(cages);
+    }
+
+    @Override
+    public String toString() {
+        return "Puzzle{" +
+                "\n\tsideSize=" + sideSize + "," +
+                "\n\tvariants=" + getVariants() + "," +
+                "\n\tclues=" + countClues() +
+                "\n}";
+    }
+
+}
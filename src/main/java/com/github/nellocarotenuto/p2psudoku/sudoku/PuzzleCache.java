@@ -0,0 +1,185 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Keeps the puzzles generated from the most recently used seeds, so that boards requested again aren't regenerated.
+ *
+ * Generation from a seed is deterministic, hence the puzzle stored for a seed is the one any later request would get.
+ * Puzzles are generated outside the lock, so concurrent misses on the same seed may generate it twice.
+ */
+public class PuzzleCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final PuzzleCache shared = new PuzzleCache(DEFAULT_CAPACITY);
+
+    private final LinkedHashMap<Long, Puzzle> puzzles;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new empty cache.
+     *
+     * @param capacity the maximum number of puzzles to keep, after which the least recently used ones are evicted
+     */
+    public PuzzleCache(int capacity) {
+        puzzles = new LinkedHashMap<Long, Puzzle>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -3153263186413734916L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Puzzle> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache used by every board generated from a seed.
+     *
+     * @return the cache shared by the whole application
+     */
+    public static PuzzleCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Gets the classic size puzzle for a seed, generating it if it isn't in the cache.
+     *
+     * @param seed the seed of the puzzle
+     * @param mode the strategy used to remove clues from the complete board
+     *
+     * @return the puzzle generated from the seed with the given mode
+     */
+    public Puzzle get(int seed, GenerationMode mode) {
+        return get(seed, Sudoku.SIDE_SIZE, mode);
+    }
+
+    /**
+     * Gets the puzzle for a seed, generating it if it isn't in the cache.
+     *
+     * @param seed the seed of the puzzle
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy used to remove clues from the complete board
+     *
+     * @return the puzzle generated from the seed with the given size and mode
+     */
+    public Puzzle get(int seed, int sideSize, GenerationMode mode) {
+        return get(seed, sideSize, mode, EnumSet.noneOf(Variant.class));
+    }
+
+    /**
+     * Gets the puzzle with some variants for a seed, generating it if it isn't in the cache.
+     *
+     * @param seed the seed of the puzzle
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy used to remove clues from the complete board
+     * @param variants the variants whose constraints the board adds to those of its rows, columns and regions
+     *
+     * @return the puzzle generated from the seed with the given size, mode and variants
+     *
+     * @throws IllegalArgumentException if the board is too large for variants or the mode doesn't support them
+     */
+    public Puzzle get(int seed, int sideSize, GenerationMode mode, Set<Variant> variants) {
+        return get(seed, sideSize, mode, Constraints.mask(variants));
+    }
+
+    /**
+     * Gets the puzzle with some variants for a seed, generating it if it isn't in the cache.
+     *
+     * @param seed the seed of the puzzle
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy used to remove clues from the complete board
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     *
+     * @return the puzzle generated from the seed with the given size, mode and variants
+     *
+     * @throws IllegalArgumentException if the board is too large for variants or the mode doesn't support them
+     */
+    Puzzle get(int seed, int sideSize, GenerationMode mode, int variants) {
+        Long key = key(seed, sideSize, mode, variants);
+
+        synchronized (puzzles) {
+            Puzzle puzzle = puzzles.get(key);
+
+            if (puzzle != null) {
+                hits++;
+                return puzzle;
+            }
+
+            misses++;
+        }
+
+        Puzzle puzzle = Sudoku.generate(new Random(seed), sideSize, mode, variants);
+
+        synchronized (puzzles) {
+            puzzles.put(key, puzzle);
+        }
+
+        return puzzle;
+    }
+
+    /**
+     * Gets the number of requests served from the cache.
+     *
+     * @return the number of hits since the creation of the cache
+     */
+    public long getHits() {
+        synchronized (puzzles) {
+            return hits;
+        }
+    }
+
+    /**
+     * Gets the number of requests that required a generation.
+     *
+     * @return the number of misses since the creation of the cache
+     */
+    public long getMisses() {
+        synchronized (puzzles) {
+            return misses;
+        }
+    }
+
+    /**
+     * Gets the number of puzzles in the cache.
+     *
+     * @return the number of puzzles currently kept
+     */
+    public int size() {
+        synchronized (puzzles) {
+            return puzzles.size();
+        }
+    }
+
+    /**
+     * Removes every puzzle from the cache, leaving the counters untouched.
+     */
+    public void clear() {
+        synchronized (puzzles) {
+            puzzles.clear();
+        }
+    }
+
+    /**
+     * Combines the parameters of a generation into a key.
+     *
+     * @param seed the seed of the puzzle
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy used to remove clues from the complete board
+     * @param variants the bitmask of the variants of the board
+     *
+     * @return the key of the puzzle in the cache
+     */
+    private static Long key(int seed, int sideSize, GenerationMode mode, int variants) {
+        return ((long) variants << 48) | ((long) sideSize << 40) | ((long) mode.ordinal() << 32) |
+               (seed & 0xffffffffL);
+    }
+
+}
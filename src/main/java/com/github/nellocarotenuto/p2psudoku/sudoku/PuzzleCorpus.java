@@ -0,0 +1,479 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Serves puzzles from a read-only corpus file mapped into memory, indexed by difficulty and seed.
+ *
+ * A corpus is built once from a {@link PuzzlePack pack}. It starts with a header made of the {@link #MAGIC} number, the
+ * {@link #VERSION} of the format, the side size of its boards and the number of puzzles of each {@link Difficulty}.
+ * The records follow in the same format as in packs, grouped by difficulty from the easiest and sorted by seed within
+ * each group. Any record can then be located from its difficulty and index in constant time, or from its seed with a
+ * binary search, reading only the bytes of the records involved: the heap usage doesn't depend on the size of the
+ * corpus.
+ *
+ * Files larger than 2 GB are mapped in several segments, each holding a whole number of records. Instances are thread
+ * safe.
+ */
+public class PuzzleCorpus implements AutoCloseable {
+
+    public static final int MAGIC = 0x53504b43;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 6 + Long.BYTES * Difficulty.values().length;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int sideSize;
+    private final int recordSize;
+    private final long recordsPerSegment;
+    private final long[] counts;
+    private final long[] firsts;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Maps a corpus into memory.
+     *
+     * @param channel the channel of the corpus file, closed along with the corpus
+     * @param mode the mode to map the file with
+     *
+     * @throws IOException if the header can't be read or doesn't describe a supported corpus
+     */
+    private PuzzleCorpus(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+        this.channel = channel;
+
+        // Read the header
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("The file doesn't contain a puzzle corpus.");
+            }
+        }
+
+        header.flip();
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException("The file doesn't contain a puzzle corpus.");
+        }
+
+        int version = header.get() & 0xff;
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported puzzle corpus version " + version + ".");
+        }
+
+        sideSize = header.get() & 0xff;
+
+        try {
+            Sudoku.checkSideSize(sideSize);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid side size in the puzzle corpus.", e);
+        }
+
+        recordSize = PuzzlePack.recordSize(sideSize);
+        counts = new long[Difficulty.values().length];
+        firsts = new long[counts.length];
+
+        long records = 0;
+
+        for (int tier = 0; tier < counts.length; tier++) {
+            counts[tier] = header.getLong();
+            firsts[tier] = records;
+            records += counts[tier];
+        }
+
+        if (channel.size() != HEADER_SIZE + records * recordSize) {
+            throw new IOException("The puzzle corpus is truncated.");
+        }
+
+        // Map the records in segments of whole records
+        recordsPerSegment = Integer.MAX_VALUE / recordSize;
+        segments = new MappedByteBuffer[(int) ((records + recordsPerSegment - 1) / recordsPerSegment)];
+
+        for (int segment = 0; segment < segments.length; segment++) {
+            long first = segment * recordsPerSegment;
+            long size = Math.min(recordsPerSegment, records - first) * recordSize;
+
+            segments[segment] = channel.map(mode, HEADER_SIZE + first * recordSize, size);
+        }
+    }
+
+    /**
+     * Opens a corpus for reading.
+     *
+     * @param path the path of the corpus file
+     *
+     * @return the corpus opened
+     *
+     * @throws IOException if the file can't be opened or doesn't contain a supported corpus
+     */
+    public static PuzzleCorpus open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return new PuzzleCorpus(channel, FileChannel.MapMode.READ_ONLY);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds a corpus from a pack, replacing any file at the destination.
+     *
+     * The pack is read twice, first to count the puzzles of each difficulty and then to copy them to their group, which
+     * is sorted in place afterwards. Only a small buffer for each difficulty is kept in memory. Every record is decoded
+     * while counting, so that a corpus never holds a puzzle that can't be served.
+     *
+     * @param pack the path of the pack to read the puzzles from
+     * @param path the path of the corpus file to write
+     *
+     * @throws IOException if the pack can't be read, holds an invalid puzzle or the corpus can't be written
+     */
+    public static void build(Path pack, Path path) throws IOException {
+        int tiers = Difficulty.values().length;
+        long[] counts = new long[tiers];
+        int sideSize;
+
+        // Count the puzzles of each difficulty
+        try (PuzzlePackReader reader = new PuzzlePackReader(Files.newInputStream(pack))) {
+            sideSize = reader.getSideSize();
+            byte[] record = new byte[PuzzlePack.recordSize(sideSize)];
+
+            while (reader.read(record)) {
+                PuzzlePack.decodePuzzle(record, 0, sideSize);
+                counts[PuzzlePack.decodeDifficulty(record, 0).ordinal()]++;
+            }
+        }
+
+        int recordSize = PuzzlePack.recordSize(sideSize);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Write the header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put((byte) VERSION).put((byte) sideSize);
+
+            for (long count : counts) {
+                header.putLong(count);
+            }
+
+            header.flip();
+            write(channel, header, 0);
+
+            // Copy each record to the group of its difficulty
+            long[] positions = new long[tiers];
+            ByteBuffer[] buffers = new ByteBuffer[tiers];
+            long position = HEADER_SIZE;
+
+            for (int tier = 0; tier < tiers; tier++) {
+                positions[tier] = position;
+                buffers[tier] = ByteBuffer.allocate(BUFFER_SIZE / recordSize * recordSize);
+                position += counts[tier] * recordSize;
+            }
+
+            try (PuzzlePackReader reader = new PuzzlePackReader(Files.newInputStream(pack))) {
+                byte[] record = new byte[recordSize];
+
+                while (reader.read(record)) {
+                    int tier = PuzzlePack.decodeDifficulty(record, 0).ordinal();
+
+                    if (buffers[tier].remaining() < recordSize) {
+                        positions[tier] += flush(channel, buffers[tier], positions[tier]);
+                    }
+
+                    buffers[tier].put(record);
+                }
+            }
+
+            for (int tier = 0; tier < tiers; tier++) {
+                flush(channel, buffers[tier], positions[tier]);
+            }
+
+            // Sort each group by seed
+            PuzzleCorpus corpus = new PuzzleCorpus(channel, FileChannel.MapMode.READ_WRITE);
+
+            for (int tier = 0; tier < tiers; tier++) {
+                corpus.sort(corpus.firsts[tier], corpus.counts[tier]);
+            }
+
+            for (MappedByteBuffer segment : corpus.segments) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the boards in the corpus.
+     *
+     * @return the number of cells on each side of the boards
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Gets the number of puzzles in the corpus.
+     *
+     * @return the number of puzzles of any difficulty
+     */
+    public long size() {
+        long size = 0;
+
+        for (long count : counts) {
+            size += count;
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the number of puzzles of a given difficulty in the corpus.
+     *
+     * @param difficulty the difficulty of the puzzles to count
+     *
+     * @return the number of puzzles of the given difficulty
+     */
+    public long size(Difficulty difficulty) {
+        return counts[difficulty.ordinal()];
+    }
+
+    /**
+     * Gets a puzzle of a given difficulty.
+     *
+     * @param difficulty the difficulty of the puzzle
+     * @param index the index of the puzzle among those of the same difficulty, which are sorted by seed
+     *
+     * @return the puzzle at the given index
+     *
+     * @throws IndexOutOfBoundsException if the index doesn't identify a puzzle of the given difficulty
+     * @throws UncheckedIOException if the record of the puzzle has been corrupted since the corpus was built
+     */
+    public PackedPuzzle get(Difficulty difficulty, long index) {
+        int tier = difficulty.ordinal();
+
+        if (index < 0 || index >= counts[tier]) {
+            throw new IndexOutOfBoundsException("No " + difficulty + " puzzle at index " + index + ".");
+        }
+
+        byte[] record = new byte[recordSize];
+        read(firsts[tier] + index, record);
+
+        try {
+            return new PackedPuzzle(PuzzlePack.decodeSeed(record, 0),
+                                    PuzzlePack.decodePuzzle(record, 0, sideSize),
+                                    difficulty);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The puzzle corpus is corrupted.", e);
+        }
+    }
+
+    /**
+     * Draws a random puzzle of a given difficulty.
+     *
+     * @param difficulty the difficulty of the puzzle
+     * @param random the random number generator to pick the puzzle with
+     *
+     * @return a puzzle of the given difficulty
+     *
+     * @throws IllegalStateException if the corpus has no puzzle of the given difficulty
+     * @throws UncheckedIOException if the record of the puzzle has been corrupted since the corpus was built
+     */
+    public PackedPuzzle draw(Difficulty difficulty, Random random) {
+        long count = counts[difficulty.ordinal()];
+
+        if (count == 0) {
+            throw new IllegalStateException("The corpus has no " + difficulty + " puzzle.");
+        }
+
+        return get(difficulty, Math.floorMod(random.nextLong(), count));
+    }
+
+    /**
+     * Finds the puzzle generated from a given seed.
+     *
+     * @param seed the seed of the puzzle
+     *
+     * @return the puzzle generated from the seed, null if the corpus doesn't have any
+     */
+    public PackedPuzzle find(int seed) {
+        for (Difficulty difficulty : Difficulty.values()) {
+            int tier = difficulty.ordinal();
+            long low = firsts[tier];
+            long high = low + counts[tier];
+
+            // Find the first record with a seed not lower than the one requested
+            while (low < high) {
+                long middle = (low + high) >>> 1;
+
+                if (seedAt(middle) < seed) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            if (low < firsts[tier] + counts[tier] && seedAt(low) == seed) {
+                return get(difficulty, low - firsts[tier]);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Closes the corpus file.
+     *
+     * The mapped records are released once the corpus is no longer referenced.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the seed of a record.
+     *
+     * @param index the index of the record in the corpus
+     *
+     * @return the seed the puzzle of the record was generated from
+     */
+    private int seedAt(long index) {
+        return segments[(int) (index / recordsPerSegment)].getInt((int) (index % recordsPerSegment) * recordSize);
+    }
+
+    /**
+     * Copies a record out of the corpus.
+     *
+     * @param index the index of the record in the corpus
+     * @param record the buffer to copy the record into
+     */
+    private void read(long index, byte[] record) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        int offset = (int) (index % recordsPerSegment) * recordSize;
+
+        for (int i = 0; i < recordSize; i++) {
+            record[i] = segment.get(offset + i);
+        }
+    }
+
+    /**
+     * Copies a record into the corpus, which must be mapped for writing.
+     *
+     * @param index the index of the record in the corpus
+     * @param record the buffer holding the record
+     */
+    private void write(long index, byte[] record) {
+        MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+        int offset = (int) (index % recordsPerSegment) * recordSize;
+
+        for (int i = 0; i < recordSize; i++) {
+            segment.put(offset + i, record[i]);
+        }
+    }
+
+    /**
+     * Sorts a range of records by seed in place with heapsort, which needs no memory beyond two records.
+     *
+     * @param first the index of the first record of the range
+     * @param count the number of records in the range
+     */
+    private void sort(long first, long count) {
+        byte[] top = new byte[recordSize];
+        byte[] last = new byte[recordSize];
+
+        for (long node = count / 2 - 1; node >= 0; node--) {
+            siftDown(first, node, count, top, last);
+        }
+
+        for (long end = count - 1; end > 0; end--) {
+            read(first, top);
+            read(first + end, last);
+            write(first, last);
+            write(first + end, top);
+
+            siftDown(first, 0, end, top, last);
+        }
+    }
+
+    /**
+     * Moves a record down the heap until its children have lower seeds.
+     *
+     * @param first the index of the first record of the heap
+     * @param node the index within the heap of the record to move
+     * @param size the number of records in the heap
+     * @param record a buffer one record long
+     * @param child another buffer one record long
+     */
+    private void siftDown(long first, long node, long size, byte[] record, byte[] child) {
+        read(first + node, record);
+        int seed = seedAt(first + node);
+
+        while (2 * node + 1 < size) {
+            long largest = 2 * node + 1;
+
+            if (largest + 1 < size && seedAt(first + largest + 1) > seedAt(first + largest)) {
+                largest++;
+            }
+
+            if (seedAt(first + largest) <= seed) {
+                break;
+            }
+
+            read(first + largest, child);
+            write(first + node, child);
+            node = largest;
+        }
+
+        write(first + node, record);
+    }
+
+    /**
+     * Writes the content of a buffer to a channel at a given position.
+     *
+     * @param channel the channel to write to
+     * @param buffer the buffer to write, ready to be read
+     * @param position the position in the channel to write at
+     *
+     * @throws IOException if the buffer can't be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Writes the records gathered in a buffer to a channel and empties the buffer.
+     *
+     * @param channel the channel to write to
+     * @param buffer the buffer holding the records
+     * @param position the position in the channel to write at
+     *
+     * @return the number of bytes written
+     *
+     * @throws IOException if the records can't be written
+     */
+    private static int flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+
+        int size = buffer.remaining();
+        write(channel, buffer, position);
+
+        buffer.clear();
+
+        return size;
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Imports classic puzzles from text files holding one puzzle per line into a pack, keeping only the valid ones.
+ *
+ * Each line lists the 81 cells of a board in row-major order, with digits for the givens and either 0 or a dot for
+ * empty cells. Blank lines and lines starting with # are skipped. The file is read through a direct buffer and parsed
+ * byte by byte straight into a chunk of boards, so no object is created per line. Every chunk is then checked on a
+ * fork/join pool: the givens must respect the constraints of rows, columns and regions, and the board must have exactly
+ * one solution. The puzzles accepted are graded and written in the order they appear in the file, with their line
+ * number in place of the seed.
+ */
+public class PuzzleImporter {
+
+    public static final int LINE_LENGTH = Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE;
+    public static final int CHUNK_SIZE = 4096;
+
+    private static final int TASK_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte ACCEPTED = 0;
+    private static final byte CONFLICTING = 1;
+    private static final byte UNSOLVABLE = 2;
+    private static final byte AMBIGUOUS = 3;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a new importer.
+     *
+     * @param pool the pool to check the puzzles on
+     */
+    public PuzzleImporter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Imports the puzzles of a file.
+     *
+     * @param input the path of the text file to read the puzzles from
+     * @param writer the pack to write the valid puzzles to, holding classic boards
+     *
+     * @return the number of puzzles read, accepted and rejected for each reason
+     *
+     * @throws IOException if the file can't be read or the puzzles can't be written
+     */
+    public ImportReport importPuzzles(Path input, PuzzlePackWriter writer) throws IOException {
+        byte[] values = new byte[CHUNK_SIZE * LINE_LENGTH];
+        byte[] solutions = new byte[CHUNK_SIZE * LINE_LENGTH];
+        int[] lines = new int[CHUNK_SIZE];
+        byte[] statuses = new byte[CHUNK_SIZE];
+        Difficulty[] difficulties = new Difficulty[CHUNK_SIZE];
+
+        long[] counts = new long[AMBIGUOUS + 1];
+        long read = 0;
+        long malformed = 0;
+
+        int size = 0;
+        int line = 0;
+        int length = 0;
+        boolean invalid = false;
+        boolean comment = false;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            boolean end = false;
+
+            while (!end) {
+                buffer.clear();
+                end = channel.read(buffer) < 0;
+                buffer.flip();
+
+                // Pretend the file ends with a line break, so that the last line is handled like the others
+                int limit = end ? buffer.limit() + 1 : buffer.limit();
+
+                for (int index = 0; index < limit; index++) {
+                    int character = index < buffer.limit() ? buffer.get(index) : '\n';
+
+                    if (character == '\r') {
+                        continue;
+                    }
+
+                    if (character == '\n') {
+                        line++;
+
+                        if (!comment && (length > 0 || invalid)) {
+                            read++;
+
+                            if (invalid || length != LINE_LENGTH) {
+                                malformed++;
+                            } else {
+                                lines[size++] = line;
+                            }
+                        }
+
+                        length = 0;
+                        invalid = false;
+                        comment = false;
+
+                        // Check and write the chunk once full
+                        if (size == CHUNK_SIZE || (end && index == limit - 1 && size > 0)) {
+                            pool.invoke(new Check(values, solutions, statuses, difficulties, 0, size));
+
+                            for (int puzzle = 0; puzzle < size; puzzle++) {
+                                counts[statuses[puzzle]]++;
+
+                                if (statuses[puzzle] == ACCEPTED) {
+                                    writer.write(lines[puzzle], puzzle(values, solutions, puzzle),
+                                                 difficulties[puzzle]);
+                                }
+                            }
+
+                            size = 0;
+                        }
+
+                        continue;
+                    }
+
+                    if (comment) {
+                        continue;
+                    }
+
+                    if (length == 0 && character == '#') {
+                        comment = true;
+                        continue;
+                    }
+
+                    if (length < LINE_LENGTH) {
+                        if (character >= '1' && character <= '0' + Sudoku.SIDE_SIZE) {
+                            values[size * LINE_LENGTH + length] = (byte) (character - '0');
+                        } else if (character == '0' || character == '.') {
+                            values[size * LINE_LENGTH + length] = Sudoku.EMPTY_VALUE;
+                        } else {
+                            invalid = true;
+                        }
+                    }
+
+                    length++;
+                }
+            }
+        }
+
+        return new ImportReport(read, counts[ACCEPTED], malformed, counts[CONFLICTING], counts[UNSOLVABLE],
+                                counts[AMBIGUOUS]);
+    }
+
+    /**
+     * Builds a puzzle out of a chunk.
+     *
+     * @param values the givens of the boards of the chunk
+     * @param solutions the solutions of the boards of the chunk
+     * @param index the index of the puzzle in the chunk
+     *
+     * @return the puzzle at the given index
+     */
+    private static Puzzle puzzle(byte[] values, byte[] solutions, int index) {
+        byte[] clues = new byte[LINE_LENGTH];
+        byte[] solution = new byte[LINE_LENGTH];
+
+        System.arraycopy(values, index * LINE_LENGTH, clues, 0, LINE_LENGTH);
+        System.arraycopy(solutions, index * LINE_LENGTH, solution, 0, LINE_LENGTH);
+
+        return new Puzzle(Sudoku.SIDE_SIZE, clues, solution);
+    }
+
+    /**
+     * Checks, solves and grades the puzzles of a range of a chunk, splitting it in halves until it is small enough.
+     */
+    private static class Check extends RecursiveAction {
+
+        private static final long serialVersionUID = 5532713985247208416L;
+
+        private final byte[] values;
+        private final byte[] solutions;
+        private final byte[] statuses;
+        private final Difficulty[] difficulties;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a new task for a range of a chunk.
+         *
+         * @param values the givens of the boards of the chunk
+         * @param solutions the array to store the solutions of the boards into
+         * @param statuses the array to store whether each puzzle is accepted or why it is rejected into
+         * @param difficulties the array to store the difficulties of the puzzles accepted into
+         * @param from the index of the first puzzle of the range, inclusive
+         * @param to the index of the last puzzle of the range, exclusive
+         */
+        Check(byte[] values, byte[] solutions, byte[] statuses, Difficulty[] difficulties, int from, int to) {
+            this.values = values;
+            this.solutions = solutions;
+            this.statuses = statuses;
+            this.difficulties = difficulties;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(new Check(values, solutions, statuses, difficulties, from, middle),
+                          new Check(values, solutions, statuses, difficulties, middle, to));
+
+                return;
+            }
+
+            DancingLinks solver = Sudoku.solver(Sudoku.SIDE_SIZE);
+            LogicalSolver logicalSolver = Sudoku.logicalSolver(Sudoku.SIDE_SIZE);
+            int[] board = new int[LINE_LENGTH];
+            int[] solution = new int[LINE_LENGTH];
+
+            for (int index = from; index < to; index++) {
+                int offset = index * LINE_LENGTH;
+
+                for (int position = 0; position < LINE_LENGTH; position++) {
+                    board[position] = values[offset + position];
+                }
+
+                // Check the givens against the constraints
+                try {
+                    logicalSolver.load(board);
+                } catch (InvalidNumberException e) {
+                    statuses[index] = CONFLICTING;
+                    continue;
+                }
+
+                // Look for a second solution
+                int count = solver.solve(board, 2, solution);
+
+                if (count != 1) {
+                    statuses[index] = count == 0 ? UNSOLVABLE : AMBIGUOUS;
+                    continue;
+                }
+
+                for (int position = 0; position < LINE_LENGTH; position++) {
+                    solutions[offset + position] = (byte) solution[position];
+                }
+
+                statuses[index] = ACCEPTED;
+                difficulties[index] = logicalSolver.grade(board).getDifficulty();
+            }
+        }
+
+    }
+
+}
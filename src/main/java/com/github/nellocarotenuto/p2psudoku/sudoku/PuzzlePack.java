@@ -0,0 +1,200 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the binary format of puzzle packs, files holding any number of puzzles of the same size.
+ *
+ * A pack starts with a header made of the {@link #MAGIC} number, the {@link #VERSION} of the format and the side size
+ * of its boards, followed by fixed width records. Each record holds the seed the puzzle was generated from, the ordinal
+ * of its {@link Difficulty}, a bitmap of the cells given as clues and the values of the solution packed with as few
+ * bits as the side size requires: a classic puzzle takes 4 + 1 + 11 + 41 = 57 bytes.
+ */
+public final class PuzzlePack {
+
+    public static final int MAGIC = 0x53504b53;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 6;
+
+    private PuzzlePack() {
+
+    }
+
+    /**
+     * Gets the size of the records of a pack.
+     *
+     * @param sideSize the number of cells on each side of the boards of the pack
+     *
+     * @return the number of bytes taken by each puzzle in the pack
+     */
+    public static int recordSize(int sideSize) {
+        int boardSize = sideSize * sideSize;
+
+        return Integer.BYTES + 1 + packedSize(boardSize, 1) + packedSize(boardSize, bitsPerValue(sideSize));
+    }
+
+    /**
+     * Writes a puzzle into a record.
+     *
+     * @param seed the seed the puzzle was generated from
+     * @param puzzle the puzzle to write
+     * @param difficulty the difficulty of the puzzle
+     * @param record the buffer to write the record into, {@link #recordSize(int)} bytes long
+     */
+    static void encode(int seed, Puzzle puzzle, Difficulty difficulty, byte[] record) {
+        byte[] clues = puzzle.clues();
+        byte[] givens = new byte[clues.length];
+
+        for (int position = 0; position < clues.length; position++) {
+            givens[position] = (byte) (clues[position] != Sudoku.EMPTY_VALUE ? 1 : 0);
+        }
+
+        ByteBuffer.wrap(record).putInt(seed);
+        record[Integer.BYTES] = (byte) difficulty.ordinal();
+
+        int offset = Integer.BYTES + 1;
+
+        pack(givens, 1, record, offset);
+        pack(puzzle.solution(), bitsPerValue(puzzle.getSideSize()), record, offset + packedSize(clues.length, 1));
+    }
+
+    /**
+     * Reads a puzzle from a record.
+     *
+     * @param record the buffer holding the record
+     * @param offset the position of the record in the buffer
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return the puzzle read
+     *
+     * @throws IOException if the record holds a value of the solution outside the range of the board
+     */
+    static Puzzle decodePuzzle(byte[] record, int offset, int sideSize) throws IOException {
+        int boardSize = sideSize * sideSize;
+        byte[] clues = new byte[boardSize];
+        byte[] solution = new byte[boardSize];
+
+        offset += Integer.BYTES + 1;
+
+        unpack(record, offset, 1, clues);
+        unpack(record, offset + packedSize(boardSize, 1), bitsPerValue(sideSize), solution);
+
+        for (int position = 0; position < boardSize; position++) {
+            if (solution[position] < 1 || solution[position] > sideSize) {
+                throw new IOException("Invalid solution value " + solution[position] + " in the puzzle pack.");
+            }
+
+            clues[position] = clues[position] != 0 ? solution[position] : Sudoku.EMPTY_VALUE;
+        }
+
+        return new Puzzle(sideSize, clues, solution);
+    }
+
+    /**
+     * Reads the seed of a puzzle from a record.
+     *
+     * @param record the buffer holding the record
+     * @param offset the position of the record in the buffer
+     *
+     * @return the seed the puzzle was generated from
+     */
+    static int decodeSeed(byte[] record, int offset) {
+        return ByteBuffer.wrap(record, offset, Integer.BYTES).getInt();
+    }
+
+    /**
+     * Reads the difficulty of a puzzle from a record.
+     *
+     * @param record the buffer holding the record
+     * @param offset the position of the record in the buffer
+     *
+     * @return the difficulty of the puzzle
+     *
+     * @throws IOException if the record holds no valid difficulty
+     */
+    static Difficulty decodeDifficulty(byte[] record, int offset) throws IOException {
+        int ordinal = record[offset + Integer.BYTES] & 0xff;
+
+        if (ordinal >= Difficulty.values().length) {
+            throw new IOException("Invalid difficulty " + ordinal + " in the puzzle pack.");
+        }
+
+        return Difficulty.values()[ordinal];
+    }
+
+    /**
+     * Gets the number of bits needed to store the values of a board.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return the number of bits needed to store any value from {@link Sudoku#EMPTY_VALUE} to the side size
+     */
+    static int bitsPerValue(int sideSize) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(sideSize);
+    }
+
+    /**
+     * Gets the number of bytes taken by a sequence of packed values.
+     *
+     * @param count the number of values
+     * @param bits the number of bits taken by each value
+     *
+     * @return the number of bytes needed to store the values
+     */
+    static int packedSize(int count, int bits) {
+        return (count * bits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * Packs small values one after the other, most significant bit first.
+     *
+     * @param values the values to pack, each fitting in the given number of bits
+     * @param bits the number of bits taken by each value
+     * @param output the buffer to write the packed values into
+     * @param offset the position of the first byte to write
+     */
+    static void pack(byte[] values, int bits, byte[] output, int offset) {
+        int buffer = 0;
+        int buffered = 0;
+
+        for (byte value : values) {
+            buffer = (buffer << bits) | value;
+            buffered += bits;
+
+            if (buffered >= Byte.SIZE) {
+                buffered -= Byte.SIZE;
+                output[offset++] = (byte) (buffer >>> buffered);
+            }
+        }
+
+        if (buffered > 0) {
+            output[offset] = (byte) (buffer << (Byte.SIZE - buffered));
+        }
+    }
+
+    /**
+     * Unpacks values written by {@link #pack(byte[], int, byte[], int)}.
+     *
+     * @param input the buffer holding the packed values
+     * @param offset the position of the first byte to read
+     * @param bits the number of bits taken by each value
+     * @param values the array to fill with the values unpacked
+     */
+    static void unpack(byte[] input, int offset, int bits, byte[] values) {
+        int mask = (1 << bits) - 1;
+        int buffer = 0;
+        int buffered = 0;
+
+        for (int index = 0; index < values.length; index++) {
+            if (buffered < bits) {
+                buffer = (buffer << Byte.SIZE) | (input[offset++] & 0xff);
+                buffered += Byte.SIZE;
+            }
+
+            buffered -= bits;
+            values[index] = (byte) ((buffer >>> buffered) & mask);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads puzzles one at a time from a stream in the {@link PuzzlePack pack format}.
+ *
+ * Instances are not thread safe.
+ */
+public class PuzzlePackReader implements AutoCloseable {
+
+    private final DataInputStream input;
+    private final int sideSize;
+    private final byte[] record;
+
+    /**
+     * Opens a pack on a stream, reading its header.
+     *
+     * @param input the stream to read the pack from, closed along with the reader
+     *
+     * @throws IOException if the header can't be read or doesn't describe a supported pack
+     */
+    public PuzzlePackReader(InputStream input) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(input));
+
+        if (this.input.readInt() != PuzzlePack.MAGIC) {
+            throw new IOException("The stream doesn't contain a puzzle pack.");
+        }
+
+        int version = this.input.readUnsignedByte();
+
+        if (version != PuzzlePack.VERSION) {
+            throw new IOException("Unsupported puzzle pack version " + version + ".");
+        }
+
+        this.sideSize = this.input.readUnsignedByte();
+
+        try {
+            Sudoku.checkSideSize(sideSize);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid side size in the puzzle pack.", e);
+        }
+
+        this.record = new byte[PuzzlePack.recordSize(sideSize)];
+    }
+
+    /**
+     * Gets the size of the boards in the pack.
+     *
+     * @return the number of cells on each side of the boards
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
+
+    /**
+     * Reads the next puzzle of the pack.
+     *
+     * @return the next puzzle, null if the end of the pack has been reached
+     *
+     * @throws IOException if the puzzle can't be read or the pack is truncated
+     */
+    public PackedPuzzle read() throws IOException {
+        if (!read(record)) {
+            return null;
+        }
+
+        return new PackedPuzzle(PuzzlePack.decodeSeed(record, 0),
+                                PuzzlePack.decodePuzzle(record, 0, sideSize),
+                                PuzzlePack.decodeDifficulty(record, 0));
+    }
+
+    /**
+     * Reads the next record of the pack without decoding it, for the classes of this package only.
+     *
+     * @param record the buffer to read the record into, {@link PuzzlePack#recordSize(int)} bytes long
+     *
+     * @return true if a record has been read, false if the end of the pack has been reached
+     *
+     * @throws IOException if the record can't be read or the pack is truncated
+     */
+    boolean read(byte[] record) throws IOException {
+        int first = input.read();
+
+        if (first < 0) {
+            return false;
+        }
+
+        record[0] = (byte) first;
+
+        try {
+            input.readFully(record, 1, record.length - 1);
+        } catch (EOFException e) {
+            throw new IOException("The puzzle pack is truncated.", e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException if the stream can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes puzzles to a stream in the {@link PuzzlePack pack format}.
+ *
+ * Instances are not thread safe.
+ */
+public class PuzzlePackWriter implements AutoCloseable {
+
+    private final DataOutputStream output;
+    private final int sideSize;
+    private final byte[] record;
+
+    private long count;
+
+    /**
+     * Starts a new pack on a stream, writing its header.
+     *
+     * @param output the stream to write the pack to, closed along with the writer
+     * @param sideSize the number of cells on each side of the boards of the pack
+     *
+     * @throws IOException if the header can't be written
+     */
+    public PuzzlePackWriter(OutputStream output, int sideSize) throws IOException {
+        this.output = new DataOutputStream(new BufferedOutputStream(output));
+        this.sideSize = sideSize;
+        this.record = new byte[PuzzlePack.recordSize(sideSize)];
+
+        this.output.writeInt(PuzzlePack.MAGIC);
+        this.output.writeByte(PuzzlePack.VERSION);
+        this.output.writeByte(sideSize);
+    }
+
+    /**
+     * Appends a puzzle to the pack.
+     *
+     * @param seed the seed the puzzle was generated from
+     * @param puzzle the puzzle to write
+     * @param difficulty the difficulty of the puzzle
+     *
+     * @throws IOException if the puzzle can't be written
+     */
+    public void write(int seed, Puzzle puzzle, Difficulty difficulty) throws IOException {
+        if (puzzle.getSideSize() != sideSize) {
+            throw new IllegalArgumentException("Expected a puzzle with a side of " + sideSize + " cells, got " +
+                                               puzzle.getSideSize() + ".");
+        }
+
+        if (puzzle.variants() != 0) {
+            throw new IllegalArgumentException("Packs only hold classic puzzles.");
+        }
+
+        PuzzlePack.encode(seed, puzzle, difficulty, record);
+        output.write(record);
+        count++;
+    }
+
+    /**
+     * Gets the number of puzzles written so far.
+     *
+     * @return the number of puzzles in the pack
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Flushes the puzzles written and closes the underlying stream.
+     *
+     * @throws IOException if the stream can't be flushed or closed
+     */
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+}
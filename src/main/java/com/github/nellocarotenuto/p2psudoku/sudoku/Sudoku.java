@@ -1,14 +1,27 @@
 package com.github.nellocarotenuto.p2psudoku.sudoku;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import org.javatuples.Pair;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * Models a Sudoku board.
+ *
+ * The values of the cells are kept in a flat array in row-major order. The clues and the solution never change, so they
+ * are shared with the puzzle the board was created from rather than copied. The candidates of the empty cells are kept
+ * in {@link PencilMarks} built the first time they are read and then updated as numbers are placed. Boards are
+ * serialized through {@link SudokuCodec}, which keeps them within a few dozen bytes. Boards generated from a seed only
+ * carry the seed and the cells filled so far, and the puzzle is generated again, or taken from the
+ * {@link PuzzleCache#getShared() shared cache}, when reading them.
+ *
+ * Boards may add the groups of some {@link Variant variants} to their rows, columns and regions. Numbers are checked
+ * against the solution, so placing one costs the same whatever the variants. Solving, grading and hints go through the
+ * {@link Constraints constraints} of the board, with classic boards solved by {@link DancingLinks} and the others by
+ * {@link VariantSolver}.
  */
 public class Sudoku implements Serializable {
 
@@ -17,224 +30,728 @@ public class Sudoku implements Serializable {
     public static final int EMPTY_VALUE = 0;
     public static final int SIDE_SIZE = 9;
     public static final int REGION_SIZE = (int) Math.sqrt(SIDE_SIZE);
+    public static final int MAX_SIDE_SIZE = 25;
+
+    private static final ThreadLocal<DancingLinks> solvers = new ThreadLocal<>();
+    private static final ThreadLocal<VariantSolver> variantSolvers = new ThreadLocal<>();
+    private static final ThreadLocal<LogicalSolver> logicalSolvers = new ThreadLocal<>();
+
+    private transient int sideSize;
+    private transient int regionSize;
+    private transient byte[] values;
+    private transient byte[] clues;
+    private transient byte[] solution;
+    private transient byte[] cages;
+    private transient int remainingCells;
+    private transient PencilMarks marks;
+    private transient Constraints constraints;
+    private transient Integer seed;
+    private transient GenerationMode mode;
+    private transient BoardView view;
 
-    private static final int BOARD_SIZE = (int) Math.pow(SIDE_SIZE, 2);
-
-    private static final int MIN_CLUES = 26;
-    private static final int MAX_CLUES = 34;
+    /**
+     * Generates a new random board.
+     *
+     * @param seed the seed for the internal random number generator for deterministic generation, null for a random
+     *             board
+     */
+    public Sudoku(Integer seed) {
+        this(seed, GenerationMode.CLASSIC);
+    }
 
-    private static final List<Integer> values = IntStream.rangeClosed(1, SIDE_SIZE).boxed().collect(Collectors.toList());
+    /**
+     * Generates a new random board.
+     *
+     * @param seed the seed for the internal random number generator for deterministic generation, null for a random
+     *             board
+     * @param mode the strategy to use to remove clues from the complete board
+     */
+    public Sudoku(Integer seed, GenerationMode mode) {
+        this(seed, SIDE_SIZE, mode);
+    }
 
-    private Cell[][] board;
+    /**
+     * Generates a new random board of a given size.
+     *
+     * Boards generated from a seed are taken from the {@link PuzzleCache#getShared() shared cache} when possible.
+     *
+     * @param seed the seed for the internal random number generator for deterministic generation, null for a random
+     *             board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to {@link #MAX_SIDE_SIZE}
+     * @param mode the strategy to use to remove clues from the complete board
+     */
+    public Sudoku(Integer seed, int sideSize, GenerationMode mode) {
+        this(seed, sideSize, mode, EnumSet.noneOf(Variant.class));
+    }
 
     /**
-     * Generates a new random board.
+     * Generates a new random board of a given size with some variants.
+     *
+     * Boards generated from a seed are taken from the {@link PuzzleCache#getShared() shared cache} when possible.
      *
      * @param seed the seed for the internal random number generator for deterministic generation, null for a random
      *             board
+     * @param sideSize the number of cells on each side of the board, a perfect square up to {@link #MAX_SIDE_SIZE}, or
+     *                 up to {@link Constraints#MAX_VARIANT_SIDE_SIZE} if any variant is requested
+     * @param mode the strategy to use to remove clues from the complete board
+     * @param variants the variants whose constraints to add to those of the rows, columns and regions
+     *
+     * @throws IllegalArgumentException if the board is too large for variants or the mode doesn't support them
      */
-    public Sudoku(Integer seed) {
-        // Build the (empty) board
-        board = new Cell[SIDE_SIZE][SIDE_SIZE];
+    public Sudoku(Integer seed, int sideSize, GenerationMode mode, Set<Variant> variants) {
+        this(seed == null ? generate(new Random(), sideSize, mode, Constraints.mask(variants)) :
+             PuzzleCache.getShared().get(seed, sideSize, mode, variants));
 
-        // Initialize the random number generator
-        Random random = seed == null ? new Random() : new Random(seed);
+        this.seed = seed;
+        this.mode = mode;
+    }
+
+    /**
+     * Creates a new board from a puzzle generated from a seed, for the classes of this package only.
+     *
+     * @param puzzle the clues and the solution of the board, as generated from the seed
+     * @param seed the seed the puzzle was generated from
+     * @param mode the strategy used to remove clues from the complete board
+     */
+    Sudoku(Puzzle puzzle, int seed, GenerationMode mode) {
+        this(puzzle);
 
-        // Define and initialize cells and validation groups
-        Group[] rows = new Group[SIDE_SIZE];
-        Group[] columns = new Group[SIDE_SIZE];
-        Group[][] regions = new Group[REGION_SIZE][REGION_SIZE];
+        this.seed = seed;
+        this.mode = mode;
+    }
 
-        for (int position = 0; position < SIDE_SIZE; position++) {
-            rows[position] = new Group();
-            columns[position] = new Group();
+    /**
+     * Creates a new board from a puzzle.
+     *
+     * @param puzzle the clues and the solution of the board
+     */
+    public Sudoku(Puzzle puzzle) {
+        checkSideSize(puzzle.getSideSize());
+
+        sideSize = puzzle.getSideSize();
+        regionSize = (int) Math.sqrt(sideSize);
+        clues = puzzle.clues();
+        solution = puzzle.solution();
+        cages = puzzle.cages();
+        values = clues.clone();
+        remainingCells = values.length - puzzle.countClues();
+        constraints = puzzle.getConstraints();
+        view = new View();
+    }
 
-            int row = position / REGION_SIZE;
-            int column = position % REGION_SIZE;
+    /**
+     * Gets the size of the board.
+     *
+     * @return the number of cells on each side of the board
+     */
+    public int getSideSize() {
+        return sideSize;
+    }
 
-            regions[row][column] = new Group();
+    /**
+     * Gets the constraints of the board.
+     *
+     * @return the groups of the board, its variants included, and its cages if any
+     */
+    public Constraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Returns the current board.
+     *
+     * The matrix is built at each call, {@link #getView()} reads the board without copying it.
+     *
+     * @return the matrix representation of the current board
+     */
+    public Integer[][] getBoard() {
+        Integer[][] board = new Integer[sideSize][sideSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                board[row][column] = (int) values[row * sideSize + column];
+            }
         }
 
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                Cell cell = new Cell();
+        return board;
+    }
 
-                board[row][column] = cell;
-                rows[row].addCell(cell);
-                columns[column].addCell(cell);
-                regions[row / REGION_SIZE][column / REGION_SIZE].addCell(cell);
+    /**
+     * Gets a read-only view of the current board.
+     *
+     * The view is created along with the board and follows it as numbers are placed, so getting it costs nothing.
+     *
+     * @return the view of the cells of the board
+     */
+    public BoardView getView() {
+        return view;
+    }
+
+    /**
+     * Returns the board as it was before any number was placed.
+     *
+     * @return the matrix representation of the board with just the fixed cells filled
+     */
+    public Integer[][] getInitialBoard() {
+        Integer[][] board = new Integer[sideSize][sideSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                board[row][column] = (int) clues[row * sideSize + column];
             }
         }
 
-        // Associate to each cell a randomly ordered list of candidate values
-        List<Pair<Cell, List<Pair<Integer, Boolean>>>> cellsToFill = new ArrayList<>(BOARD_SIZE);
+        return board;
+    }
 
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                Cell cell = board[row][column];
+    /**
+     * Gets the correct value for a cell.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the value of the cell in the solution
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     */
+    public int getSolution(int row, int column) {
+        if (row < 0 || row >= sideSize || column < 0 || column >= sideSize) {
+            throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
+        }
 
-                List<Pair<Integer, Boolean>> candidates = new ArrayList<>(SIDE_SIZE);
+        return solution[row * sideSize + column];
+    }
 
-                for (Integer value : values) {
-                    candidates.add(new Pair<>(value, false));
-                }
+    /**
+     * Places a number into the board.
+     *
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the number to put into the cell
+     *
+     * @throws FilledCellException if the cell is already filled
+     * @throws InvalidNumberException if the value doesn't fit into the cell
+     */
+    public void placeNumber(int row, int column, int number) throws FilledCellException, InvalidNumberException {
+        PlacementResult result = tryPlaceNumber(row, column, number);
 
-                Collections.shuffle(candidates, random);
+        if (result == PlacementResult.FIXED) {
+            throw new FixedCellException("Unable to place " + number + " at cell " + row + ", " + column +
+                                         ": the cell is fixed.");
+        } else if (result == PlacementResult.FILLED) {
+            throw new FilledCellException("Unable to place " + number + " at cell " + row + ", " + column +
+                    ": the cell has already a value.");
+        } else if (result == PlacementResult.WRONG) {
+            throw new InvalidNumberException("Unable to place " + number + " at cell " + row + ", " + column +
+                                            ": constraints violated.");
+        }
+    }
 
-                Pair<Cell, List<Pair<Integer, Boolean>>> cellValuesPair = new Pair<>(cell, candidates);
-                cellsToFill.add(cellValuesPair);
-            }
+    /**
+     * Places a number into the board, reporting the outcome rather than throwing when the number can't be placed.
+     *
+     * @param row the row index (starting at 0) of the cell where to insert the number
+     * @param column the column index (starting at 0) of the cell where to insert the number
+     * @param number the number to put into the cell
+     *
+     * @return {@link PlacementResult#PLACED} if the number has been placed, {@link PlacementResult#FIXED},
+     *         {@link PlacementResult#FILLED} or {@link PlacementResult#WRONG} otherwise
+     *
+     * @throws CellNotFoundException if the cell is outside the board
+     */
+    public PlacementResult tryPlaceNumber(int row, int column, int number) {
+        if (row < 0 || row >= sideSize || column < 0 || column >= sideSize) {
+            throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
         }
 
-        // Fill the cells one by one with the first candidate that fits and backtrack if no more options are available
-        int cellIndex = 0;
-        int candidateIndex;
+        int position = row * sideSize + column;
 
-        while (cellIndex < cellsToFill.size()) {
-            Pair<Cell, List<Pair<Integer, Boolean>>> pair = cellsToFill.get(cellIndex);
+        if (clues[position] != EMPTY_VALUE) {
+            return PlacementResult.FIXED;
+        }
 
-            Cell cell = pair.getValue0();
-            List<Pair<Integer, Boolean>> candidates = pair.getValue1();
+        if (values[position] != EMPTY_VALUE) {
+            return PlacementResult.FILLED;
+        }
 
-            for (candidateIndex = 0; candidateIndex < candidates.size(); candidateIndex++) {
-                Pair<Integer, Boolean> candidate = candidates.get(candidateIndex);
+        if (number != solution[position]) {
+            return PlacementResult.WRONG;
+        }
 
-                if (!candidate.getValue1()) {
-                    candidates.set(candidateIndex, candidate.setAt1(true));
+        fill(position);
 
-                    try {
-                        cell.setValue(candidate.getValue0());
-                        cellIndex++;
-                        break;
-                    } catch (InvalidNumberException e) {
-                        continue;
-                    }
-                }
-            }
+        return PlacementResult.PLACED;
+    }
 
-            if (candidateIndex == candidates.size()) {
-                cell.setValue(EMPTY_VALUE);
+    /**
+     * Tells whether the board is complete or not.
+     *
+     * @return true if every cell has been filled, false otherwise
+     */
+    public boolean isComplete() {
+        return remainingCells == 0;
+    }
 
-                for (candidateIndex = 0; candidateIndex < candidates.size(); candidateIndex++) {
-                    candidates.set(candidateIndex, candidates.get(candidateIndex).setAt1(false));
-                }
+    /**
+     * Gets the number of cells left to fill.
+     *
+     * @return the number of empty cells of the board
+     */
+    public int getRemainingCells() {
+        return remainingCells;
+    }
 
-                cellIndex--;
-            }
+    /**
+     * Gets the candidates of a cell, that is the values not yet used in any of its groups or its cage.
+     *
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values allowed in the cell, where bit v - 1 stands for value v, 0 if the cell is filled
+     */
+    public int getCandidates(int row, int column) {
+        if (row < 0 || row >= sideSize || column < 0 || column >= sideSize) {
+            throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
         }
 
-        // Copy the generated board into the solution matrix
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                board[row][column].setCorrectValue(board[row][column].getValue());
-            }
+        if (marks == null) {
+            marks = new PencilMarks(constraints, values);
         }
 
-        // Remove values from random cells but keep at least one occurrence for each value
-        List<Cell> cellsToClear = new ArrayList<>();
+        return marks.getCandidates(row, column);
+    }
 
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                cellsToClear.add(board[row][column]);
-            }
-        }
+    /**
+     * Solves the current board.
+     *
+     * @return the matrix representation of a solution of the current board, null if the board has no solution
+     */
+    public Integer[][] solve() {
+        return solve(getBoard(), constraints);
+    }
 
-        Collections.shuffle(cellsToClear, random);
+    /**
+     * Counts the solutions of the current board.
+     *
+     * @param limit the number of solutions after which to stop counting
+     *
+     * @return the number of solutions of the current board, never greater than the limit
+     */
+    public int countSolutions(int limit) {
+        return countSolutions(getBoard(), limit, constraints);
+    }
 
-        int cluesToRemove = BOARD_SIZE - (MIN_CLUES + random.nextInt(MAX_CLUES - MIN_CLUES));
-        HashMap<Integer, Integer> occurrencesRemoved = new HashMap<>();
+    /**
+     * Solves a partially filled board.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     *
+     * @return the matrix representation of a solution of the board, null if the board has no solution
+     */
+    public static Integer[][] solve(Integer[][] board) {
+        return solve(board, Constraints.of(board.length));
+    }
 
-        for (int i = 0; i < cluesToRemove; i++) {
-            Cell cell = cellsToClear.get(i);
-            int value = cell.getValue();
-            int timesRemoved = occurrencesRemoved.getOrDefault(value, 0);
+    /**
+     * Solves a partially filled board with the given constraints.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     * @param constraints the groups and cages of the board
+     *
+     * @return the matrix representation of a solution of the board, null if the board has no solution
+     */
+    public static Integer[][] solve(Integer[][] board, Constraints constraints) {
+        int sideSize = board.length;
+        int[] solution = new int[sideSize * sideSize];
 
-            if (timesRemoved < SIDE_SIZE - 1) {
-                cell.setValue(EMPTY_VALUE);
-                occurrencesRemoved.put(value, timesRemoved + 1);
-            }
+        if (solver(constraints).solve(flatten(board), 1, solution) == 0) {
+            return null;
         }
 
-        // Mark the clues remaining as fixed
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                Cell cell = board[row][column];
+        Integer[][] matrix = new Integer[sideSize][sideSize];
 
-                if (cell.getValue() != EMPTY_VALUE) {
-                    cell.setFixed(true);
-                }
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                matrix[row][column] = solution[row * sideSize + column];
             }
         }
 
+        return matrix;
     }
 
     /**
-     * Returns the current board.
+     * Counts the solutions of a partially filled board.
      *
-     * @return the matrix representation of the current board
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     * @param limit the number of solutions after which to stop counting
+     *
+     * @return the number of solutions of the board, never greater than the limit
      */
-    public Integer[][] getBoard() {
-        Integer[][] board = new Integer[SIDE_SIZE][SIDE_SIZE];
+    public static int countSolutions(Integer[][] board, int limit) {
+        return countSolutions(board, limit, Constraints.of(board.length));
+    }
 
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                board[row][column] = this.board[row][column].getValue();
-            }
+    /**
+     * Counts the solutions of a partially filled board with the given constraints.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     * @param limit the number of solutions after which to stop counting
+     * @param constraints the groups and cages of the board
+     *
+     * @return the number of solutions of the board, never greater than the limit
+     */
+    public static int countSolutions(Integer[][] board, int limit, Constraints constraints) {
+        return solver(constraints).solve(flatten(board), limit, null);
+    }
+
+    /**
+     * Rates the difficulty of the current board for a human player.
+     *
+     * @return the grade of the current board
+     */
+    public Grade grade() {
+        return grade(getBoard(), constraints);
+    }
+
+    /**
+     * Rates the difficulty of a partially filled board for a human player.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     *
+     * @return the grade of the board
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    public static Grade grade(Integer[][] board) throws InvalidNumberException {
+        return grade(board, Constraints.of(board.length));
+    }
+
+    /**
+     * Rates the difficulty of a partially filled board with the given constraints for a human player.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     * @param constraints the groups and cages of the board
+     *
+     * @return the grade of the board
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    public static Grade grade(Integer[][] board, Constraints constraints) throws InvalidNumberException {
+        return logicalSolver(constraints).grade(flatten(board));
+    }
+
+    /**
+     * Finds the next logical step on the current board.
+     *
+     * @return the next value a human player could deduce, null if the board is complete or too hard for the known
+     *         techniques
+     */
+    public Hint hint() {
+        return hint(getBoard(), constraints);
+    }
+
+    /**
+     * Finds the next logical step on a partially filled board.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     *
+     * @return the next value a human player could deduce, null if the board is complete or too hard for the known
+     *         techniques
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    public static Hint hint(Integer[][] board) throws InvalidNumberException {
+        return hint(board, Constraints.of(board.length));
+    }
+
+    /**
+     * Finds the next logical step on a partially filled board with the given constraints.
+     *
+     * @param board the matrix representation of the board, with {@link #EMPTY_VALUE} for empty cells
+     * @param constraints the groups and cages of the board
+     *
+     * @return the next value a human player could deduce, null if the board is complete or too hard for the known
+     *         techniques
+     *
+     * @throws InvalidNumberException if the values of the board violate the constraints
+     */
+    public static Hint hint(Integer[][] board, Constraints constraints) throws InvalidNumberException {
+        return logicalSolver(constraints).hint(flatten(board));
+    }
+
+    /**
+     * Fills an empty cell with its value in the solution, for the classes of this package only.
+     *
+     * @param position the position of the cell in row-major order
+     */
+    void fill(int position) {
+        values[position] = solution[position];
+        remainingCells--;
+
+        if (marks != null) {
+            marks.place(position / sideSize, position % sideSize, values[position]);
         }
+    }
 
-        return board;
+    /**
+     * Gets the values of the cells without copying them, for the classes of this package only.
+     *
+     * @return the values of the cells in row-major order, with {@link #EMPTY_VALUE} for empty cells, not to be modified
+     */
+    byte[] values() {
+        return values;
     }
 
     /**
-     * Places a number into the board.
+     * Gets the clues without copying them, for the classes of this package only.
      *
-     * @param row the row index (starting at 0) of the cell where to insert the number
-     * @param column the column index (starting at 0) of the cell where to insert the number
-     * @param number the number to put into the cell
+     * @return the values of the fixed cells in row-major order, with {@link #EMPTY_VALUE} elsewhere, not to be modified
+     */
+    byte[] clues() {
+        return clues;
+    }
+
+    /**
+     * Gets the solution without copying it, for the classes of this package only.
      *
-     * @throws FilledCellException if the cell is already filled
-     * @throws InvalidNumberException if the value doesn't fit into the cell
+     * @return the values of the solution in row-major order, not to be modified
      */
-    public void placeNumber(int row, int column, int number) throws FilledCellException, InvalidNumberException {
-        if (row < 0 || row >= Sudoku.SIDE_SIZE || column < 0 || column >= Sudoku.SIDE_SIZE) {
-            throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
+    byte[] solution() {
+        return solution;
+    }
+
+    /**
+     * Gets the seed the board was generated from, for the classes of this package only.
+     *
+     * @return the seed of the puzzle, null if the board wasn't generated from a seed
+     */
+    Integer seed() {
+        return seed;
+    }
+
+    /**
+     * Gets the strategy the board was generated with, for the classes of this package only.
+     *
+     * @return the mode used to remove clues from the complete board, null if the board wasn't generated from a seed
+     */
+    GenerationMode mode() {
+        return mode;
+    }
+
+    /**
+     * Gets the layout of the cages without copying it, for the classes of this package only.
+     *
+     * @return the cage of each cell in row-major order, numbered from 1, null unless the board is a killer one
+     */
+    byte[] cages() {
+        return cages;
+    }
+
+    /**
+     * Generates a new puzzle of the classic size without going through the cache.
+     *
+     * @param random the random number generator driving the generation
+     * @param mode the strategy to use to remove clues from the complete board
+     *
+     * @return the puzzle generated
+     */
+    static Puzzle generate(Random random, GenerationMode mode) {
+        return generate(random, SIDE_SIZE, mode);
+    }
+
+    /**
+     * Generates a new puzzle without going through the cache.
+     *
+     * @param random the random number generator driving the generation
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy to use to remove clues from the complete board
+     *
+     * @return the puzzle generated
+     */
+    static Puzzle generate(Random random, int sideSize, GenerationMode mode) {
+        return generate(random, sideSize, mode, 0);
+    }
+
+    /**
+     * Generates a new puzzle with some variants without going through the cache.
+     *
+     * @param random the random number generator driving the generation
+     * @param sideSize the number of cells on each side of the board
+     * @param mode the strategy to use to remove clues from the complete board
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     *
+     * @return the puzzle generated
+     *
+     * @throws IllegalArgumentException if the board is too large for variants or the mode doesn't support them
+     */
+    static Puzzle generate(Random random, int sideSize, GenerationMode mode, int variants) {
+        checkSideSize(sideSize);
+
+        return new Generator(sideSize, variants).generate(random, mode);
+    }
+
+    /**
+     * Gets a solver for boards of a given size, reusing the one of the calling thread when possible.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return a solver for boards of the given size
+     */
+    static DancingLinks solver(int sideSize) {
+        DancingLinks solver = solvers.get();
+
+        if (solver == null || solver.getSideSize() != sideSize) {
+            checkSideSize(sideSize);
+
+            solver = new DancingLinks(sideSize);
+            solvers.set(solver);
         }
 
-        Cell cell = board[row][column];
+        return solver;
+    }
 
-        if (cell.isFixed()) {
-            throw new FixedCellException("Unable to place " + number + " at cell " + row + ", " + column +
-                                         ": the cell is fixed.");
+    /**
+     * Gets a solver for boards with the given constraints, reusing the ones of the calling thread when possible.
+     *
+     * @param constraints the groups and cages of the board
+     *
+     * @return the exact cover solver of the size of the board if the board is a classic one, a solver for its variants
+     *         otherwise
+     */
+    static ExactSolver solver(Constraints constraints) {
+        if (constraints.isClassic()) {
+            return solver(constraints.getSideSize());
         }
 
-        if (cell.getValue() != EMPTY_VALUE) {
-            throw new FilledCellException("Unable to place " + number + " at cell " + row + ", " + column +
-                    ": the cell has already a value.");
+        VariantSolver solver = variantSolvers.get();
+
+        if (solver == null || solver.getConstraints() != constraints) {
+            solver = new VariantSolver(constraints);
+            variantSolvers.set(solver);
         }
 
-        if (number != cell.getCorrectValue()) {
-            throw new InvalidNumberException("Unable to place " + number + " at cell " + row + ", " + column +
-                                            ": constraints violated.");
+        return solver;
+    }
+
+    /**
+     * Gets a step by step solver for boards of a given size, reusing the one of the calling thread when possible.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return a step by step solver for boards of the given size
+     */
+    static LogicalSolver logicalSolver(int sideSize) {
+        return logicalSolver(Constraints.of(sideSize));
+    }
+
+    /**
+     * Gets a step by step solver for boards with the given constraints, reusing the one of the calling thread when
+     * possible.
+     *
+     * @param constraints the groups and cages of the board
+     *
+     * @return a step by step solver for boards with the given constraints
+     */
+    static LogicalSolver logicalSolver(Constraints constraints) {
+        LogicalSolver solver = logicalSolvers.get();
+
+        if (solver == null || solver.getConstraints() != constraints) {
+            solver = new LogicalSolver(constraints);
+            logicalSolvers.set(solver);
         }
 
-        cell.setValue(number);
+        return solver;
     }
 
     /**
-     * Tells whether the board is complete or not.
+     * Checks that boards can be built with a given side.
      *
-     * @return true if every cell has been filled, false otherwise
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @throws IllegalArgumentException if the side isn't a perfect square between 1 and {@link #MAX_SIDE_SIZE}
      */
-    public boolean isComplete() {
-        for (int row = 0; row < SIDE_SIZE; row++) {
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                if (board[row][column].getValue() == EMPTY_VALUE) {
-                    return false;
-                }
+    static void checkSideSize(int sideSize) {
+        int regionSize = (int) Math.sqrt(sideSize);
+
+        if (sideSize <= 0 || sideSize > MAX_SIDE_SIZE || regionSize * regionSize != sideSize) {
+            throw new IllegalArgumentException("The side of a board must be a perfect square up to " + MAX_SIDE_SIZE +
+                                               ", got " + sideSize + ".");
+        }
+    }
+
+    /**
+     * Copies a square matrix into an array in row-major order.
+     *
+     * @param board the matrix representation of a board
+     *
+     * @return the values of the board in row-major order
+     */
+    private static int[] flatten(Integer[][] board) {
+        int sideSize = board.length;
+        int[] values = new int[sideSize * sideSize];
+
+        for (int row = 0; row < sideSize; row++) {
+            if (board[row].length != sideSize) {
+                throw new IllegalArgumentException("The board must be a square matrix.");
+            }
+
+            for (int column = 0; column < sideSize; column++) {
+                values[row * sideSize + column] = board[row][column];
             }
         }
 
-        return true;
+        return values;
+    }
+
+    /**
+     * Writes the board to a stream in its compact encoding, made of the seed of the puzzle when there is one.
+     *
+     * @param output the stream to write the board to
+     *
+     * @throws IOException if the board can't be written
+     */
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        byte[] data = seed != null ? SudokuCodec.encodeSeed(this) : SudokuCodec.encode(this);
+
+        output.defaultWriteObject();
+        output.writeShort(data.length);
+        output.write(data);
+    }
+
+    /**
+     * Reads a board from a stream in its compact encoding.
+     *
+     * @param input the stream to read the board from
+     *
+     * @throws IOException if the board can't be read
+     * @throws ClassNotFoundException if the class of a serialized object can't be found
+     */
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject();
+
+        byte[] data = new byte[input.readUnsignedShort()];
+        input.readFully(data);
+
+        Sudoku sudoku;
+
+        try {
+            sudoku = SudokuCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unable to decode the board.", e);
+        }
+
+        sideSize = sudoku.sideSize;
+        regionSize = sudoku.regionSize;
+        values = sudoku.values;
+        clues = sudoku.clues;
+        solution = sudoku.solution;
+        cages = sudoku.cages;
+        remainingCells = sudoku.remainingCells;
+        marks = sudoku.marks;
+        constraints = sudoku.constraints;
+        seed = sudoku.seed;
+        mode = sudoku.mode;
+        view = new View();
     }
 
     @Override
@@ -242,17 +759,17 @@ public class Sudoku implements Serializable {
         StringBuilder board = new StringBuilder();
         StringBuilder solution = new StringBuilder();
 
-        for (int row = 0; row < SIDE_SIZE; row++) {
+        for (int row = 0; row < sideSize; row++) {
             if (row != 0) {
                 board.append(String.format("\t%9s", ""));
                 solution.append(String.format("\t%9s", ""));
             }
 
-            for (int column = 0; column < SIDE_SIZE; column++) {
-                board.append(String.format("%3d", this.board[row][column].getValue()));
-                solution.append(String.format("%3d", this.board[row][column].getCorrectValue()));
+            for (int column = 0; column < sideSize; column++) {
+                board.append(String.format("%3d", values[row * sideSize + column]));
+                solution.append(String.format("%3d", this.solution[row * sideSize + column]));
 
-                if ((column + 1) % REGION_SIZE == 0) {
+                if ((column + 1) % regionSize == 0) {
                     board.append(String.format("%3s", " "));
                     solution.append(String.format("%3s", " "));
                 }
@@ -261,10 +778,10 @@ public class Sudoku implements Serializable {
             board.append("\n");
             solution.append("\n");
 
-            if ((row + 1) % REGION_SIZE == 0) {
+            if ((row + 1) % regionSize == 0) {
                 board.append("\n");
 
-                if ((row + 1) != SIDE_SIZE) {
+                if ((row + 1) != sideSize) {
                     solution.append("\n");
                 }
             }
@@ -276,4 +793,49 @@ public class Sudoku implements Serializable {
                 "}";
     }
 
+    /**
+     * Reads the cells of the board they belong to.
+     */
+    private class View implements BoardView {
+
+        @Override
+        public int getSideSize() {
+            return sideSize;
+        }
+
+        @Override
+        public int getValue(int row, int column) {
+            return values[position(row, column)];
+        }
+
+        @Override
+        public boolean isFixed(int row, int column) {
+            return clues[position(row, column)] != EMPTY_VALUE;
+        }
+
+        @Override
+        public int getVersion() {
+            return values.length - remainingCells;
+        }
+
+        /**
+         * Finds the position of a cell in row-major order.
+         *
+         * @param row the row index (starting at 0) of the cell
+         * @param column the column index (starting at 0) of the cell
+         *
+         * @return the index of the cell in the arrays of the board
+         *
+         * @throws CellNotFoundException if the cell is outside the board
+         */
+        private int position(int row, int column) {
+            if (row < 0 || row >= sideSize || column < 0 || column >= sideSize) {
+                throw new CellNotFoundException("Cell (" + row + ", " + column + ") doesn't belong to the board.");
+            }
+
+            return row * sideSize + column;
+        }
+
+    }
+
 }
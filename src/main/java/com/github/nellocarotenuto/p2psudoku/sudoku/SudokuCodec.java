@@ -0,0 +1,289 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes boards into a compact binary form, used whenever a board is serialized.
+ *
+ * Since numbers are only accepted when they match the solution, the state of a board is fully described by its
+ * solution and by which cells are fixed and which ones have been filled by the player. The encoding is made of the side
+ * size, a bitmap of the fixed cells, a bitmap of the filled cells and the values of the solution packed with as few bits
+ * as the side size requires: a classic board takes 1 + 11 + 11 + 41 = 64 bytes.
+ *
+ * The variants of the board take the top bits of the byte of the side size, so classic boards are encoded as before.
+ * Killer boards are followed by the cage of each cell, packed with as few bits as the number of cells requires.
+ *
+ * Boards generated from a seed can instead be encoded as the seed, the generation mode, the version of the generator
+ * and the bitmap of the filled cells, since the puzzle can be generated again from them: a classic board takes
+ * 8 + 11 = 19 bytes. Such encodings have 0 in the bits of the side size of the first byte, and the side size follows
+ * the version. They can only be decoded by a generator of the same version, which turns the seed back into the same
+ * puzzle, and the puzzle is taken from the {@link PuzzleCache#getShared() shared cache} when possible.
+ */
+public final class SudokuCodec {
+
+    private static final int SIDE_SIZE_BITS = 5;
+    private static final int SEED_HEADER_SIZE = 4 + Integer.BYTES;
+
+    private SudokuCodec() {
+
+    }
+
+    /**
+     * Gets the size of the encoding of a board.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return the number of bytes taken by the encoding of a board of the given size
+     */
+    public static int encodedSize(int sideSize) {
+        return encodedSize(sideSize, 0);
+    }
+
+    /**
+     * Gets the size of the encoding of a board with some variants.
+     *
+     * @param sideSize the number of cells on each side of the board
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     *
+     * @return the number of bytes taken by the encoding of a board of the given size and variants
+     */
+    static int encodedSize(int sideSize, int variants) {
+        int boardSize = sideSize * sideSize;
+        int size = 1 + 2 * PuzzlePack.packedSize(boardSize, 1) +
+                   PuzzlePack.packedSize(boardSize, PuzzlePack.bitsPerValue(sideSize));
+
+        if (Constraints.has(variants, Variant.KILLER)) {
+            size += PuzzlePack.packedSize(boardSize, PuzzlePack.bitsPerValue(boardSize));
+        }
+
+        return size;
+    }
+
+    /**
+     * Gets the size of the encoding of a board generated from a seed.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return the number of bytes taken by the encoding of the seed of a board of the given size
+     */
+    public static int encodedSeedSize(int sideSize) {
+        return SEED_HEADER_SIZE + PuzzlePack.packedSize(sideSize * sideSize, 1);
+    }
+
+    /**
+     * Encodes a board.
+     *
+     * @param sudoku the board to encode
+     *
+     * @return the encoding of the board
+     */
+    public static byte[] encode(Sudoku sudoku) {
+        int sideSize = sudoku.getSideSize();
+        int boardSize = sideSize * sideSize;
+
+        int variants = sudoku.getConstraints().variants();
+
+        byte[] values = sudoku.values();
+        byte[] clues = sudoku.clues();
+
+        byte[] fixed = new byte[boardSize];
+        byte[] filled = new byte[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            boolean isFixed = clues[position] != Sudoku.EMPTY_VALUE;
+
+            fixed[position] = (byte) (isFixed ? 1 : 0);
+            filled[position] = (byte) (!isFixed && values[position] != Sudoku.EMPTY_VALUE ? 1 : 0);
+        }
+
+        byte[] data = new byte[encodedSize(sideSize, variants)];
+        int bitmapSize = PuzzlePack.packedSize(boardSize, 1);
+        int solutionSize = PuzzlePack.packedSize(boardSize, PuzzlePack.bitsPerValue(sideSize));
+
+        data[0] = (byte) (sideSize | variants << SIDE_SIZE_BITS);
+        PuzzlePack.pack(fixed, 1, data, 1);
+        PuzzlePack.pack(filled, 1, data, 1 + bitmapSize);
+        PuzzlePack.pack(sudoku.solution(), PuzzlePack.bitsPerValue(sideSize), data, 1 + 2 * bitmapSize);
+
+        if (Constraints.has(variants, Variant.KILLER)) {
+            PuzzlePack.pack(sudoku.cages(), PuzzlePack.bitsPerValue(boardSize), data,
+                            1 + 2 * bitmapSize + solutionSize);
+        }
+
+        return data;
+    }
+
+    /**
+     * Encodes a board generated from a seed as the seed and the cells filled so far.
+     *
+     * @param sudoku the board to encode
+     *
+     * @return the encoding of the seed and the progress of the board
+     *
+     * @throws IllegalArgumentException if the board wasn't generated from a seed
+     */
+    public static byte[] encodeSeed(Sudoku sudoku) {
+        if (sudoku.seed() == null) {
+            throw new IllegalArgumentException("The board wasn't generated from a seed.");
+        }
+
+        int sideSize = sudoku.getSideSize();
+        int boardSize = sideSize * sideSize;
+
+        byte[] values = sudoku.values();
+        byte[] clues = sudoku.clues();
+        byte[] filled = new byte[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            filled[position] = (byte) (clues[position] == Sudoku.EMPTY_VALUE &&
+                                       values[position] != Sudoku.EMPTY_VALUE ? 1 : 0);
+        }
+
+        byte[] data = new byte[encodedSeedSize(sideSize)];
+
+        data[0] = (byte) (sudoku.getConstraints().variants() << SIDE_SIZE_BITS);
+        data[1] = (byte) Generator.VERSION;
+        data[2] = (byte) sideSize;
+        data[3] = (byte) sudoku.mode().ordinal();
+        ByteBuffer.wrap(data, 4, Integer.BYTES).putInt(sudoku.seed());
+        PuzzlePack.pack(filled, 1, data, SEED_HEADER_SIZE);
+
+        return data;
+    }
+
+    /**
+     * Decodes a board, whether encoded in full or as its seed.
+     *
+     * @param data the encoding of the board
+     *
+     * @return the board decoded
+     *
+     * @throws IllegalArgumentException if the data isn't the encoding of a board, or if it's the encoding of a seed for
+     *                                  a different version of the generator
+     */
+    public static Sudoku decode(byte[] data) {
+        if (data.length == 0) {
+            throw new IllegalArgumentException("The data doesn't contain a board.");
+        }
+
+        int sideSize = data[0] & ((1 << SIDE_SIZE_BITS) - 1);
+        int variants = (data[0] & 0xff) >>> SIDE_SIZE_BITS;
+
+        if (sideSize == 0) {
+            return decodeSeed(data, variants);
+        }
+
+        Sudoku.checkSideSize(sideSize);
+
+        if (data.length != encodedSize(sideSize, variants)) {
+            throw new IllegalArgumentException("Expected " + encodedSize(sideSize, variants) + " bytes for a board " +
+                                               "with a side of " + sideSize + " cells, got " + data.length + ".");
+        }
+
+        int boardSize = sideSize * sideSize;
+        int bitmapSize = PuzzlePack.packedSize(boardSize, 1);
+        int solutionSize = PuzzlePack.packedSize(boardSize, PuzzlePack.bitsPerValue(sideSize));
+
+        byte[] fixed = new byte[boardSize];
+        byte[] filled = new byte[boardSize];
+        byte[] solution = new byte[boardSize];
+
+        PuzzlePack.unpack(data, 1, 1, fixed);
+        PuzzlePack.unpack(data, 1 + bitmapSize, 1, filled);
+        PuzzlePack.unpack(data, 1 + 2 * bitmapSize, PuzzlePack.bitsPerValue(sideSize), solution);
+
+        byte[] cages = null;
+
+        if (Constraints.has(variants, Variant.KILLER)) {
+            cages = new byte[boardSize];
+            PuzzlePack.unpack(data, 1 + 2 * bitmapSize + solutionSize, PuzzlePack.bitsPerValue(boardSize), cages);
+        }
+
+        // Rebuild the puzzle from the fixed cells and fill in the numbers placed
+        byte[] clues = new byte[boardSize];
+
+        for (int position = 0; position < boardSize; position++) {
+            if (solution[position] < 1 || solution[position] > sideSize) {
+                throw new IllegalArgumentException("Invalid value " + solution[position] + " in the solution.");
+            }
+
+            if (fixed[position] != 0 && filled[position] != 0) {
+                throw new IllegalArgumentException("Cell " + position + " can't be both fixed and filled.");
+            }
+
+            clues[position] = fixed[position] != 0 ? solution[position] : Sudoku.EMPTY_VALUE;
+        }
+
+        Sudoku sudoku = new Sudoku(new Puzzle(sideSize, clues, solution, variants, cages));
+
+        for (int position = 0; position < boardSize; position++) {
+            if (filled[position] != 0) {
+                sudoku.fill(position);
+            }
+        }
+
+        return sudoku;
+    }
+
+    /**
+     * Decodes a board from its seed and the cells filled so far, generating the puzzle again if it isn't cached.
+     *
+     * @param data the encoding of the seed of the board
+     * @param variants the bitmask of the variants of the board, where bit i stands for the variant of ordinal i
+     *
+     * @return the board decoded
+     *
+     * @throws IllegalArgumentException if the data isn't the encoding of a seed for this version of the generator
+     */
+    private static Sudoku decodeSeed(byte[] data, int variants) {
+        if (data.length < SEED_HEADER_SIZE) {
+            throw new IllegalArgumentException("The data doesn't contain a seed.");
+        }
+
+        if (data[1] != Generator.VERSION) {
+            throw new IllegalArgumentException("The board was generated by version " + data[1] + " of the generator, " +
+                                               "expected version " + Generator.VERSION + ".");
+        }
+
+        int sideSize = data[2];
+        Sudoku.checkSideSize(sideSize);
+
+        if (data[3] < 0 || data[3] >= GenerationMode.values().length) {
+            throw new IllegalArgumentException("Invalid generation mode " + data[3] + ".");
+        }
+
+        if (data.length != encodedSeedSize(sideSize)) {
+            throw new IllegalArgumentException("Expected " + encodedSeedSize(sideSize) + " bytes for the seed of a " +
+                                               "board with a side of " + sideSize + " cells, got " + data.length +
+                                               ".");
+        }
+
+        GenerationMode mode = GenerationMode.values()[data[3]];
+        int seed = ByteBuffer.wrap(data, 4, Integer.BYTES).getInt();
+        int boardSize = sideSize * sideSize;
+
+        Puzzle puzzle = PuzzleCache.getShared().get(seed, sideSize, mode, variants);
+        Sudoku sudoku = new Sudoku(puzzle, seed, mode);
+
+        // Fill in the numbers placed
+        byte[] filled = new byte[boardSize];
+        byte[] clues = puzzle.clues();
+
+        PuzzlePack.unpack(data, SEED_HEADER_SIZE, 1, filled);
+
+        for (int position = 0; position < boardSize; position++) {
+            if (filled[position] == 0) {
+                continue;
+            }
+
+            if (clues[position] != Sudoku.EMPTY_VALUE) {
+                throw new IllegalArgumentException("Cell " + position + " can't be both fixed and filled.");
+            }
+
+            sudoku.fill(position);
+        }
+
+        return sudoku;
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a bounded stock of uniquely solvable boards for each difficulty, generated ahead of time by background workers.
+ *
+ * Workers generate and grade random boards and store each one in the queue of its difficulty, unless that queue is
+ * full. They go to sleep as soon as every queue is full and wake up as boards are taken out. Boards are generated from
+ * random seeds without going through the {@link PuzzleCache}, as most of them are thrown away and would only evict the
+ * puzzles worth keeping.
+ */
+public class SudokuPool implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 4;
+
+    private final Map<Difficulty, BlockingQueue<Sudoku>> boards;
+    private final ExecutorService workers;
+    private final Object lock;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new pool and starts filling it.
+     *
+     * @param capacity the maximum number of boards to keep for each difficulty
+     * @param workers the number of background threads generating boards
+     */
+    public SudokuPool(int capacity, int workers) {
+        this.boards = new EnumMap<>(Difficulty.class);
+        this.lock = new Object();
+
+        for (Difficulty difficulty : Difficulty.values()) {
+            boards.put(difficulty, new ArrayBlockingQueue<>(capacity));
+        }
+
+        this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "sudoku-pool-worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+
+            return thread;
+        });
+
+        for (int i = 0; i < workers; i++) {
+            this.workers.submit(this::fill);
+        }
+    }
+
+    /**
+     * Takes a board out of the pool, generating one on the calling thread if none is ready.
+     *
+     * @param difficulty the difficulty of the board
+     *
+     * @return a new uniquely solvable board of the given difficulty
+     */
+    public Sudoku take(Difficulty difficulty) {
+        Sudoku sudoku = boards.get(difficulty).poll();
+
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+
+        return sudoku != null ? sudoku : generate(difficulty, new Random());
+    }
+
+    /**
+     * Gets the number of boards ready for a difficulty.
+     *
+     * @param difficulty the difficulty of the boards
+     *
+     * @return the number of boards of the given difficulty currently in the pool
+     */
+    public int size(Difficulty difficulty) {
+        return boards.get(difficulty).size();
+    }
+
+    /**
+     * Stops the background workers.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdownNow();
+    }
+
+    /**
+     * Generates uniquely solvable boards until one of the requested difficulty comes out.
+     *
+     * @param difficulty the difficulty of the board
+     * @param random the random number generator used to pick the seeds
+     *
+     * @return a new uniquely solvable board of the given difficulty
+     */
+    static Sudoku generate(Difficulty difficulty, Random random) {
+        while (true) {
+            Sudoku sudoku = generate(random.nextInt());
+
+            if (sudoku.grade().getDifficulty() == difficulty) {
+                return sudoku;
+            }
+        }
+    }
+
+    /**
+     * Generates a uniquely solvable board from a seed, keeping the seed so that the board can be sent as the seed alone.
+     *
+     * @param seed the seed of the board
+     *
+     * @return a new uniquely solvable board
+     */
+    private static Sudoku generate(int seed) {
+        return new Sudoku(Sudoku.generate(new Random(seed), GenerationMode.UNIQUE), seed, GenerationMode.UNIQUE);
+    }
+
+    /**
+     * Generates boards as long as there is room for them in the pool.
+     */
+    private void fill() {
+        Random random = new Random();
+
+        try {
+            while (!closed) {
+                synchronized (lock) {
+                    while (!closed && isFull()) {
+                        lock.wait();
+                    }
+                }
+
+                Sudoku sudoku = generate(random.nextInt());
+                boards.get(sudoku.grade().getDifficulty()).offer(sudoku);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tells whether the queues of every difficulty are full.
+     *
+     * @return true if there is no room left in the pool, false otherwise
+     */
+    private boolean isFull() {
+        for (BlockingQueue<Sudoku> queue : boards.values()) {
+            if (queue.remainingCapacity() > 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Defines the solving techniques a human player would use, from the simplest to the hardest.
+ */
+public enum Technique {
+
+    /**
+     * A value can only go in one cell of a row, column or region.
+     */
+    HIDDEN_SINGLE(1, Difficulty.EASY),
+
+    /**
+     * A cell has only one candidate left.
+     */
+    NAKED_SINGLE(2, Difficulty.EASY),
+
+    /**
+     * A candidate of a cell of a cage doesn't fit any set of distinct values adding up to the sum of the cage.
+     */
+    CAGE_COMBINATIONS(3, Difficulty.EASY),
+
+    /**
+     * The candidates for a value in a region lie on a single row or column, or vice versa.
+     */
+    LOCKED_CANDIDATES(5, Difficulty.MEDIUM),
+
+    /**
+     * Two cells of a group share the same two candidates, which can't go anywhere else in the group.
+     */
+    NAKED_PAIR(10, Difficulty.MEDIUM),
+
+    /**
+     * Two values of a group can only go in the same two cells, which can't hold anything else.
+     */
+    HIDDEN_PAIR(15, Difficulty.HARD),
+
+    /**
+     * The candidates for a value in two rows lie on the same two columns, or vice versa.
+     */
+    X_WING(20, Difficulty.HARD);
+
+    private final int score;
+    private final Difficulty difficulty;
+
+    Technique(int score, Difficulty difficulty) {
+        this.score = score;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Gets the score added to a puzzle each time the technique is needed.
+     *
+     * @return the score of the technique
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the difficulty of a puzzle that needs the technique to be solved.
+     *
+     * @return the difficulty tier of the technique
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Defines the sets of constraints a board can add to those of its rows, columns and regions.
+ */
+public enum Variant {
+
+    /**
+     * Each of the two main diagonals holds every value once.
+     */
+    DIAGONAL,
+
+    /**
+     * Each of the windows between the regions, as large as a region and one cell away from the border and from each
+     * other, holds every value once.
+     */
+    WINDOKU,
+
+    /**
+     * The board is split into cages, each holding distinct values whose sum is given to the players.
+     */
+    KILLER
+
+}
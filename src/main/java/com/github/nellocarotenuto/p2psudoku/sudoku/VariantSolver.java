@@ -0,0 +1,345 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+/**
+ * Solves boards with any set of constraints by backtracking over the bitmasks of their groups.
+ *
+ * Each group keeps a bitmask of the values it holds, where bit v - 1 stands for value v, so the candidates of a cell
+ * are the values missing from the masks of its groups. The search always fills the empty cell with the fewest
+ * candidates next. Cages also keep the sum still missing and the number of cells left, and a value is only a candidate
+ * for a cell of a cage if the cells left can still reach the sum with distinct values. Exact cover doesn't fit sums, and
+ * the extra groups of the other variants only add a mask to each check here, so every variant goes through this solver
+ * while classic boards keep using {@link DancingLinks}.
+ *
+ * Instances are not thread safe and can be reused for any number of boards with the same constraints.
+ */
+class VariantSolver implements ExactSolver {
+
+    private final Constraints constraints;
+    private final int sideSize;
+    private final int boardSize;
+    private final int allValues;
+
+    private final int[][] cellUnits;
+    private final int[][] cages;
+    private final int[] cageSums;
+    private final int[] cellCages;
+
+    private final int[] unitMasks;
+    private final int[] cageMasks;
+    private final int[] cageMissing;
+    private final int[] cageEmpty;
+    private final int[] values;
+    private final int[] emptyCells;
+
+    private int[] solution;
+    private int solutions;
+    private int limit;
+
+    /**
+     * Prepares a solver for boards with the given constraints.
+     *
+     * @param constraints the groups and cages of the boards
+     */
+    VariantSolver(Constraints constraints) {
+        this.constraints = constraints;
+        this.sideSize = constraints.getSideSize();
+        this.boardSize = sideSize * sideSize;
+        this.allValues = (1 << sideSize) - 1;
+
+        cellUnits = constraints.cellUnits();
+        cages = constraints.cages();
+        cageSums = constraints.cageSums();
+        cellCages = constraints.cellCages();
+
+        unitMasks = new int[constraints.units().length];
+        cageMasks = new int[cages.length];
+        cageMissing = new int[cages.length];
+        cageEmpty = new int[cages.length];
+        values = new int[boardSize];
+        emptyCells = new int[boardSize];
+    }
+
+    /**
+     * Gets the constraints of the boards handled.
+     *
+     * @return the groups and cages of the boards this instance can solve
+     */
+    Constraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Counts the solutions of a board, stopping as soon as a limit is reached.
+     *
+     * @param board the values of the board in row-major order, with {@link Sudoku#EMPTY_VALUE} for empty cells
+     * @param limit the number of solutions after which to stop searching
+     * @param solution an array filled with the first solution found, null if it isn't needed
+     *
+     * @return the number of solutions found, never greater than the limit
+     */
+    @Override
+    public int solve(int[] board, int limit, int[] solution) {
+        if (board.length != boardSize) {
+            throw new IllegalArgumentException("Expected a board of " + boardSize + " cells, got " + board.length + ".");
+        }
+
+        this.solution = solution;
+        this.solutions = 0;
+        this.limit = limit;
+
+        // Start from empty groups and cages
+        for (int unit = 0; unit < unitMasks.length; unit++) {
+            unitMasks[unit] = 0;
+        }
+
+        for (int cage = 0; cage < cages.length; cage++) {
+            cageMasks[cage] = 0;
+            cageMissing[cage] = cageSums[cage];
+            cageEmpty[cage] = cages[cage].length;
+        }
+
+        // Place the givens, giving up if two of them share a group or overflow a cage
+        int empty = 0;
+
+        for (int cell = 0; cell < boardSize; cell++) {
+            int value = board[cell];
+
+            if (value == Sudoku.EMPTY_VALUE) {
+                values[cell] = Sudoku.EMPTY_VALUE;
+                emptyCells[empty++] = cell;
+                continue;
+            }
+
+            if (value < 1 || value > sideSize || (used(cell) & (1 << (value - 1))) != 0) {
+                return 0;
+            }
+
+            set(cell, value);
+        }
+
+        for (int cage = 0; cage < cages.length; cage++) {
+            if (cageMissing[cage] < 0 || (cageEmpty[cage] == 0 && cageMissing[cage] != 0)) {
+                return 0;
+            }
+        }
+
+        if (limit > 0) {
+            search(empty);
+        }
+
+        this.solution = null;
+
+        return solutions;
+    }
+
+    /**
+     * Fills the empty cell with the fewest candidates with each of them in turn, recursively.
+     *
+     * @param empty the number of empty cells, listed at the beginning of the array of the empty cells
+     *
+     * @return true if the limit of solutions has been reached and the search should stop, false otherwise
+     */
+    private boolean search(int empty) {
+        if (empty == 0) {
+            if (solutions == 0 && solution != null) {
+                System.arraycopy(values, 0, solution, 0, boardSize);
+            }
+
+            return ++solutions >= limit;
+        }
+
+        // Pick the cell with the fewest candidates
+        int best = -1;
+        int bestCandidates = 0;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int index = 0; index < empty && bestCount > 1; index++) {
+            int candidates = candidates(emptyCells[index]);
+            int count = Integer.bitCount(candidates);
+
+            if (count < bestCount) {
+                best = index;
+                bestCandidates = candidates;
+                bestCount = count;
+            }
+        }
+
+        if (bestCount == 0) {
+            return false;
+        }
+
+        // Move it past the empty cells left
+        int cell = emptyCells[best];
+        emptyCells[best] = emptyCells[empty - 1];
+        emptyCells[empty - 1] = cell;
+
+        boolean stop = false;
+
+        for (int candidates = bestCandidates; candidates != 0 && !stop; candidates &= candidates - 1) {
+            int value = Integer.numberOfTrailingZeros(candidates) + 1;
+
+            set(cell, value);
+            stop = search(empty - 1);
+            clear(cell);
+        }
+
+        emptyCells[empty - 1] = emptyCells[best];
+        emptyCells[best] = cell;
+
+        return stop;
+    }
+
+    /**
+     * Gets the values held by the groups and the cage of a cell.
+     *
+     * @param cell the position of the cell in row-major order
+     *
+     * @return the bitmask of the values that can't go into the cell
+     */
+    private int used(int cell) {
+        int used = 0;
+
+        for (int unit : cellUnits[cell]) {
+            used |= unitMasks[unit];
+        }
+
+        if (cellCages != null && cellCages[cell] >= 0) {
+            used |= cageMasks[cellCages[cell]];
+        }
+
+        return used;
+    }
+
+    /**
+     * Gets the candidates of an empty cell.
+     *
+     * @param cell the position of the cell in row-major order
+     *
+     * @return the bitmask of the values missing from the groups of the cell that still let its cage reach its sum
+     */
+    private int candidates(int cell) {
+        int candidates = allValues & ~used(cell);
+
+        if (cellCages == null || cellCages[cell] < 0) {
+            return candidates;
+        }
+
+        int cage = cellCages[cell];
+        int missing = cageMissing[cage];
+        int others = cageEmpty[cage] - 1;
+
+        // The last cell of a cage takes whatever the sum misses
+        if (others == 0) {
+            return missing >= 1 && missing <= sideSize ? candidates & (1 << (missing - 1)) : 0;
+        }
+
+        int free = allValues & ~cageMasks[cage];
+
+        for (int mask = candidates; mask != 0; mask &= mask - 1) {
+            int bit = Integer.lowestOneBit(mask);
+            int rest = missing - Integer.numberOfTrailingZeros(bit) - 1;
+
+            if (rest < minSum(free & ~bit, others) || rest > maxSum(free & ~bit, others)) {
+                candidates &= ~bit;
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Puts a value into an empty cell and marks it as used in its groups and cage.
+     *
+     * @param cell the position of the cell in row-major order
+     * @param value the value to put into the cell
+     */
+    private void set(int cell, int value) {
+        int bit = 1 << (value - 1);
+
+        for (int unit : cellUnits[cell]) {
+            unitMasks[unit] |= bit;
+        }
+
+        if (cellCages != null && cellCages[cell] >= 0) {
+            int cage = cellCages[cell];
+
+            cageMasks[cage] |= bit;
+            cageMissing[cage] -= value;
+            cageEmpty[cage]--;
+        }
+
+        values[cell] = value;
+    }
+
+    /**
+     * Empties a cell and releases its value in its groups and cage.
+     *
+     * @param cell the position of the cell in row-major order
+     */
+    private void clear(int cell) {
+        int value = values[cell];
+        int mask = ~(1 << (value - 1));
+
+        for (int unit : cellUnits[cell]) {
+            unitMasks[unit] &= mask;
+        }
+
+        if (cellCages != null && cellCages[cell] >= 0) {
+            int cage = cellCages[cell];
+
+            cageMasks[cage] &= mask;
+            cageMissing[cage] += value;
+            cageEmpty[cage]++;
+        }
+
+        values[cell] = Sudoku.EMPTY_VALUE;
+    }
+
+    /**
+     * Gets the smallest sum of distinct values taken from a set.
+     *
+     * @param values the bitmask of the values available
+     * @param count the number of values to add up
+     *
+     * @return the sum of the smallest values, {@link Integer#MAX_VALUE} if there aren't enough values
+     */
+    private static int minSum(int values, int count) {
+        int sum = 0;
+
+        for (; count > 0; count--, values &= values - 1) {
+            if (values == 0) {
+                return Integer.MAX_VALUE;
+            }
+
+            sum += Integer.numberOfTrailingZeros(values) + 1;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Gets the largest sum of distinct values taken from a set.
+     *
+     * @param values the bitmask of the values available
+     * @param count the number of values to add up
+     *
+     * @return the sum of the largest values, {@link Integer#MIN_VALUE} if there aren't enough values
+     */
+    private static int maxSum(int values, int count) {
+        int sum = 0;
+
+        for (; count > 0; count--) {
+            if (values == 0) {
+                return Integer.MIN_VALUE;
+            }
+
+            int bit = Integer.highestOneBit(values);
+
+            sum += Integer.numberOfTrailingZeros(bit) + 1;
+            values &= ~bit;
+        }
+
+        return sum;
+    }
+
+}
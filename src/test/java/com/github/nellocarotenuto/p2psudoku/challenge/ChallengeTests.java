@@ -0,0 +1,340 @@
+package com.github.nellocarotenuto.p2psudoku.challenge;
+
+import com.github.nellocarotenuto.p2psudoku.sudoku.BoardView;
+import com.github.nellocarotenuto.p2psudoku.sudoku.GenerationMode;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PencilMarks;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PlacementResult;
+import com.github.nellocarotenuto.p2psudoku.sudoku.Puzzle;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PuzzleCache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ChallengeTests {
+
+    private final Player alice = new Player("Alice", null);
+    private final Player bob = new Player("Bob", null);
+    private final Player carol = new Player("Carol", null);
+
+    @Test
+    @DisplayName("Move encoding test")
+    public void testMoveEncoding() throws Exception {
+        Move join = Move.decode(Move.join(bob).encode());
+
+        assertEquals(join.getType(), Move.Type.JOIN);
+        assertEquals(join.getNickname(), "Bob");
+        assertEquals(join.getPlayer(), bob);
+
+        Move start = Move.decode(Move.start(alice).encode());
+
+        assertEquals(start.getType(), Move.Type.START);
+        assertEquals(start.getNickname(), "Alice");
+        assertNull(start.getPlayer());
+
+        for (PlacementResult result : PlacementResult.values()) {
+            Move place = Move.decode(Move.place(bob, 7, 6, 4, result).encode());
+
+            assertEquals(place.getType(), Move.Type.PLACE);
+            assertEquals(place.getNickname(), "Bob");
+            assertEquals(place.getRow(), 7);
+            assertEquals(place.getColumn(), 6);
+            assertEquals(place.getNumber(), 4);
+            assertEquals(place.getResult(), result);
+        }
+
+        Move handOver = Move.decode(Move.quit(alice, bob).encode());
+
+        assertEquals(handOver.getType(), Move.Type.QUIT);
+        assertEquals(handOver.getNickname(), "Alice");
+        assertEquals(handOver.getOwner(), "Bob");
+
+        Move quit = Move.decode(Move.quit(bob, null).encode());
+
+        assertEquals(quit.getType(), Move.Type.QUIT);
+        assertEquals(quit.getNickname(), "Bob");
+        assertNull(quit.getOwner());
+        assertEquals(Move.place(bob, 7, 6, 4, PlacementResult.PLACED).encode().length, 10);
+    }
+
+    @Test
+    @DisplayName("Replay from creation test")
+    public void testReplayFromCreation() throws Exception {
+        Challenge challenge = new Challenge(alice, "Challenge 1", 7, false);
+        challenge.addPlayer(alice);
+
+        Challenge created = copy(challenge);
+        List<Move> moves = Arrays.asList(Move.join(bob), Move.join(carol), Move.start(alice), Move.quit(carol, null));
+        Map<Player, List<Move>> logs = new HashMap<>();
+
+        for (Move move : moves) {
+            challenge.apply(move);
+        }
+
+        // Read the marks before playing, so that they are updated as numbers are placed rather than built at the end
+        challenge.getCandidates(alice, 0, 0);
+        challenge.getCandidates(bob, 0, 0);
+
+        play(challenge, logs, new Random(7), 2000);
+
+        // Replay the logs of the players one after the other, rather than interleaved as they were made
+        for (Move move : moves) {
+            created.apply(move);
+        }
+
+        for (Player player : Arrays.asList(bob, alice)) {
+            for (Move move : logs.get(player)) {
+                created.apply(move);
+            }
+        }
+
+        assertEquals(challenge.getStatus(), ChallengeStatus.ENDED);
+        assertEquals(created.getSequence(), moves.size());
+        assertSameState(created, challenge);
+    }
+
+    @Test
+    @DisplayName("Replay from snapshot test")
+    public void testReplayFromSnapshot() throws Exception {
+        Challenge challenge = new Challenge(alice, "Challenge 1", 7, false);
+        challenge.addPlayer(alice);
+
+        List<Move> moves = Arrays.asList(Move.join(bob), Move.start(alice), Move.join(carol));
+        Map<Player, List<Move>> logs = new HashMap<>();
+
+        challenge.apply(moves.get(0));
+        challenge.apply(moves.get(1));
+
+        play(challenge, logs, new Random(7), 40);
+
+        // Take the snapshots midway, as the clients would write them to the DHT
+        Challenge snapshot = copy(challenge);
+        Map<Player, Progress> progress = new HashMap<>();
+
+        progress.put(alice, copy(challenge.getProgress(alice)));
+        progress.put(bob, copy(challenge.getProgress(bob)));
+
+        // Snapshots of challenges leave the progress of the players out
+        assertEquals(snapshot.getSequence(), 2);
+        assertEquals(snapshot.getSequence(bob), 0);
+        assertEquals(snapshot.getScore(bob), 0);
+
+        play(challenge, logs, new Random(11), 40);
+        challenge.apply(moves.get(2));
+        play(challenge, logs, new Random(13), 60);
+
+        // Replay the log of the challenge, then restore the progress of the players and replay their logs from there
+        for (Move move : moves.subList(snapshot.getSequence(), moves.size())) {
+            snapshot.apply(move);
+        }
+
+        for (Player player : progress.keySet()) {
+            snapshot.restore(player, progress.get(player));
+        }
+
+        for (Player player : Arrays.asList(carol, bob, alice)) {
+            List<Move> log = logs.get(player);
+
+            for (Move move : log.subList(snapshot.getSequence(player), log.size())) {
+                snapshot.apply(move);
+            }
+        }
+
+        assertEquals(snapshot.getPlayers().size(), 3);
+        assertSameState(snapshot, challenge);
+    }
+
+    @Test
+    @DisplayName("Replay after quitting test")
+    public void testReplayAfterQuitting() throws Exception {
+        Challenge challenge = new Challenge(alice, "Challenge 1", 7, false);
+        challenge.addPlayer(alice);
+
+        Map<Player, List<Move>> logs = new HashMap<>();
+
+        challenge.apply(Move.join(bob));
+        challenge.apply(Move.start(alice));
+
+        play(challenge, logs, new Random(7), 40);
+
+        Progress progress = copy(challenge.getProgress(bob));
+
+        play(challenge, logs, new Random(11), 40);
+
+        // The owner hands the challenge over and its log is removed, after a snapshot of the challenge is taken
+        challenge.apply(Move.quit(alice, bob));
+
+        Challenge snapshot = copy(challenge);
+
+        play(challenge, logs, new Random(13), 40);
+
+        snapshot.restore(bob, progress);
+
+        for (Move move : logs.get(bob).subList(progress.getSequence(), logs.get(bob).size())) {
+            snapshot.apply(move);
+        }
+
+        assertEquals(snapshot.getOwner(), bob);
+        assertEquals(snapshot.getSequence(), 3);
+        assertSameState(snapshot, challenge);
+    }
+
+    @Test
+    @DisplayName("Placement racing the end test")
+    public void testPlacementRacingTheEnd() throws Exception {
+        Challenge challenge = new Challenge(alice, "Challenge 1", 7, false);
+        challenge.addPlayer(alice);
+
+        Challenge created = copy(challenge);
+        List<Move> moves = Arrays.asList(Move.join(bob), Move.start(alice));
+        Map<Player, List<Move>> logs = new HashMap<>();
+
+        for (Move move : moves) {
+            challenge.apply(move);
+            created.apply(move);
+        }
+
+        // Check a number of Bob before the end is known, while Alice completes her board
+        Challenge bobView = copy(challenge);
+        PlacementResult result = bobView.evaluate(bob, 7, 8, 7);
+
+        play(challenge, logs, new Random(7), 2000);
+
+        assertEquals(challenge.getStatus(), ChallengeStatus.ENDED);
+        assertEquals(result, PlacementResult.WRONG);
+
+        // The number still counts where its move is replayed after the end, as where it's replayed before
+        Move move = Move.place(bob, 7, 8, 7, result);
+        int score = challenge.getScore(bob);
+
+        assertEquals(challenge.apply(move), PlacementResult.WRONG);
+        assertEquals(challenge.getScore(bob), score + Challenge.WRONG_NUMBER_SCORE);
+        assertEquals(challenge.getStatus(), ChallengeStatus.ENDED);
+
+        created.apply(move);
+
+        for (Player player : Arrays.asList(alice, bob)) {
+            for (Move placement : logs.get(player)) {
+                created.apply(placement);
+            }
+        }
+
+        assertSameState(created, challenge);
+    }
+
+    /**
+     * Places numbers on a challenge in turn for each of its players, appending the moves to their logs as the clients
+     * do, where the first player finding the number of a cell claims it.
+     *
+     * @param challenge the challenge to play
+     * @param logs the logs of the moves placing numbers of each player
+     * @param random the source of the cells and numbers to place
+     * @param count the number of placements to make, unless the challenge ends first
+     */
+    private static void play(Challenge challenge, Map<Player, List<Move>> logs, Random random, int count)
+            throws Exception {
+        Puzzle puzzle = PuzzleCache.getShared().get(7, GenerationMode.CLASSIC);
+        List<Player> players = new ArrayList<>(challenge.getPlayers());
+        Set<Integer> claims = new HashSet<>();
+        int sideSize = challenge.getSideSize();
+
+        for (int i = 0; i < count && challenge.getStatus() == ChallengeStatus.PLAYING; i++) {
+            Player player = players.get(i % players.size());
+            int row = random.nextInt(sideSize);
+            int column = random.nextInt(sideSize);
+            int number = random.nextInt(4) == 0 ? 1 + random.nextInt(sideSize) : puzzle.getSolution(row, column);
+
+            PlacementResult result = challenge.evaluate(player, row, column, number);
+
+            if (result == PlacementResult.PLACED && !claims.add(row * sideSize + column)) {
+                result = PlacementResult.ALREADY_GUESSED;
+            }
+
+            Move move = Move.decode(Move.place(player, row, column, number, result).encode());
+            List<Move> log = logs.computeIfAbsent(player, key -> new ArrayList<>());
+
+            log.add(move);
+
+            assertEquals(challenge.apply(move), result);
+            assertEquals(challenge.getSequence(player), log.size());
+        }
+    }
+
+    /**
+     * Checks that a challenge rebuilt from the logs matches the one the moves were made on.
+     *
+     * @param actual the challenge rebuilt from the logs
+     * @param expected the challenge the moves were made on
+     */
+    private static void assertSameState(Challenge actual, Challenge expected) {
+        int sideSize = expected.getSideSize();
+        BoardView actualShared = actual.getSharedView();
+        BoardView expectedShared = expected.getSharedView();
+
+        assertEquals(actual.getStatus(), expected.getStatus());
+        assertEquals(actual.getOwner(), expected.getOwner());
+        assertEquals(actual.getPlayers(), expected.getPlayers());
+        assertEquals(actual.getRemainingCells(), expected.getRemainingCells());
+
+        for (int row = 0; row < sideSize; row++) {
+            for (int column = 0; column < sideSize; column++) {
+                assertEquals(actualShared.getValue(row, column), expectedShared.getValue(row, column));
+            }
+        }
+
+        for (Player player : expected.getPlayers()) {
+            Integer[][] board = expected.getBoard(player);
+            PencilMarks marks = new PencilMarks(board, expected.getConstraints());
+
+            assertEquals(actual.getScore(player), expected.getScore(player));
+            assertEquals(actual.getRemainingCells(player), expected.getRemainingCells(player));
+            assertEquals(actual.getSequence(player), expected.getSequence(player));
+            assertArrayEquals(actual.getBoard(player), board);
+
+            for (int row = 0; row < sideSize; row++) {
+                for (int column = 0; column < sideSize; column++) {
+                    assertEquals(actual.getView(player).getValue(row, column), (int) board[row][column]);
+                    assertEquals(actual.getCandidates(player, row, column), marks.getCandidates(row, column));
+                    assertEquals(expected.getCandidates(player, row, column), marks.getCandidates(row, column));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies an object through serialization, as it would be stored to and read from the DHT.
+     *
+     * @param object the object to copy
+     *
+     * @return the copy of the object
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) input.readObject();
+        }
+    }
+
+}
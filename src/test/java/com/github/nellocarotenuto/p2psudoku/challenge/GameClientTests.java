@@ -3,6 +3,7 @@ package com.github.nellocarotenuto.p2psudoku.challenge;
 import com.github.nellocarotenuto.p2psudoku.sudoku.FilledCellException;
 import com.github.nellocarotenuto.p2psudoku.sudoku.FixedCellException;
 import com.github.nellocarotenuto.p2psudoku.sudoku.InvalidNumberException;
+import com.github.nellocarotenuto.p2psudoku.sudoku.PlacementResult;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -324,12 +325,18 @@ public class GameClientTests {
 
         client1.startChallenge();
 
+        int remainingCells = client1.getChallengeRemainingCells();
+
         client1.placeNumber(7, 6, 4);
 
         assertEquals(client1.getChallengeBoard()[7][6], 4);
         assertEquals(client2.getChallengeBoard()[7][6], 0);
 
+        assertEquals(client1.getChallengeBoardView().getValue(7, 6), 4);
+        assertEquals(client2.getChallengeBoardView().getValue(7, 6), 0);
+
         assertEquals(client1.getChallengeScore(), Challenge.CORRECT_NUMBER_SCORE);
+        assertEquals(client1.getChallengeRemainingCells(), remainingCells - 1);
     }
 
     @Test
@@ -408,4 +415,115 @@ public class GameClientTests {
         assertEquals(client1.getChallengeScore(), Challenge.WRONG_NUMBER_SCORE);
     }
 
+    @Test
+    @DisplayName("Try place number test")
+    public void testTryPlaceNumber() throws Exception {
+        client1.login("Alice");
+        client2.login("Bob");
+
+        client1.createChallenge("Challenge 1", 7, false);
+        client2.joinChallenge("Challenge 1");
+
+        client1.startChallenge();
+
+        assertEquals(client1.tryPlaceNumber(7, 6, 4), PlacementResult.PLACED);
+        assertEquals(client1.tryPlaceNumber(7, 6, 5), PlacementResult.FILLED);
+        assertEquals(client1.tryPlaceNumber(7, 7, 8), PlacementResult.FIXED);
+        assertEquals(client2.tryPlaceNumber(7, 6, 4), PlacementResult.ALREADY_GUESSED);
+        assertEquals(client2.tryPlaceNumber(7, 8, 7), PlacementResult.WRONG);
+
+        assertEquals(client1.getChallengeScore(), Challenge.CORRECT_NUMBER_SCORE);
+        assertEquals(client2.getChallengeScore(), Challenge.WRONG_NUMBER_SCORE);
+    }
+
+    @Test
+    @DisplayName("Move log test")
+    public void testMoveLog() throws Exception {
+        client1.login("Alice");
+        client2.login("Bob");
+
+        client1.createChallenge("Challenge 1", 7, false);
+        client2.joinChallenge("Challenge 1");
+
+        client1.startChallenge();
+
+        // Make enough moves to go past a snapshot
+        for (int i = 0; i < 40; i++) {
+            client1.tryPlaceNumber(7, 8, 7);
+        }
+
+        client2.tryPlaceNumber(7, 6, 4);
+
+        assertEquals(client2.getChallengeScores().get(1).getValue1().intValue(), 40 * Challenge.WRONG_NUMBER_SCORE);
+
+        GameClient client3 = new GameClientImpl(InetAddress.getByName("127.0.0.1"), 4001, 4003);
+
+        try {
+            client3.login("Carol");
+            client3.joinChallenge("Challenge 1");
+
+            assertEquals(client3.getChallengeScores().get(0).getValue0(), "Bob");
+            assertEquals(client3.getChallengeScores().get(0).getValue1().intValue(), Challenge.CORRECT_NUMBER_SCORE);
+            assertEquals(client3.getChallengeScores().get(2).getValue1().intValue(), 40 * Challenge.WRONG_NUMBER_SCORE);
+            assertEquals(client1.getChallengeScores().size(), 3);
+        } finally {
+            client3.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Move log of a player joining later test")
+    public void testMoveLogOfPlayerJoiningLater() throws Exception {
+        client1.login("Alice");
+        client2.login("Bob");
+
+        client1.createChallenge("Challenge 1", 7, false);
+        client2.joinChallenge("Challenge 1");
+
+        client1.startChallenge();
+
+        // Make enough moves to take a snapshot of the progress of a player who isn't in the one of the challenge
+        for (int i = 0; i < 40; i++) {
+            client2.tryPlaceNumber(7, 8, 7);
+        }
+
+        client2.tryPlaceNumber(7, 6, 4);
+
+        GameClient client3 = new GameClientImpl(InetAddress.getByName("127.0.0.1"), 4001, 4003);
+
+        try {
+            client3.login("Carol");
+            client3.joinChallenge("Challenge 1");
+
+            assertEquals(client3.getChallengeScores().get(2).getValue0(), "Bob");
+            assertEquals(client3.getChallengeScores().get(2).getValue1().intValue(),
+                         40 * Challenge.WRONG_NUMBER_SCORE + Challenge.CORRECT_NUMBER_SCORE);
+            assertEquals(client3.tryPlaceNumber(7, 6, 4), PlacementResult.ALREADY_GUESSED);
+        } finally {
+            client3.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Rejoin challenge test")
+    public void testRejoinChallenge() throws Exception {
+        client1.login("Alice");
+        client2.login("Bob");
+
+        client1.createChallenge("Challenge 1", 7, false);
+        client2.joinChallenge("Challenge 1");
+
+        client1.startChallenge();
+
+        assertEquals(client2.tryPlaceNumber(7, 6, 4), PlacementResult.PLACED);
+        assertEquals(client2.tryPlaceNumber(7, 8, 7), PlacementResult.WRONG);
+
+        client2.quitChallenge();
+        client2.joinChallenge("Challenge 1");
+
+        assertEquals(client2.getChallengeScore(), 0);
+        assertEquals(client2.getChallengeRemainingCells(), client1.getChallengeRemainingCells());
+        assertEquals(client1.tryPlaceNumber(7, 6, 4), PlacementResult.ALREADY_GUESSED);
+    }
+
 }
@@ -0,0 +1,419 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import com.github.nellocarotenuto.p2psudoku.challenge.Challenge;
+import com.github.nellocarotenuto.p2psudoku.challenge.ChallengeStatus;
+import com.github.nellocarotenuto.p2psudoku.challenge.NumberAlreadyGuessedException;
+import com.github.nellocarotenuto.p2psudoku.challenge.Player;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the throughput of the board generator.
+ *
+ * This is not a unit test: run it by hand, for instance from the IDE, and compare the figures across revisions.
+ */
+public class SudokuBenchmark {
+
+    private static final int WARMUP_BOARDS = 2000;
+    private static final int MEASURED_BOARDS = 10000;
+    private static final int LATENCY_SEEDS = 1000000;
+    private static final int WARMUP_MOVES = 200000;
+    private static final int MEASURED_MOVES = 2000000;
+    private static final int BOTS = 4;
+
+    public static void main(String[] args) {
+        benchmarkGeneration();
+        benchmarkLatency();
+        benchmarkSolver();
+        benchmarkGrader();
+        benchmarkHint();
+        benchmarkReduction();
+        benchmarkCache();
+        benchmarkFootprint();
+        benchmarkPlacement();
+    }
+
+    /**
+     * Generates a batch of boards from consecutive seeds with each size and mode and prints the average time spent on
+     * each one.
+     */
+    private static void benchmarkGeneration() {
+        for (int sideSize : new int[] {Sudoku.SIDE_SIZE, 16, Sudoku.MAX_SIDE_SIZE}) {
+            for (GenerationMode mode : GenerationMode.values()) {
+                benchmarkGeneration(sideSize, mode);
+            }
+        }
+    }
+
+    /**
+     * Generates a batch of boards from consecutive seeds and prints the average time spent on each one.
+     *
+     * @param sideSize the number of cells on each side of the boards
+     * @param mode the generation mode to measure
+     */
+    private static void benchmarkGeneration(int sideSize, GenerationMode mode) {
+        for (int seed = 0; seed < WARMUP_BOARDS; seed++) {
+            new Sudoku(seed, sideSize, mode);
+        }
+
+        long start = System.nanoTime();
+
+        for (int seed = 0; seed < MEASURED_BOARDS; seed++) {
+            new Sudoku(seed, sideSize, mode);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Generation (%dx%d, %s): %d boards in %.1f ms, %.1f us/board, %.0f boards/s",
+                sideSize,
+                sideSize,
+                mode,
+                MEASURED_BOARDS,
+                elapsed / 1e6,
+                elapsed / 1e3 / MEASURED_BOARDS,
+                MEASURED_BOARDS / (elapsed / 1e9)));
+    }
+
+    /**
+     * Generates a classic board from each of a million seeds, as challenges created from a seed do, and prints the
+     * distribution of the time spent on each one.
+     */
+    private static void benchmarkLatency() {
+        for (int seed = 0; seed < WARMUP_BOARDS; seed++) {
+            new Sudoku(Sudoku.generate(new Random(seed), GenerationMode.CLASSIC));
+        }
+
+        long[] latencies = new long[LATENCY_SEEDS];
+        int slowestSeed = 0;
+
+        for (int seed = 0; seed < LATENCY_SEEDS; seed++) {
+            long start = System.nanoTime();
+
+            new Sudoku(Sudoku.generate(new Random(seed), GenerationMode.CLASSIC));
+
+            latencies[seed] = System.nanoTime() - start;
+
+            if (latencies[seed] > latencies[slowestSeed]) {
+                slowestSeed = seed;
+            }
+        }
+
+        long slowest = latencies[slowestSeed];
+        Arrays.sort(latencies);
+
+        System.out.println(String.format("Latency (%dx%d, %s): %d seeds, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, " +
+                                         "max %.1f us (seed %d)",
+                Sudoku.SIDE_SIZE,
+                Sudoku.SIDE_SIZE,
+                GenerationMode.CLASSIC,
+                LATENCY_SEEDS,
+                latencies[LATENCY_SEEDS / 2] / 1e3,
+                latencies[LATENCY_SEEDS / 100 * 99] / 1e3,
+                latencies[LATENCY_SEEDS / 1000 * 999] / 1e3,
+                slowest / 1e3,
+                slowestSeed));
+    }
+
+    /**
+     * Solves a batch of generated boards and prints the average time spent on each one.
+     */
+    private static void benchmarkSolver() {
+        Integer[][][] boards = new Integer[MEASURED_BOARDS][][];
+
+        for (int seed = 0; seed < MEASURED_BOARDS; seed++) {
+            boards[seed] = new Sudoku(seed).getBoard();
+        }
+
+        for (Integer[][] board : boards) {
+            Sudoku.countSolutions(board, 2);
+        }
+
+        long start = System.nanoTime();
+
+        for (Integer[][] board : boards) {
+            Sudoku.countSolutions(board, 2);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Solver: %d boards in %.1f ms, %.1f us/board",
+                MEASURED_BOARDS,
+                elapsed / 1e6,
+                elapsed / 1e3 / MEASURED_BOARDS));
+    }
+
+    /**
+     * Grades a batch of uniquely solvable boards and prints the average time spent on each one.
+     */
+    private static void benchmarkGrader() {
+        Integer[][][] boards = new Integer[MEASURED_BOARDS][][];
+
+        for (int seed = 0; seed < MEASURED_BOARDS; seed++) {
+            boards[seed] = new Sudoku(seed, GenerationMode.UNIQUE).getBoard();
+        }
+
+        for (Integer[][] board : boards) {
+            Sudoku.grade(board);
+        }
+
+        long start = System.nanoTime();
+
+        for (Integer[][] board : boards) {
+            Sudoku.grade(board);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Grader: %d boards in %.1f ms, %.1f us/board, %.0f boards/s",
+                MEASURED_BOARDS,
+                elapsed / 1e6,
+                elapsed / 1e3 / MEASURED_BOARDS,
+                MEASURED_BOARDS / (elapsed / 1e9)));
+    }
+
+    /**
+     * Asks for a hint on uniquely solvable boards and prints the average time spent on each one.
+     */
+    private static void benchmarkHint() {
+        Integer[][][] boards = new Integer[MEASURED_BOARDS][][];
+
+        for (int seed = 0; seed < MEASURED_BOARDS; seed++) {
+            boards[seed] = new Sudoku(seed, GenerationMode.UNIQUE).getBoard();
+        }
+
+        for (Integer[][] board : boards) {
+            Sudoku.hint(board);
+        }
+
+        long start = System.nanoTime();
+
+        for (Integer[][] board : boards) {
+            Sudoku.hint(board);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Hint: %d boards in %.1f ms, %.1f us/board, %.0f boards/s",
+                MEASURED_BOARDS,
+                elapsed / 1e6,
+                elapsed / 1e3 / MEASURED_BOARDS,
+                MEASURED_BOARDS / (elapsed / 1e9)));
+    }
+
+    /**
+     * Reduces a batch of uniquely solvable puzzles to minimal ones on every core and prints the average time spent and
+     * clues left on each one.
+     */
+    private static void benchmarkReduction() {
+        ClueReducer reducer = new ClueReducer(ForkJoinPool.commonPool());
+        Puzzle[] puzzles = new Puzzle[WARMUP_BOARDS];
+
+        for (int seed = 0; seed < WARMUP_BOARDS; seed++) {
+            puzzles[seed] = Sudoku.generate(new Random(seed), GenerationMode.UNIQUE);
+        }
+
+        for (int seed = 0; seed < WARMUP_BOARDS / 10; seed++) {
+            reducer.reduce(puzzles[seed], new Random(seed));
+        }
+
+        long clues = 0;
+        long reducedClues = 0;
+        long start = System.nanoTime();
+
+        for (int seed = 0; seed < WARMUP_BOARDS; seed++) {
+            clues += puzzles[seed].countClues();
+            reducedClues += reducer.reduce(puzzles[seed], new Random(seed)).countClues();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Reduction: %d puzzles in %.1f ms, %.1f us/puzzle, %.1f clues down to %.1f",
+                WARMUP_BOARDS,
+                elapsed / 1e6,
+                elapsed / 1e3 / WARMUP_BOARDS,
+                (double) clues / WARMUP_BOARDS,
+                (double) reducedClues / WARMUP_BOARDS));
+    }
+
+    /**
+     * Builds boards from a small set of seeds, as rematches would, and prints the average time spent on each one.
+     */
+    private static void benchmarkCache() {
+        int seeds = PuzzleCache.DEFAULT_CAPACITY / 2;
+
+        PuzzleCache cache = PuzzleCache.getShared();
+        cache.clear();
+
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_BOARDS; i++) {
+            new Sudoku(i % seeds);
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Cache: %d boards from %d seeds in %.1f ms, %.1f us/board, %d hits, %d misses",
+                MEASURED_BOARDS,
+                seeds,
+                elapsed / 1e6,
+                elapsed / 1e3 / MEASURED_BOARDS,
+                cache.getHits() - hits,
+                cache.getMisses() - misses));
+    }
+
+    /**
+     * Keeps a batch of boards and of challenges with two players alive and prints the heap taken by each one.
+     */
+    private static void benchmarkFootprint() {
+        // Measure boards alone, bypassing the cache so that nothing is shared among them
+        Sudoku[] boards = new Sudoku[MEASURED_BOARDS];
+        long before = usedMemory();
+
+        for (int seed = 0; seed < MEASURED_BOARDS; seed++) {
+            boards[seed] = new Sudoku(Sudoku.generate(new Random(seed), GenerationMode.CLASSIC));
+        }
+
+        long after = usedMemory();
+
+        System.out.println(String.format("Footprint: %d boards, %.0f bytes/board",
+                boards.length,
+                (double) (after - before) / boards.length));
+
+        // Measure challenges, including the board of each player
+        Challenge[] challenges = new Challenge[MEASURED_BOARDS];
+        Player owner = new Player("owner", null);
+        Player guest = new Player("guest", null);
+
+        before = usedMemory();
+
+        for (int i = 0; i < MEASURED_BOARDS; i++) {
+            challenges[i] = new Challenge(owner, "Footprint", boards[i], true);
+            challenges[i].addPlayer(owner);
+            challenges[i].addPlayer(guest);
+        }
+
+        after = usedMemory();
+
+        System.out.println(String.format("Footprint: %d challenges, %.0f bytes/challenge with 2 players, board excluded",
+                challenges.length,
+                (double) (after - before) / challenges.length));
+    }
+
+    /**
+     * Lets a few bots place random numbers into random cells of a series of challenges, through the placement throwing
+     * exceptions and through the one returning results, and prints the average time spent on each move.
+     */
+    private static void benchmarkPlacement() {
+        for (int i = 0; i < 3; i++) {
+            placeRandomNumbers(WARMUP_MOVES, true, null);
+            placeRandomNumbers(WARMUP_MOVES, false, null);
+        }
+
+        int[] outcomes = new int[PlacementResult.values().length];
+
+        long exceptions = placeRandomNumbers(MEASURED_MOVES, true, null);
+        long results = placeRandomNumbers(MEASURED_MOVES, false, outcomes);
+
+        StringBuilder mix = new StringBuilder();
+
+        for (PlacementResult result : PlacementResult.values()) {
+            mix.append(String.format(", %s %.1f%%", result, 100.0 * outcomes[result.ordinal()] / MEASURED_MOVES));
+        }
+
+        System.out.println(String.format("Placement: %d moves by %d bots, %.1f ns/move with exceptions, " +
+                                         "%.1f ns/move with results%s",
+                MEASURED_MOVES,
+                BOTS,
+                (double) exceptions / MEASURED_MOVES,
+                (double) results / MEASURED_MOVES,
+                mix));
+    }
+
+    /**
+     * Lets a few bots take turns placing random numbers into random cells, starting a new challenge whenever one ends.
+     *
+     * The moves are drawn from the same seed, so both placements go through the same moves with the same outcomes.
+     *
+     * @param moves the number of moves to make
+     * @param exceptions true to place the numbers throwing exceptions, false to place them returning results
+     * @param outcomes an array counting the moves with each result by ordinal, null if they aren't needed
+     *
+     * @return the time spent placing numbers, in nanoseconds, excluding the creation of the challenges
+     */
+    private static long placeRandomNumbers(int moves, boolean exceptions, int[] outcomes) {
+        Random random = new Random(7);
+        Player[] bots = new Player[BOTS];
+
+        for (int i = 0; i < BOTS; i++) {
+            bots[i] = new Player("bot" + i, null);
+        }
+
+        Challenge challenge = null;
+        long elapsed = 0;
+        long start = 0;
+
+        for (int move = 0, game = 0; move < moves; move++) {
+            // Start a new challenge whenever a bot completes the board
+            if (challenge == null || challenge.getStatus() == ChallengeStatus.ENDED) {
+                elapsed += challenge != null ? System.nanoTime() - start : 0;
+
+                challenge = new Challenge(bots[0], "Placement", new Sudoku(game++ % 64), true);
+
+                for (Player bot : bots) {
+                    challenge.addPlayer(bot);
+                }
+
+                challenge.start(bots[0]);
+                start = System.nanoTime();
+            }
+
+            Player bot = bots[move % BOTS];
+            int row = random.nextInt(Sudoku.SIDE_SIZE);
+            int column = random.nextInt(Sudoku.SIDE_SIZE);
+            int number = random.nextInt(Sudoku.SIDE_SIZE) + 1;
+
+            if (exceptions) {
+                try {
+                    challenge.placeNumber(bot, row, column, number);
+                } catch (FilledCellException | FixedCellException | NumberAlreadyGuessedException |
+                         InvalidNumberException e) {
+                    // Ordinary outcomes of a move
+                }
+            } else {
+                PlacementResult result = challenge.tryPlaceNumber(bot, row, column, number);
+
+                if (outcomes != null) {
+                    outcomes[result.ordinal()]++;
+                }
+            }
+        }
+
+        return elapsed + System.nanoTime() - start;
+    }
+
+    /**
+     * Collects the garbage and measures the heap in use.
+     *
+     * @return the number of bytes taken by live objects, approximately
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
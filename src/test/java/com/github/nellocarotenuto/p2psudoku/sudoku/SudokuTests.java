@@ -0,0 +1,815 @@
+package com.github.nellocarotenuto.p2psudoku.sudoku;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SudokuTests {
+
+    @Test
+    @DisplayName("Solve generated board test")
+    public void testSolveGeneratedBoard() {
+        for (int seed = 0; seed < 100; seed++) {
+            Sudoku sudoku = new Sudoku(seed);
+            Integer[][] board = sudoku.getBoard();
+            Integer[][] solution = sudoku.solve();
+
+            assertNotNull(solution);
+            assertValidSolution(board, solution);
+        }
+    }
+
+    @Test
+    @DisplayName("Count solutions of empty board test")
+    public void testCountSolutionsOfEmptyBoard() {
+        Integer[][] board = emptyBoard(Sudoku.SIDE_SIZE);
+
+        assertEquals(Sudoku.countSolutions(board, 2), 2);
+        assertValidSolution(board, Sudoku.solve(board));
+    }
+
+    @Test
+    @DisplayName("Solve board with conflicting givens test")
+    public void testSolveBoardWithConflictingGivens() {
+        Integer[][] board = emptyBoard(Sudoku.SIDE_SIZE);
+        board[0][0] = 5;
+        board[0][8] = 5;
+
+        assertEquals(Sudoku.countSolutions(board, 2), 0);
+        assertNull(Sudoku.solve(board));
+    }
+
+    @Test
+    @DisplayName("Solve board twice test")
+    public void testSolveBoardTwice() {
+        Sudoku sudoku = new Sudoku(7);
+
+        assertEquals(sudoku.countSolutions(1), 1);
+        assertEquals(Sudoku.countSolutions(emptyBoard(Sudoku.SIDE_SIZE), 3), 3);
+        assertEquals(sudoku.countSolutions(1), 1);
+    }
+
+    @Test
+    @DisplayName("Unique generation test")
+    public void testUniqueGeneration() {
+        for (int seed = 0; seed < 100; seed++) {
+            Sudoku sudoku = new Sudoku(seed, GenerationMode.UNIQUE);
+
+            assertEquals(sudoku.countSolutions(2), 1);
+            assertValidSolution(sudoku.getBoard(), sudoku.solve());
+        }
+    }
+
+    @Test
+    @DisplayName("Transform generation test")
+    public void testTransformGeneration() {
+        for (int seed = 0; seed < 100; seed++) {
+            Sudoku sudoku = new Sudoku(Sudoku.generate(new Random(seed), GenerationMode.TRANSFORM));
+
+            assertEquals(sudoku.countSolutions(2), 1);
+            assertValidSolution(sudoku.getBoard(), sudoku.solve());
+        }
+
+        for (int sideSize : new int[] {4, 16}) {
+            Puzzle puzzle = Sudoku.generate(new Random(7), sideSize, GenerationMode.TRANSFORM);
+            Integer[][] clues = new Integer[sideSize][sideSize];
+            Integer[][] solution = new Integer[sideSize][sideSize];
+
+            for (int row = 0; row < sideSize; row++) {
+                for (int column = 0; column < sideSize; column++) {
+                    clues[row][column] = puzzle.getClue(row, column);
+                    solution[row][column] = puzzle.getSolution(row, column);
+                }
+            }
+
+            assertValidSolution(clues, solution);
+            assertEquals(Sudoku.generate(new Random(7), sideSize, GenerationMode.TRANSFORM), puzzle);
+        }
+    }
+
+    @Test
+    @DisplayName("Logical solver placements test")
+    public void testLogicalSolverPlacements() {
+        for (int seed = 0; seed < 100; seed++) {
+            Sudoku sudoku = new Sudoku(seed, GenerationMode.UNIQUE);
+            Integer[][] solution = sudoku.solve();
+
+            LogicalSolver solver = new LogicalSolver(Sudoku.SIDE_SIZE);
+            solver.load(flatten(sudoku.getBoard()));
+
+            while (!solver.isSolved() && solver.step() != null) {
+                int cell = solver.getLastCell();
+
+                if (cell != -1) {
+                    assertEquals(solver.getLastValue(), (int) solution[cell / Sudoku.SIDE_SIZE][cell % Sudoku.SIDE_SIZE]);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Grade test")
+    public void testGrade() {
+        Integer[][] board = new Sudoku(7, GenerationMode.UNIQUE).solve();
+        board[0][0] = Sudoku.EMPTY_VALUE;
+
+        assertEquals(Sudoku.grade(board), new Grade(Technique.HIDDEN_SINGLE.getScore(), Difficulty.EASY));
+        assertEquals(Sudoku.grade(emptyBoard(Sudoku.SIDE_SIZE)).getDifficulty(), Difficulty.EXPERT);
+    }
+
+    @Test
+    @DisplayName("Pool take test")
+    public void testPoolTake() {
+        try (SudokuPool pool = new SudokuPool(2, 1)) {
+            for (Difficulty difficulty : Difficulty.values()) {
+                Sudoku sudoku = pool.take(difficulty);
+
+                assertEquals(sudoku.grade().getDifficulty(), difficulty);
+                assertEquals(sudoku.countSolutions(2), 1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cache eviction test")
+    public void testCacheEviction() {
+        PuzzleCache cache = new PuzzleCache(2);
+
+        Puzzle puzzle = cache.get(7, GenerationMode.CLASSIC);
+
+        assertSame(cache.get(7, GenerationMode.CLASSIC), puzzle);
+        assertNotSame(cache.get(7, GenerationMode.UNIQUE), puzzle);
+        assertEquals(cache.getHits(), 1);
+        assertEquals(cache.getMisses(), 2);
+
+        cache.get(42, GenerationMode.CLASSIC);
+
+        assertEquals(cache.get(7, GenerationMode.CLASSIC), puzzle);
+        assertEquals(cache.getMisses(), 4);
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    @DisplayName("Cached board test")
+    public void testCachedBoard() {
+        Sudoku generated = new Sudoku(Sudoku.generate(new Random(7), GenerationMode.CLASSIC));
+
+        assertEquals(new Sudoku(7).toString(), generated.toString());
+        assertEquals(new Sudoku(7).toString(), generated.toString());
+    }
+
+    @Test
+    @DisplayName("Board sizes test")
+    public void testBoardSizes() {
+        for (int sideSize : new int[] {4, 16, Sudoku.MAX_SIDE_SIZE}) {
+            for (int seed = 0; seed < 10; seed++) {
+                Puzzle puzzle = PuzzleCache.getShared().get(seed, sideSize, GenerationMode.UNIQUE);
+                Integer[][] clues = new Integer[sideSize][sideSize];
+                Integer[][] solution = new Integer[sideSize][sideSize];
+
+                for (int row = 0; row < sideSize; row++) {
+                    for (int column = 0; column < sideSize; column++) {
+                        clues[row][column] = puzzle.getClue(row, column);
+                        solution[row][column] = puzzle.getSolution(row, column);
+                    }
+                }
+
+                assertValidSolution(clues, solution);
+                assertEquals(Sudoku.grade(clues).getDifficulty(), Difficulty.EASY);
+                assertEquals(new Sudoku(seed, sideSize, GenerationMode.CLASSIC).getSideSize(), sideSize);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(7, 10, GenerationMode.CLASSIC));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(7, 36, GenerationMode.CLASSIC));
+    }
+
+    @Test
+    @DisplayName("Puzzle pack test")
+    public void testPuzzlePack() throws Exception {
+        for (int sideSize : new int[] {Sudoku.SIDE_SIZE, Sudoku.MAX_SIDE_SIZE}) {
+            ByteArrayOutputStream singleThreaded = new ByteArrayOutputStream();
+            ByteArrayOutputStream multiThreaded = new ByteArrayOutputStream();
+            int count = 100;
+
+            try (PuzzlePackWriter writer = new PuzzlePackWriter(singleThreaded, sideSize)) {
+                new BatchGenerator(new ForkJoinPool(1), sideSize, GenerationMode.UNIQUE).generate(42, count, writer);
+            }
+
+            try (PuzzlePackWriter writer = new PuzzlePackWriter(multiThreaded, sideSize)) {
+                new BatchGenerator(new ForkJoinPool(4), sideSize, GenerationMode.UNIQUE).generate(42, count, writer);
+            }
+
+            assertArrayEquals(singleThreaded.toByteArray(), multiThreaded.toByteArray());
+            assertEquals(singleThreaded.size(), PuzzlePack.HEADER_SIZE + count * PuzzlePack.recordSize(sideSize));
+
+            try (PuzzlePackReader reader = new PuzzlePackReader(new ByteArrayInputStream(multiThreaded.toByteArray()))) {
+                for (int index = 0; index < count; index++) {
+                    PackedPuzzle packed = reader.read();
+                    int seed = BatchGenerator.deriveSeed(42, index);
+                    Puzzle puzzle = Sudoku.generate(new Random(seed), sideSize, GenerationMode.UNIQUE);
+
+                    assertEquals(packed.getSeed(), seed);
+                    assertEquals(packed.getPuzzle(), puzzle);
+                    assertEquals(packed.getDifficulty(), new Sudoku(puzzle).grade().getDifficulty());
+                }
+
+                assertNull(reader.read());
+            }
+        }
+
+        assertEquals(PuzzlePack.recordSize(Sudoku.SIDE_SIZE), 57);
+
+        // Corrupt the solution and the difficulty of a record and the side size of the header
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(output, Sudoku.SIDE_SIZE)) {
+            new BatchGenerator(new ForkJoinPool(1), Sudoku.SIDE_SIZE, GenerationMode.UNIQUE).generate(42, 1, writer);
+        }
+
+        byte[] corrupted = output.toByteArray();
+        int clues = PuzzlePack.packedSize(Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE, 1);
+        int solution = PuzzlePack.HEADER_SIZE + Integer.BYTES + 1 + clues;
+
+        for (byte values : new byte[] {0x00, (byte) 0xff}) {
+            byte[] solutionCorrupted = corrupted.clone();
+            solutionCorrupted[solution] = values;
+
+            try (PuzzlePackReader reader = new PuzzlePackReader(new ByteArrayInputStream(solutionCorrupted))) {
+                assertThrows(IOException.class, reader::read);
+            }
+        }
+
+        corrupted[PuzzlePack.HEADER_SIZE + Integer.BYTES] = (byte) 0xff;
+
+        try (PuzzlePackReader reader = new PuzzlePackReader(new ByteArrayInputStream(corrupted))) {
+            assertThrows(IOException.class, reader::read);
+        }
+
+        corrupted[PuzzlePack.HEADER_SIZE - 1] = 10;
+
+        assertThrows(IOException.class, () -> new PuzzlePackReader(new ByteArrayInputStream(corrupted)));
+    }
+
+    @Test
+    @DisplayName("Clue reduction test")
+    public void testClueReduction() {
+        ClueReducer singleThreaded = new ClueReducer(new ForkJoinPool(1));
+        ClueReducer multiThreaded = new ClueReducer(new ForkJoinPool(4));
+
+        for (int seed = 0; seed < 10; seed++) {
+            Puzzle puzzle = Sudoku.generate(new Random(seed), GenerationMode.UNIQUE);
+            Puzzle reduced = multiThreaded.reduce(puzzle, new Random(seed));
+            Integer[][] clues = new Sudoku(reduced).getBoard();
+
+            assertEquals(singleThreaded.reduce(puzzle, new Random(seed)), reduced);
+            assertEquals(Sudoku.countSolutions(clues, 2), 1);
+            assertTrue(reduced.countClues() <= puzzle.countClues());
+
+            for (int row = 0; row < Sudoku.SIDE_SIZE; row++) {
+                for (int column = 0; column < Sudoku.SIDE_SIZE; column++) {
+                    if (reduced.getClue(row, column) == Sudoku.EMPTY_VALUE) {
+                        continue;
+                    }
+
+                    assertEquals(reduced.getClue(row, column), puzzle.getClue(row, column));
+
+                    clues[row][column] = Sudoku.EMPTY_VALUE;
+                    assertEquals(Sudoku.countSolutions(clues, 2), 2);
+                    clues[row][column] = reduced.getClue(row, column);
+                }
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> singleThreaded.reduce(
+                Sudoku.generate(new Random(7), 16, GenerationMode.UNIQUE), new Random(7)));
+        assertThrows(IllegalArgumentException.class, () -> new BatchGenerator(
+                new ForkJoinPool(1), Sudoku.SIDE_SIZE, GenerationMode.CLASSIC, true));
+    }
+
+    @Test
+    @DisplayName("Puzzle corpus test")
+    public void testPuzzleCorpus(@TempDir Path directory) throws Exception {
+        Path pack = directory.resolve("puzzles.pack");
+        Path path = directory.resolve("puzzles.corpus");
+        int count = 200;
+
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(Files.newOutputStream(pack), Sudoku.SIDE_SIZE)) {
+            new BatchGenerator(new ForkJoinPool(2), Sudoku.SIDE_SIZE, GenerationMode.UNIQUE).generate(42, count, writer);
+        }
+
+        PuzzleCorpus.build(pack, path);
+
+        // Reject packs holding a solution value outside the board
+        Path corrupted = directory.resolve("corrupted.pack");
+        byte[] bytes = Files.readAllBytes(pack);
+        int clues = PuzzlePack.packedSize(Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE, 1);
+        bytes[PuzzlePack.HEADER_SIZE + Integer.BYTES + 1 + clues] = (byte) 0xff;
+        Files.write(corrupted, bytes);
+
+        assertThrows(IOException.class, () -> PuzzleCorpus.build(corrupted, directory.resolve("corrupted.corpus")));
+
+        try (PuzzleCorpus corpus = PuzzleCorpus.open(path)) {
+            assertEquals(corpus.getSideSize(), Sudoku.SIDE_SIZE);
+            assertEquals(corpus.size(), count);
+            assertEquals(Files.size(path), PuzzleCorpus.HEADER_SIZE + count * PuzzlePack.recordSize(Sudoku.SIDE_SIZE));
+
+            for (Difficulty difficulty : Difficulty.values()) {
+                for (long index = 1; index < corpus.size(difficulty); index++) {
+                    assertTrue(corpus.get(difficulty, index - 1).getSeed() <= corpus.get(difficulty, index).getSeed());
+                }
+
+                if (corpus.size(difficulty) > 0) {
+                    assertEquals(corpus.draw(difficulty, new Random(7)).getDifficulty(), difficulty);
+                }
+
+                assertThrows(IndexOutOfBoundsException.class, () -> corpus.get(difficulty, corpus.size(difficulty)));
+            }
+
+            try (PuzzlePackReader reader = new PuzzlePackReader(Files.newInputStream(pack))) {
+                for (PackedPuzzle packed = reader.read(); packed != null; packed = reader.read()) {
+                    PackedPuzzle found = corpus.find(packed.getSeed());
+
+                    assertEquals(found.getPuzzle(), packed.getPuzzle());
+                    assertEquals(found.getDifficulty(), packed.getDifficulty());
+                }
+            }
+        }
+
+        assertThrows(IOException.class, () -> PuzzleCorpus.open(pack));
+    }
+
+    @Test
+    @DisplayName("Puzzle import test")
+    public void testPuzzleImport(@TempDir Path directory) throws Exception {
+        Path input = directory.resolve("puzzles.txt");
+        Path pack = directory.resolve("puzzles.pack");
+        StringBuilder text = new StringBuilder("# Puzzles to import\n\n");
+        Puzzle[] puzzles = new Puzzle[50];
+
+        for (int seed = 0; seed < puzzles.length; seed++) {
+            puzzles[seed] = PuzzleCache.getShared().get(seed, Sudoku.SIDE_SIZE, GenerationMode.UNIQUE);
+
+            for (int position = 0; position < PuzzleImporter.LINE_LENGTH; position++) {
+                int clue = puzzles[seed].getClue(position / Sudoku.SIDE_SIZE, position % Sudoku.SIDE_SIZE);
+                text.append(clue == Sudoku.EMPTY_VALUE && seed % 2 == 0 ? '.' : (char) ('0' + clue));
+            }
+
+            text.append(seed % 3 == 0 ? "\r\n" : "\n");
+        }
+
+        char[] empty = new char[PuzzleImporter.LINE_LENGTH];
+        Arrays.fill(empty, '.');
+        String board = new String(empty);
+
+        text.append(board.substring(1)).append('\n');
+        text.append('x').append(board.substring(1)).append('\n');
+        text.append("11").append(board.substring(2)).append('\n');
+        text.append("12345678.........9").append(board.substring(18)).append('\n');
+        text.append(board);
+
+        Files.write(input, text.toString().getBytes(StandardCharsets.US_ASCII));
+
+        ImportReport report;
+
+        try (PuzzlePackWriter writer = new PuzzlePackWriter(Files.newOutputStream(pack), Sudoku.SIDE_SIZE)) {
+            report = new PuzzleImporter(new ForkJoinPool(2)).importPuzzles(input, writer);
+        }
+
+        assertEquals(report.getRead(), puzzles.length + 5);
+        assertEquals(report.getAccepted(), puzzles.length);
+        assertEquals(report.getMalformed(), 2);
+        assertEquals(report.getConflicting(), 1);
+        assertEquals(report.getUnsolvable(), 1);
+        assertEquals(report.getAmbiguous(), 1);
+
+        try (PuzzlePackReader reader = new PuzzlePackReader(Files.newInputStream(pack))) {
+            for (int index = 0; index < puzzles.length; index++) {
+                PackedPuzzle packed = reader.read();
+
+                assertEquals(packed.getSeed(), index + 3);
+                assertEquals(packed.getPuzzle(), puzzles[index]);
+                assertEquals(packed.getDifficulty(), new Sudoku(puzzles[index]).grade().getDifficulty());
+            }
+
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    @DisplayName("Variant generation test")
+    public void testVariantGeneration() throws Exception {
+        for (Set<Variant> variants : Arrays.asList(EnumSet.of(Variant.DIAGONAL), EnumSet.of(Variant.WINDOKU),
+                EnumSet.of(Variant.KILLER), EnumSet.allOf(Variant.class))) {
+            Puzzle puzzle = PuzzleCache.getShared().get(7, Sudoku.SIDE_SIZE, GenerationMode.UNIQUE, variants);
+            Constraints constraints = puzzle.getConstraints();
+            Sudoku sudoku = new Sudoku(puzzle);
+
+            assertEquals(puzzle.getVariants(), variants);
+            assertEquals(Sudoku.countSolutions(sudoku.getInitialBoard(), 2, constraints), 1);
+
+            // Check every group and cage against the solution
+            for (int[] unit : constraints.units()) {
+                int values = 0;
+
+                for (int cell : unit) {
+                    values |= 1 << (puzzle.getSolution(cell / Sudoku.SIDE_SIZE, cell % Sudoku.SIDE_SIZE) - 1);
+                }
+
+                assertEquals(values, (1 << Sudoku.SIDE_SIZE) - 1);
+            }
+
+            for (int cage = 0; cage < constraints.getCageCount(); cage++) {
+                int sum = 0;
+
+                for (int cell : constraints.cages()[cage]) {
+                    sum += puzzle.getSolution(cell / Sudoku.SIDE_SIZE, cell % Sudoku.SIDE_SIZE);
+                }
+
+                assertEquals(sum, constraints.getCageSum(cage));
+            }
+
+            Sudoku decoded = SudokuCodec.decode(SudokuCodec.encode(sudoku));
+
+            assertEquals(decoded.toString(), sudoku.toString());
+            assertEquals(decoded.getConstraints().getVariants(), variants);
+            assertEquals(decoded.getConstraints().getCageCount(), constraints.getCageCount());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(7, Sudoku.SIDE_SIZE, GenerationMode.TRANSFORM,
+                EnumSet.of(Variant.DIAGONAL)));
+        assertThrows(IllegalArgumentException.class, () -> new Sudoku(7, 16, GenerationMode.CLASSIC,
+                EnumSet.of(Variant.WINDOKU)));
+        assertThrows(IllegalArgumentException.class, () -> Constraints.of(Sudoku.SIDE_SIZE,
+                EnumSet.of(Variant.KILLER)));
+    }
+
+    @Test
+    @DisplayName("Codec round trip test")
+    public void testCodecRoundTrip() throws Exception {
+        for (int sideSize : new int[] {4, Sudoku.SIDE_SIZE, 16, Sudoku.MAX_SIDE_SIZE}) {
+            Sudoku sudoku = new Sudoku(7, sideSize, GenerationMode.CLASSIC);
+            Integer[][] solution = new Integer[sideSize][sideSize];
+            Puzzle puzzle = PuzzleCache.getShared().get(7, sideSize, GenerationMode.CLASSIC);
+
+            // Fill every other empty cell
+            for (int position = 0; position < sideSize * sideSize; position++) {
+                int row = position / sideSize;
+                int column = position % sideSize;
+
+                solution[row][column] = puzzle.getSolution(row, column);
+
+                if (puzzle.getClue(row, column) == Sudoku.EMPTY_VALUE && position % 2 == 0) {
+                    sudoku.placeNumber(row, column, solution[row][column]);
+                }
+            }
+
+            Sudoku decoded = SudokuCodec.decode(SudokuCodec.encode(sudoku));
+
+            assertEquals(decoded.toString(), sudoku.toString());
+            assertArrayEquals(decoded.getBoard(), sudoku.getBoard());
+            assertArrayEquals(decoded.getInitialBoard(), new Sudoku(puzzle).getBoard());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+                output.writeObject(sudoku);
+            }
+
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                Sudoku deserialized = (Sudoku) input.readObject();
+
+                assertEquals(deserialized.toString(), sudoku.toString());
+                assertEquals(deserialized.getSideSize(), sideSize);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Seed codec test")
+    public void testSeedCodec() throws Exception {
+        for (int sideSize : new int[] {4, Sudoku.SIDE_SIZE, 16}) {
+            Sudoku sudoku = new Sudoku(7, sideSize, GenerationMode.UNIQUE);
+            Puzzle puzzle = PuzzleCache.getShared().get(7, sideSize, GenerationMode.UNIQUE);
+
+            // Fill every third empty cell
+            for (int position = 0; position < sideSize * sideSize; position += 3) {
+                int row = position / sideSize;
+                int column = position % sideSize;
+
+                if (puzzle.getClue(row, column) == Sudoku.EMPTY_VALUE) {
+                    sudoku.placeNumber(row, column, puzzle.getSolution(row, column));
+                }
+            }
+
+            byte[] data = SudokuCodec.encodeSeed(sudoku);
+            Sudoku decoded = SudokuCodec.decode(data);
+
+            assertEquals(data.length, SudokuCodec.encodedSeedSize(sideSize));
+            assertEquals(decoded.toString(), sudoku.toString());
+            assertEquals(decoded.getRemainingCells(), sudoku.getRemainingCells());
+            assertArrayEquals(SudokuCodec.encodeSeed(decoded), data);
+        }
+
+        Sudoku killer = new Sudoku(7, Sudoku.SIDE_SIZE, GenerationMode.UNIQUE, EnumSet.allOf(Variant.class));
+        Sudoku decoded = SudokuCodec.decode(SudokuCodec.encodeSeed(killer));
+
+        assertEquals(decoded.toString(), killer.toString());
+        assertEquals(decoded.getConstraints().getCageCount(), killer.getConstraints().getCageCount());
+
+        assertEquals(SudokuCodec.encodedSeedSize(Sudoku.SIDE_SIZE), 19);
+        assertThrows(IllegalArgumentException.class, () -> SudokuCodec.encodeSeed(
+                new Sudoku(PuzzleCache.getShared().get(7, GenerationMode.CLASSIC))));
+
+        byte[] data = SudokuCodec.encodeSeed(new Sudoku(7));
+        data[1]++;
+
+        assertThrows(IllegalArgumentException.class, () -> SudokuCodec.decode(data));
+    }
+
+    @Test
+    @DisplayName("Codec size test")
+    public void testCodecSize() {
+        assertEquals(SudokuCodec.encode(new Sudoku(7)).length, 64);
+        assertEquals(SudokuCodec.encodedSize(Sudoku.SIDE_SIZE), 64);
+        assertEquals(SudokuCodec.encodedSize(Sudoku.MAX_SIDE_SIZE), 550);
+
+        assertThrows(IllegalArgumentException.class, () -> SudokuCodec.decode(new byte[] {9, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> SudokuCodec.decode(new byte[SudokuCodec.encodedSize(9)]));
+    }
+
+    @Test
+    @DisplayName("Remaining cells test")
+    public void testRemainingCells() {
+        Puzzle puzzle = PuzzleCache.getShared().get(7, GenerationMode.CLASSIC);
+        Sudoku sudoku = new Sudoku(puzzle);
+        int remainingCells = Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE - puzzle.countClues();
+
+        assertEquals(sudoku.getRemainingCells(), remainingCells);
+
+        for (int row = 0; row < Sudoku.SIDE_SIZE; row++) {
+            for (int column = 0; column < Sudoku.SIDE_SIZE; column++) {
+                if (puzzle.getClue(row, column) == Sudoku.EMPTY_VALUE) {
+                    assertFalse(sudoku.isComplete());
+
+                    sudoku.placeNumber(row, column, puzzle.getSolution(row, column));
+                    remainingCells--;
+
+                    assertEquals(SudokuCodec.decode(SudokuCodec.encode(sudoku)).getRemainingCells(), remainingCells);
+                }
+            }
+        }
+
+        assertEquals(sudoku.getRemainingCells(), 0);
+        assertTrue(sudoku.isComplete());
+    }
+
+    @Test
+    @DisplayName("Placement result test")
+    public void testPlacementResult() {
+        Puzzle puzzle = PuzzleCache.getShared().get(7, GenerationMode.CLASSIC);
+        Sudoku sudoku = new Sudoku(puzzle);
+
+        for (int position = 0; position < Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE; position++) {
+            int row = position / Sudoku.SIDE_SIZE;
+            int column = position % Sudoku.SIDE_SIZE;
+            int value = puzzle.getSolution(row, column);
+            int wrong = value % Sudoku.SIDE_SIZE + 1;
+
+            assertEquals(sudoku.getSolution(row, column), value);
+
+            if (puzzle.getClue(row, column) != Sudoku.EMPTY_VALUE) {
+                assertEquals(sudoku.tryPlaceNumber(row, column, value), PlacementResult.FIXED);
+                assertThrows(FixedCellException.class, () -> sudoku.placeNumber(row, column, value));
+                continue;
+            }
+
+            int remainingCells = sudoku.getRemainingCells();
+
+            assertEquals(sudoku.tryPlaceNumber(row, column, wrong), PlacementResult.WRONG);
+            assertThrows(InvalidNumberException.class, () -> sudoku.placeNumber(row, column, wrong));
+            assertEquals(sudoku.getRemainingCells(), remainingCells);
+
+            assertEquals(sudoku.tryPlaceNumber(row, column, value), PlacementResult.PLACED);
+            assertEquals(sudoku.getRemainingCells(), remainingCells - 1);
+
+            assertEquals(sudoku.tryPlaceNumber(row, column, value), PlacementResult.FILLED);
+            assertThrows(FilledCellException.class, () -> sudoku.placeNumber(row, column, value));
+        }
+
+        assertTrue(sudoku.isComplete());
+        assertThrows(CellNotFoundException.class, () -> sudoku.tryPlaceNumber(Sudoku.SIDE_SIZE, 0, 1));
+        assertThrows(CellNotFoundException.class, () -> sudoku.getSolution(0, Sudoku.SIDE_SIZE));
+    }
+
+    @Test
+    @DisplayName("Board view test")
+    public void testBoardView() {
+        Puzzle puzzle = PuzzleCache.getShared().get(7, GenerationMode.CLASSIC);
+        Sudoku sudoku = new Sudoku(puzzle);
+        BoardView view = sudoku.getView();
+
+        assertSame(sudoku.getView(), view);
+        assertEquals(view.getSideSize(), Sudoku.SIDE_SIZE);
+        assertEquals(view.getVersion(), puzzle.countClues());
+
+        for (int position = 0; position < Sudoku.SIDE_SIZE * Sudoku.SIDE_SIZE; position++) {
+            int row = position / Sudoku.SIDE_SIZE;
+            int column = position % Sudoku.SIDE_SIZE;
+
+            if (puzzle.getClue(row, column) == Sudoku.EMPTY_VALUE) {
+                int version = view.getVersion();
+
+                assertFalse(view.isFixed(row, column));
+                assertEquals(view.getValue(row, column), Sudoku.EMPTY_VALUE);
+
+                sudoku.placeNumber(row, column, puzzle.getSolution(row, column));
+
+                assertEquals(view.getVersion(), version + 1);
+            } else {
+                assertTrue(view.isFixed(row, column));
+            }
+
+            assertEquals(view.getValue(row, column), puzzle.getSolution(row, column));
+        }
+
+        assertThrows(CellNotFoundException.class, () -> view.getValue(0, Sudoku.SIDE_SIZE));
+        assertThrows(CellNotFoundException.class, () -> view.isFixed(-1, 0));
+    }
+
+    @Test
+    @DisplayName("Pencil marks test")
+    public void testPencilMarks() {
+        for (int sideSize : new int[] {4, 9, 16}) {
+            Puzzle puzzle = PuzzleCache.getShared().get(7, sideSize, GenerationMode.CLASSIC);
+            Sudoku sudoku = new Sudoku(puzzle);
+            Random random = new Random(7);
+
+            while (!sudoku.isComplete()) {
+                int row = random.nextInt(sideSize);
+                int column = random.nextInt(sideSize);
+
+                if (sudoku.getBoard()[row][column] != Sudoku.EMPTY_VALUE) {
+                    continue;
+                }
+
+                sudoku.placeNumber(row, column, puzzle.getSolution(row, column));
+
+                Integer[][] board = sudoku.getBoard();
+                PencilMarks marks = new PencilMarks(board);
+
+                for (int i = 0; i < sideSize; i++) {
+                    for (int j = 0; j < sideSize; j++) {
+                        assertEquals(sudoku.getCandidates(i, j), candidates(board, i, j));
+                        assertEquals(marks.getCandidates(i, j), candidates(board, i, j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Hint test")
+    public void testHint() {
+        Puzzle puzzle = PuzzleCache.getShared().get(7, GenerationMode.UNIQUE);
+        Sudoku sudoku = new Sudoku(puzzle);
+        Hint hint = sudoku.hint();
+
+        while (hint != null) {
+            assertEquals(sudoku.getBoard()[hint.getRow()][hint.getColumn()], (Integer) Sudoku.EMPTY_VALUE);
+            assertEquals(hint.getValue(), puzzle.getSolution(hint.getRow(), hint.getColumn()));
+
+            sudoku.placeNumber(hint.getRow(), hint.getColumn(), hint.getValue());
+            hint = sudoku.hint();
+        }
+
+        assertEquals(sudoku.isComplete(), sudoku.grade().getDifficulty() != Difficulty.EXPERT);
+        assertThrows(InvalidNumberException.class, () -> Sudoku.hint(new Integer[][] {
+                {1, 1, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}
+        }));
+    }
+
+    /**
+     * Computes the candidates of a cell from scratch.
+     *
+     * @param board the matrix representation of a board
+     * @param row the row index (starting at 0) of the cell
+     * @param column the column index (starting at 0) of the cell
+     *
+     * @return the bitmask of the values not used in the row, column and region of the cell, 0 if the cell is filled
+     */
+    static int candidates(Integer[][] board, int row, int column) {
+        if (board[row][column] != Sudoku.EMPTY_VALUE) {
+            return 0;
+        }
+
+        int sideSize = board.length;
+        int regionSize = (int) Math.sqrt(sideSize);
+        int used = 0;
+
+        for (int index = 0; index < sideSize; index++) {
+            int regionRow = (row / regionSize) * regionSize + index / regionSize;
+            int regionColumn = (column / regionSize) * regionSize + index % regionSize;
+
+            used |= 1 << board[row][index];
+            used |= 1 << board[index][column];
+            used |= 1 << board[regionRow][regionColumn];
+        }
+
+        return ~(used >> 1) & ((1 << sideSize) - 1);
+    }
+
+    /**
+     * Copies a matrix into an array in row-major order.
+     *
+     * @param board the matrix representation of a board
+     *
+     * @return the values of the board in row-major order
+     */
+    static int[] flatten(Integer[][] board) {
+        int sideSize = board.length;
+        int[] values = new int[sideSize * sideSize];
+
+        for (int position = 0; position < values.length; position++) {
+            values[position] = board[position / sideSize][position % sideSize];
+        }
+
+        return values;
+    }
+
+    /**
+     * Builds a board with no values in it.
+     *
+     * @param sideSize the number of cells on each side of the board
+     *
+     * @return the matrix representation of the empty board
+     */
+    static Integer[][] emptyBoard(int sideSize) {
+        Integer[][] board = new Integer[sideSize][sideSize];
+
+        for (Integer[] row : board) {
+            Arrays.fill(row, Sudoku.EMPTY_VALUE);
+        }
+
+        return board;
+    }
+
+    /**
+     * Checks that a solution keeps the values of a board and respects the constraints.
+     *
+     * @param board the matrix representation of the board solved
+     * @param solution the matrix representation of the solution
+     */
+    static void assertValidSolution(Integer[][] board, Integer[][] solution) {
+        int sideSize = board.length;
+        int regionSize = (int) Math.sqrt(sideSize);
+
+        for (int i = 0; i < sideSize; i++) {
+            int rowMask = 0;
+            int columnMask = 0;
+            int regionMask = 0;
+
+            for (int j = 0; j < sideSize; j++) {
+                if (board[i][j] != Sudoku.EMPTY_VALUE) {
+                    assertEquals(board[i][j], solution[i][j]);
+                }
+
+                int row = (i / regionSize) * regionSize + j / regionSize;
+                int column = (i % regionSize) * regionSize + j % regionSize;
+
+                rowMask |= 1 << solution[i][j];
+                columnMask |= 1 << solution[j][i];
+                regionMask |= 1 << solution[row][column];
+            }
+
+            int expected = ((1 << sideSize) - 1) << 1;
+
+            assertTrue(rowMask == expected && columnMask == expected && regionMask == expected);
+        }
+    }
+
+}